@@ -0,0 +1,76 @@
+package Benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of target/benchmarks.jar. Runs the benchmarks selected by the usual JMH options,
+ * always writing the results as JSON (to jmh-result.json unless -rff says otherwise), and
+ * optionally compares them against a stored baseline:
+ * <ul>
+ * <li>-baseline file.json: results of an earlier run, e.g. a copy of jmh-result.json. Exits with
+ * status 1 if any benchmark regressed (see RegressionReport)</li>
+ * <li>-tolerance fraction: slowdown tolerated before a benchmark counts as regressed, 0.1 by
+ * default</li>
+ * <li>-compare baseline.json results.json: only compares two existing result files</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+  private static final String DEFAULT_RESULT = "jmh-result.json";
+
+  public static void main(String[] args)
+      throws IOException, RunnerException, CommandLineOptionException {
+    File baseline = null;
+    File compared = null;
+    double tolerance = RegressionReport.DEFAULT_TOLERANCE;
+
+    // take our own options out, the rest are JMH's
+    List<String> jmhArgs = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-baseline":
+          baseline = new File(args[++i]);
+          break;
+        case "-tolerance":
+          tolerance = Double.parseDouble(args[++i]);
+          break;
+        case "-compare":
+          baseline = new File(args[++i]);
+          compared = new File(args[++i]);
+          break;
+        default:
+          jmhArgs.add(args[i]);
+      }
+    }
+
+    if (compared == null) {
+      CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+      compared = new File(commandLine.getResult().orElse(DEFAULT_RESULT));
+      Options options = new OptionsBuilder()
+          .parent(commandLine)
+          .resultFormat(ResultFormatType.JSON)
+          .result(compared.getPath())
+          .build();
+      new Runner(options).run();
+    }
+
+    if (baseline != null) {
+      RegressionReport report = RegressionReport.compare(baseline, compared, tolerance);
+      System.out.println();
+      System.out.print(report);
+      if (report.hasRegressions()) {
+        System.exit(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package Benchmarks;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.FaaSSimulationBuilder.parseCSV;
+
+import FunctionAsAService.Function;
+import Simulation.DispatchMode;
+import Simulation.FaaSSimulation;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A whole simulation of the first `functions` functions of the trace, reporting the events per
+ * second of the complete run: arrivals, event loop, server and counters together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class EndToEndBenchmark {
+
+  @Param("../trace-final.csv")
+  public String trace;
+
+  @Param("2000")
+  public int functions;
+
+  @Param("10")
+  public int capacity;
+
+  @Param("21600")
+  public double simulationTime;
+
+  @Param({"POLYMORPHIC", "SWITCH"})
+  public DispatchMode dispatchMode;
+
+  private List<Function> slice;
+
+  /**
+   * Requests, promotions and completions simulated, reported by JMH as events per second
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Events {
+
+    public long events;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    List<Function> all = parseCSV(new File(trace));
+    slice = all.subList(0, Math.min(functions, all.size()));
+  }
+
+  @Benchmark
+  public FaaSSimulation simulate(Events counter) {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFreshFunctions(slice)
+        .withMemoryCapacity(capacity)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(simulationTime)
+        .withDispatchMode(dispatchMode)
+        .createFaaSSimulation();
+    sim.runSim();
+    counter.events += sim.getTotalRequests() + sim.getTotalPromotions()
+        + sim.getTotalCompletions();
+    return sim;
+  }
+}
@@ -0,0 +1,69 @@
+package Benchmarks;
+
+import FunctionAsAService.Function;
+import FunctionAsAService.Server.FaaSServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Request handling cycles on a full FaaSServer, the functions being requested in a random order
+ * fixed up front. A request for a resident function is a promote/demote cycle, any other request
+ * evicts the function idle the longest and loads the requested one in its place.
+ */
+@State(Scope.Thread)
+public class FaaSServerBenchmark {
+
+  private static final int FUNCTIONS = 10_000;
+  private static final int REQUESTS = 1 << 16;
+
+  @Param({"40", "1000"})
+  public int capacity;
+
+  @Param({"true", "false"})
+  public boolean checked;
+
+  private FaaSServer server;
+  private Function[] requests;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<Function> functions = new ArrayList<>(FUNCTIONS);
+    for (int id = 1; id <= FUNCTIONS; id++) {
+      functions.add(new Function(id, 100, 1));
+    }
+    server = new FaaSServer(capacity, checked);
+    server.fillMemory(functions);
+
+    // skew the requests so that some of them hit resident functions
+    SplittableRandom random = new SplittableRandom(42);
+    requests = new Function[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      requests[i] = functions.get((int) (FUNCTIONS * Math.pow(random.nextDouble(), 4)));
+    }
+  }
+
+  @Benchmark
+  public void request(Blackhole blackhole) {
+    Function function = requests[next];
+    next = (next + 1) & (REQUESTS - 1);
+
+    int id = function.getFunctionID();
+    if (server.isIdle(id)) {
+      server.promote(function);
+    } else {
+      blackhole.consume(server.evict());
+      server.enqueueLoading(function);
+      server.promote(function);
+    }
+    server.demote(function);
+  }
+}
@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import FunctionAsAService.Function;
+import FunctionAsAService.Server.QueueMap;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * QueueMap operations at a steady size: every operation takes one function out of the queue and
+ * puts one back in.
+ */
+@State(Scope.Thread)
+public class QueueMapBenchmark {
+
+  private static final int KEYS = 1 << 16;
+
+  @Param({"40", "10000"})
+  public int size;
+
+  private QueueMap<Integer, Function> queue;
+  private Integer[] keys;
+  private Function[] functions;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    functions = new Function[size];
+    queue = new QueueMap<>();
+    for (int id = 0; id < size; id++) {
+      functions[id] = new Function(id, 100, 1);
+      queue.put(id, functions[id]);
+    }
+
+    // keys of queued functions in a random order, boxed up front
+    SplittableRandom random = new SplittableRandom(42);
+    keys = new Integer[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = random.nextInt(size);
+    }
+  }
+
+  /**
+   * Moves a random function to the back of the queue
+   */
+  @Benchmark
+  public void removeAndPut(Blackhole blackhole) {
+    Integer key = keys[next];
+    next = (next + 1) & (KEYS - 1);
+    blackhole.consume(queue.remove(key));
+    queue.put(key, functions[key]);
+  }
+
+  /**
+   * Moves the function at the front of the queue to its back
+   */
+  @Benchmark
+  public void popAndPut() throws Exception {
+    Function function = queue.pop();
+    queue.put(function.getFunctionID(), function);
+  }
+}
@@ -0,0 +1,160 @@
+package Benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files score by score. Scores are matched on benchmark, parameters
+ * and metric: the primary metric, plus the secondary metrics reported by @AuxCounters (the dotted
+ * ones come from profilers and are left out).
+ * <p>
+ * A score has regressed if it is worse than its baseline by more than the tolerance, as a
+ * fraction of the baseline, and by more than the combined error of the two scores, so that noise
+ * within the confidence intervals JMH reports is not flagged. Throughput scores are worse when
+ * lower, every other mode when higher.
+ */
+public class RegressionReport {
+
+  public static final double DEFAULT_TOLERANCE = 0.10;
+
+  private enum Verdict {
+    OK, IMPROVED, REGRESSED, NEW, MISSING
+  }
+
+  private record Score(double value, double error, String unit, boolean higherIsBetter) {
+
+  }
+
+  private record Row(String key, Score baseline, Score current, Verdict verdict) {
+
+  }
+
+  private final List<Row> rows = new ArrayList<>();
+  private int regressions = 0;
+
+  private RegressionReport() {
+  }
+
+  /**
+   * @param tolerance relative slowdown tolerated, e.g. 0.1 for 10%
+   */
+  public static RegressionReport compare(File baseline, File current, double tolerance)
+      throws IOException {
+    Map<String, Score> before = read(baseline);
+    Map<String, Score> after = read(current);
+
+    RegressionReport report = new RegressionReport();
+    for (Map.Entry<String, Score> entry : after.entrySet()) {
+      Score old = before.get(entry.getKey());
+      Score now = entry.getValue();
+      Verdict verdict = old == null ? Verdict.NEW : judge(old, now, tolerance);
+      report.add(new Row(entry.getKey(), old, now, verdict));
+    }
+    for (Map.Entry<String, Score> entry : before.entrySet()) {
+      if (!after.containsKey(entry.getKey())) {
+        report.add(new Row(entry.getKey(), entry.getValue(), null, Verdict.MISSING));
+      }
+    }
+    return report;
+  }
+
+  private static Verdict judge(Score baseline, Score current, double tolerance) {
+    double gain = current.higherIsBetter
+        ? current.value - baseline.value
+        : baseline.value - current.value;
+    double noise = Math.sqrt(square(baseline.error) + square(current.error));
+    if (Math.abs(gain) <= Math.max(noise, tolerance * Math.abs(baseline.value))) {
+      return Verdict.OK;
+    }
+    return gain > 0 ? Verdict.IMPROVED : Verdict.REGRESSED;
+  }
+
+  private static double square(double x) {
+    // JMH reports NaN errors for single iteration runs
+    return Double.isNaN(x) ? 0 : x * x;
+  }
+
+  private void add(Row row) {
+    rows.add(row);
+    if (row.verdict == Verdict.REGRESSED) {
+      regressions++;
+    }
+  }
+
+  public boolean hasRegressions() {
+    return regressions > 0;
+  }
+
+  /**
+   * @return scores by "benchmark[:metric]{param=value, ...}"
+   */
+  static Map<String, Score> read(File results) throws IOException {
+    JsonArray runs;
+    try (Reader reader = Files.newBufferedReader(results.toPath())) {
+      runs = JsonParser.parseReader(reader).getAsJsonArray();
+    }
+
+    Map<String, Score> scores = new LinkedHashMap<>();
+    for (JsonElement element : runs) {
+      JsonObject run = element.getAsJsonObject();
+      String benchmark = run.get("benchmark").getAsString();
+      boolean throughput = run.get("mode").getAsString().equals("thrpt");
+      String params = "";
+      if (run.has("params")) {
+        // sorted, so that the key doesn't depend on the order JMH wrote them in
+        Map<String, String> sorted = new TreeMap<>();
+        run.getAsJsonObject("params").entrySet()
+            .forEach(p -> sorted.put(p.getKey(), p.getValue().getAsString()));
+        params = sorted.toString();
+      }
+
+      scores.put(benchmark + params, score(run.getAsJsonObject("primaryMetric"), throughput));
+      if (run.has("secondaryMetrics")) {
+        for (Map.Entry<String, JsonElement> metric
+            : run.getAsJsonObject("secondaryMetrics").entrySet()) {
+          if (!metric.getKey().contains(".")) {
+            // event counters are rates whatever the mode
+            scores.put(benchmark + ":" + metric.getKey() + params,
+                score(metric.getValue().getAsJsonObject(), true));
+          }
+        }
+      }
+    }
+    return scores;
+  }
+
+  private static Score score(JsonObject metric, boolean higherIsBetter) {
+    JsonElement error = metric.get("scoreError");
+    return new Score(metric.get("score").getAsDouble(),
+        error.isJsonPrimitive() && error.getAsJsonPrimitive().isNumber()
+            ? error.getAsDouble() : Double.NaN,
+        metric.get("scoreUnit").getAsString(), higherIsBetter);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    for (Row row : rows) {
+      text.append(String.format("%-9s %s%n", row.verdict, row.key));
+      if (row.baseline != null && row.current != null) {
+        text.append(String.format("          %.4g -> %.4g %s (%+.1f%%)%n", row.baseline.value,
+            row.current.value, row.current.unit,
+            100 * (row.current.value - row.baseline.value) / row.baseline.value));
+      }
+    }
+    text.append(rows.size()).append(" scores compared, ").append(regressions)
+        .append(" regressed\n");
+    return text.toString();
+  }
+}
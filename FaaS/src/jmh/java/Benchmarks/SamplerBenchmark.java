@@ -0,0 +1,32 @@
+package Benchmarks;
+
+import Samplers.ExponentialMethod;
+import Samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one exponential variate with each of the methods of Sampler
+ */
+@State(Scope.Thread)
+public class SamplerBenchmark {
+
+  @Param({"INVERSION", "ZIGGURAT"})
+  public ExponentialMethod method;
+
+  private Sampler sampler;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sampler = new Sampler(42, method);
+  }
+
+  @Benchmark
+  public double exponential() {
+    return sampler.Exponential(0.5);
+  }
+}
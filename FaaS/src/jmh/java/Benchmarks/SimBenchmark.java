@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import Simulation.Diary.FutureEventListType;
+import Simulation.Event.Event;
+import Simulation.Sim;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Event loop throughput of Sim under the hold model: every subject always has exactly one pending
+ * event, which reschedules itself an exponential time later. The diary therefore stays at
+ * `diarySize` events and every operation is one schedule plus one removal.
+ */
+@State(Scope.Thread)
+public class SimBenchmark {
+
+  @Param({"1000", "100000"})
+  public int diarySize;
+
+  @Param({"HEAP", "CALENDAR_QUEUE", "LADDER_QUEUE"})
+  public FutureEventListType futureEventList;
+
+  private HoldSimulation sim;
+
+  /**
+   * Events invoked, reported by JMH as events per second
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Events {
+
+    public long events;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sim = new HoldSimulation(futureEventList, diarySize);
+  }
+
+  /**
+   * Runs one unit of simulated time, about `diarySize` events
+   */
+  @Benchmark
+  public void go(Events counter) {
+    long before = sim.invoked;
+    sim.goUntil(sim.getTime() + 1);
+    counter.events += sim.invoked - before;
+  }
+
+  private static class HoldSimulation extends Sim {
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private long invoked = 0;
+
+    HoldSimulation(FutureEventListType type, int subjects) {
+      super(type.create(), true);
+      for (int subject = 0; subject < subjects; subject++) {
+        schedule(nextDelay(), subject, Hold.KIND);
+      }
+    }
+
+    double nextDelay() {
+      return -Math.log(1 - random.nextDouble());
+    }
+
+    @Override
+    protected Event createEvent(double invokeTime, byte kind, int subject) {
+      return new Hold(invokeTime, subject, this);
+    }
+  }
+
+  private static class Hold extends Event {
+
+    static final byte KIND = 0;
+
+    private int subject;
+    private final HoldSimulation simulation;
+
+    Hold(double invokeTime, int subject, HoldSimulation simulation) {
+      super(invokeTime);
+      this.subject = subject;
+      this.simulation = simulation;
+    }
+
+    @Override
+    public void invoke() {
+      simulation.invoked++;
+      simulation.schedule(getInvokeTime() + simulation.nextDelay(), subject, KIND);
+    }
+
+    @Override
+    public byte getKind() {
+      return KIND;
+    }
+
+    @Override
+    public int getSubject() {
+      return subject;
+    }
+
+    @Override
+    public void reuse(double invokeTime, int subject) {
+      super.reuse(invokeTime, subject);
+      this.subject = subject;
+    }
+  }
+}
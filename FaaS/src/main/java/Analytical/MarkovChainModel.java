@@ -0,0 +1,228 @@
+package Analytical;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact continuous-time Markov chain of a FaaS server, for a handful of functions.
+ * <p>
+ * A state holds the status of every function (unreserved, loading, idle or active) and the order
+ * in which the idle functions became idle. Transitions follow the rules FaaSServer and
+ * FaaSSimulation implement:
+ * <ul>
+ * <li>a request for an idle function makes it active (rate lambda_f)</li>
+ * <li>a request for an unreserved function evicts the function idle the longest and starts loading
+ * (A1), or is lost if no function is idle</li>
+ * <li>a request for a loading or active function is lost (A2, A3)</li>
+ * <li>a loading function becomes active once its cold start ends (FaaSSimulation.coldStartRate)
+ * </li>
+ * <li>an active function becomes the most recently idle function once its request is served (rate
+ * mu_f)</li>
+ * </ul>
+ * The chain starts, like the simulations, with the first M functions idle (A6) and only the states
+ * reachable from there are built. Its stationary distribution then gives C_ratio and L_rate with
+ * no sampling error, which makes it an oracle for the simulator on small inputs.
+ * <p>
+ * The number of states grows roughly like F! / (F - M)!, so only small F and M are practical.
+ */
+public class MarkovChainModel {
+
+  public static final int MAX_STATES = 2_000_000;
+
+  /* Function statuses, as in FaaSServer */
+  private static final char UNRESERVED = 0;
+  private static final char ACTIVE = 1;
+  private static final char IDLE = 2;
+  private static final char LOADING = 3;
+
+  private final List<Function> functions;
+  private final int capacity;
+  private final int count; // F
+
+  /* State space: a state is encoded as F statuses followed by the idle functions, oldest first */
+  private final List<String> states = new ArrayList<>();
+  private final Map<String, Integer> index = new HashMap<>();
+
+  /* Transitions, self loops excluded */
+  private int[] from = new int[1024];
+  private int[] to = new int[1024];
+  private double[] rate = new double[1024];
+  private int transitions = 0;
+
+  /**
+   * @param functions at most Character.MAX_VALUE functions, although far fewer are practical
+   * @param capacity  M, the number of functions that fit in memory
+   */
+  public MarkovChainModel(List<Function> functions, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+    }
+    this.functions = functions;
+    this.capacity = capacity;
+    this.count = functions.size();
+    build();
+  }
+
+  /**
+   * @return number of states reachable from the initial state
+   */
+  public int getStateCount() {
+    return states.size();
+  }
+
+  private void build() {
+    // A6: the first M functions idle, in order
+    StringBuilder initial = new StringBuilder();
+    int loaded = Math.min(count, capacity);
+    for (int f = 0; f < count; f++) {
+      initial.append(f < loaded ? IDLE : UNRESERVED);
+    }
+    for (int f = 0; f < loaded; f++) {
+      initial.append((char) f);
+    }
+    stateIndex(initial.toString());
+
+    // breadth first over the reachable states
+    for (int s = 0; s < states.size(); s++) {
+      String state = states.get(s);
+      boolean anyIdle = state.length() > count;
+      for (int f = 0; f < count; f++) {
+        Function function = functions.get(f);
+        double arrivalRate = function.getArrivalRate();
+        switch (state.charAt(f)) {
+          case IDLE:
+            if (arrivalRate > 0) {
+              addTransition(s, promoteIdle(state, f), arrivalRate);
+            }
+            break;
+          case UNRESERVED:
+            if (arrivalRate > 0 && anyIdle) {
+              addTransition(s, evictAndLoad(state, f), arrivalRate);
+            }
+            break;
+          case LOADING:
+            addTransition(s, withStatus(state, f, ACTIVE), FaaSSimulation.coldStartRate);
+            break;
+          default: // ACTIVE
+            addTransition(s, demote(state, f), function.getServiceRate());
+        }
+      }
+    }
+  }
+
+  private int stateIndex(String state) {
+    Integer existing = index.get(state);
+    if (existing != null) {
+      return existing;
+    }
+    if (states.size() == MAX_STATES) {
+      throw new IllegalArgumentException(
+          "More than " + MAX_STATES + " states for " + count + " functions and M = " + capacity);
+    }
+    index.put(state, states.size());
+    states.add(state);
+    return states.size() - 1;
+  }
+
+  private void addTransition(int source, String target, double transitionRate) {
+    if (transitions == from.length) {
+      from = Arrays.copyOf(from, 2 * transitions);
+      to = Arrays.copyOf(to, 2 * transitions);
+      rate = Arrays.copyOf(rate, 2 * transitions);
+    }
+    from[transitions] = source;
+    to[transitions] = stateIndex(target);
+    rate[transitions] = transitionRate;
+    transitions++;
+  }
+
+  private static String withStatus(String state, int f, char status) {
+    char[] next = state.toCharArray();
+    next[f] = status;
+    return new String(next);
+  }
+
+  private String promoteIdle(String state, int f) {
+    StringBuilder next = new StringBuilder(state);
+    next.setCharAt(f, ACTIVE);
+    next.deleteCharAt(state.indexOf((char) f, count));
+    return next.toString();
+  }
+
+  private String evictAndLoad(String state, int f) {
+    StringBuilder next = new StringBuilder(state);
+    int evicted = state.charAt(count); // idle the longest
+    next.setCharAt(evicted, UNRESERVED);
+    next.setCharAt(f, LOADING);
+    next.deleteCharAt(count);
+    return next.toString();
+  }
+
+  private static String demote(String state, int f) {
+    // becomes the most recently idle function
+    return withStatus(state, f, IDLE) + (char) f;
+  }
+
+  /**
+   * Solves the chain for its stationary distribution
+   */
+  public PerformanceEstimate solve() {
+    double[] pi = stationaryDistribution();
+
+    double[] coldRatios = new double[count];
+    double[] lossRates = new double[count];
+    for (int s = 0; s < states.size(); s++) {
+      String state = states.get(s);
+      boolean anyIdle = state.length() > count;
+      for (int f = 0; f < count; f++) {
+        char status = state.charAt(f);
+        if (status == UNRESERVED && anyIdle) {
+          coldRatios[f] += pi[s];
+        } else if (status != IDLE) {
+          lossRates[f] += pi[s]; // probability for now, scaled to a rate below
+        }
+      }
+    }
+
+    // PASTA: a request sees the stationary distribution
+    double arrivals = 0;
+    double coldStarts = 0;
+    double losses = 0;
+    for (int f = 0; f < count; f++) {
+      double arrivalRate = functions.get(f).getArrivalRate();
+      lossRates[f] *= arrivalRate;
+      arrivals += arrivalRate;
+      coldStarts += arrivalRate * coldRatios[f];
+      losses += lossRates[f];
+    }
+    return new PerformanceEstimate(capacity, arrivals == 0 ? 0 : coldStarts / arrivals, losses,
+        coldRatios, lossRates);
+  }
+
+  private double[] stationaryDistribution() {
+    int n = states.size();
+    double[] outflow = new double[n];
+    int[] start = new int[n + 1];
+    for (int t = 0; t < transitions; t++) {
+      outflow[from[t]] += rate[t];
+      start[to[t] + 1]++;
+    }
+    for (int s = 0; s < n; s++) {
+      start[s + 1] += start[s];
+    }
+    int[] incomingFrom = new int[transitions];
+    double[] incomingRate = new double[transitions];
+    int[] fill = Arrays.copyOf(start, n);
+    for (int t = 0; t < transitions; t++) {
+      int slot = fill[to[t]]++;
+      incomingFrom[slot] = from[t];
+      incomingRate[slot] = rate[t];
+    }
+    return SparseGaussSeidel.solve(start, incomingFrom, incomingRate, outflow);
+  }
+}
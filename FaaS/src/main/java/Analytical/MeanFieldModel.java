@@ -0,0 +1,246 @@
+package Analytical;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Approximate performance of a FaaS server of any capacity, in the spirit of Che's approximation
+ * of LRU caches.
+ * <p>
+ * Only idle functions are evicted, oldest first, so a function that becomes idle is assumed to
+ * stay in memory for a characteristic time T unless it is requested before. T is the same for
+ * every function and is set so that the functions in memory fill exactly M slots. Every function
+ * then follows its own renewal cycle, independently of the others:
+ * <pre>
+ *   loading (1 / alpha) -> active (1 / mu) -> idle (min(Exp(lambda), T)) -> active ...
+ *                                           -> unreserved (once idle for T) -> loading ...
+ * </pre>
+ * A request for an unreserved function only starts loading it if some function is idle (A1), with
+ * probability q. The idle functions are spread over the M slots as if each slot were idle
+ * independently, so q = 1 - (1 - idle / M)^M, and q and T are solved together as a fixed point.
+ * <p>
+ * C_ratio and L_rate then follow from the time each function spends in each state, as seen by
+ * its Poisson requests. The approximation is tested against MarkovChainModel on small inputs; on
+ * real traces it is meant to screen capacities before simulating them, not to replace the
+ * simulation.
+ */
+public class MeanFieldModel {
+
+  /* Characteristic times estimateAll solves for, per factor 10 of T */
+  public static final int POINTS_PER_DECADE = 50;
+
+  private static final double TOLERANCE = 1e-12;
+  private static final int MAX_ITERATIONS = 100_000;
+
+  private final int count; // F
+  private final double[] arrivalRates; // lambda
+  private final double[] serviceTimes; // 1 / mu
+  private final double coldStartTime = 1 / FaaSSimulation.coldStartRate;
+  private final int requested; // functions with a positive arrival rate
+  private final double minArrivalRate;
+  private final double maxArrivalRate;
+  private final double totalArrivalRate;
+
+  /* Result of the last evaluate, every function fraction being a fraction of its time */
+  private final double[] stay; // exp(-lambda T), probability an idle function is evicted
+  private double idleAvailable; // q
+  private double resident; // functions in memory
+  private double coldRatio;
+  private double lossRate;
+
+  public MeanFieldModel(List<Function> functions) {
+    this.count = functions.size();
+    this.arrivalRates = new double[count];
+    this.serviceTimes = new double[count];
+    this.stay = new double[count];
+    int requested = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = 0;
+    double total = 0;
+    for (int f = 0; f < count; f++) {
+      Function function = functions.get(f);
+      double arrivalRate = function.getArrivalRate();
+      arrivalRates[f] = arrivalRate;
+      serviceTimes[f] = 1 / function.getServiceRate();
+      if (arrivalRate > 0) {
+        requested++;
+        min = Math.min(min, arrivalRate);
+        max = Math.max(max, arrivalRate);
+        total += arrivalRate;
+      }
+    }
+    this.requested = requested;
+    this.minArrivalRate = min;
+    this.maxArrivalRate = max;
+    this.totalArrivalRate = total;
+  }
+
+  /**
+   * Solves the fixed point for one capacity, with per function estimates
+   */
+  public PerformanceEstimate estimate(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1, got " + capacity);
+    }
+    if (capacity >= requested) {
+      evaluate(Double.POSITIVE_INFINITY); // nothing requested is ever evicted
+    } else {
+      // occupancy grows with T, bisect it over log T
+      double low = lowestCharacteristicTime();
+      double high = highestCharacteristicTime();
+      while (high / low - 1 > TOLERANCE) {
+        double middle = Math.sqrt(low * high);
+        evaluate(middle);
+        if (resident < capacity) {
+          low = middle;
+        } else {
+          high = middle;
+        }
+      }
+      evaluate(Math.sqrt(low * high));
+    }
+
+    double[] coldRatios = new double[count];
+    double[] lossRates = new double[count];
+    for (int f = 0; f < count; f++) {
+      double arrivalRate = arrivalRates[f];
+      if (arrivalRate == 0) {
+        continue;
+      }
+      double unreserved = unreservedFraction(f);
+      coldRatios[f] = idleAvailable * unreserved;
+      lossRates[f] = arrivalRate * (1 - coldRatios[f] - idleFraction(f));
+    }
+    return new PerformanceEstimate(capacity, coldRatio, lossRate, coldRatios, lossRates);
+  }
+
+  /**
+   * Estimates every capacity from 1 to F at once. The fixed point is solved over a grid of
+   * characteristic times (POINTS_PER_DECADE per factor 10) and interpolated in between, so the
+   * estimates carry no per function values.
+   *
+   * @return estimates for M = 1 to F, in order
+   */
+  public List<PerformanceEstimate> estimateAll() {
+    double low = lowestCharacteristicTime();
+    double high = highestCharacteristicTime();
+    int points = (int) Math.ceil(POINTS_PER_DECADE * Math.log10(high / low)) + 1;
+    double[] occupancy = new double[points + 1];
+    double[] coldRatios = new double[points + 1];
+    double[] lossRates = new double[points + 1];
+    for (int k = 0; k < points; k++) {
+      evaluate(low * Math.pow(10, (double) k / POINTS_PER_DECADE));
+      occupancy[k] = resident;
+      coldRatios[k] = coldRatio;
+      lossRates[k] = lossRate;
+    }
+    evaluate(Double.POSITIVE_INFINITY);
+    occupancy[points] = requested;
+    coldRatios[points] = coldRatio;
+    lossRates[points] = lossRate;
+
+    List<PerformanceEstimate> estimates = new ArrayList<>(count);
+    int k = 0;
+    for (int capacity = 1; capacity <= count; capacity++) {
+      if (capacity >= requested) {
+        estimates.add(new PerformanceEstimate(capacity, coldRatio, lossRate, null, null));
+        continue;
+      }
+      while (k < points - 1 && occupancy[k + 1] < capacity) {
+        k++;
+      }
+      double weight = (capacity - occupancy[k]) / (occupancy[k + 1] - occupancy[k]);
+      weight = Math.max(0, Math.min(1, weight));
+      estimates.add(new PerformanceEstimate(capacity,
+          coldRatios[k] + weight * (coldRatios[k + 1] - coldRatios[k]),
+          lossRates[k] + weight * (lossRates[k + 1] - lossRates[k]), null, null));
+    }
+    return estimates;
+  }
+
+  /**
+   * @return a characteristic time short enough for at most one function to be in memory
+   */
+  private double lowestCharacteristicTime() {
+    double time = 1e-3 / maxArrivalRate;
+    evaluate(time);
+    while (resident > 1 && time > Double.MIN_NORMAL) {
+      time /= 10;
+      evaluate(time);
+    }
+    return time;
+  }
+
+  /**
+   * @return a characteristic time long enough for hardly any function to be evicted
+   */
+  private double highestCharacteristicTime() {
+    return 50 / minArrivalRate;
+  }
+
+  /**
+   * Solves q for a characteristic time, and the resulting occupancy, C_ratio and L_rate
+   */
+  private void evaluate(double characteristicTime) {
+    for (int f = 0; f < count; f++) {
+      stay[f] = Math.exp(-arrivalRates[f] * characteristicTime);
+    }
+
+    // lowering q only keeps more functions out of memory, so iterating down from q = 1 settles on
+    // the largest fixed point
+    double q = 1;
+    for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+      idleAvailable = q;
+      double idle = 0;
+      double occupied = 0;
+      for (int f = 0; f < count; f++) {
+        if (arrivalRates[f] > 0) {
+          idle += idleFraction(f);
+          occupied += 1 - unreservedFraction(f);
+        }
+      }
+      resident = occupied;
+      double next = occupied == 0 ? 0 : 1 - Math.pow(Math.max(0, 1 - idle / occupied), occupied);
+      if (Math.abs(next - q) <= TOLERANCE) {
+        break;
+      }
+      q = next;
+    }
+
+    double coldStarts = 0;
+    double losses = 0;
+    for (int f = 0; f < count; f++) {
+      double arrivalRate = arrivalRates[f];
+      if (arrivalRate > 0) {
+        double cold = idleAvailable * unreservedFraction(f);
+        coldStarts += arrivalRate * cold;
+        losses += arrivalRate * (1 - cold - idleFraction(f));
+      }
+    }
+    coldRatio = coldStarts / totalArrivalRate;
+    lossRate = losses;
+  }
+
+  /*
+   * Over a cycle, with r = exp(-lambda T), a function expects to spend 1 / alpha loading,
+   * (1 / mu) / r active, (1 - r) / (lambda r) idle and 1 / (lambda q) unreserved. Both fractions
+   * below are those times over their sum, multiplied through by lambda q r to stay finite.
+   */
+
+  private double cycle(int f) {
+    double arrivalRate = arrivalRates[f];
+    double r = stay[f];
+    return idleAvailable * (arrivalRate * (r * coldStartTime + serviceTimes[f]) + 1 - r) + r;
+  }
+
+  private double idleFraction(int f) {
+    return idleAvailable * (1 - stay[f]) / cycle(f);
+  }
+
+  private double unreservedFraction(int f) {
+    double r = stay[f];
+    return r == 0 ? 0 : r / cycle(f);
+  }
+}
@@ -0,0 +1,82 @@
+package Analytical;
+
+import java.util.Arrays;
+
+/**
+ * Steady state performance of a FaaS server of a given capacity, as predicted by an analytical
+ * model rather than measured by a simulation. Per function values are in the order of the
+ * functions the model was given, and may be left out when many capacities are estimated at once.
+ */
+public final class PerformanceEstimate {
+
+  private final int capacity;
+  private final double coldRatio;
+  private final double lossRate;
+  private final double[] functionColdRatios;
+  private final double[] functionLossRates;
+
+  PerformanceEstimate(int capacity, double coldRatio, double lossRate,
+      double[] functionColdRatios, double[] functionLossRates) {
+    this.capacity = capacity;
+    this.coldRatio = coldRatio;
+    this.lossRate = lossRate;
+    this.functionColdRatios = functionColdRatios;
+    this.functionLossRates = functionLossRates;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return C_ratio, the probability that a request incurs a cold start
+   */
+  public double getColdRatio() {
+    return coldRatio;
+  }
+
+  /**
+   * @return L_rate, the rate at which requests are lost (requests / second)
+   */
+  public double getLossRate() {
+    return lossRate;
+  }
+
+  /**
+   * @return true if getColdRatio(int) and getLossRate(int) are available
+   */
+  public boolean hasFunctionEstimates() {
+    return functionColdRatios != null;
+  }
+
+  /**
+   * @return probability that a request for the index-th function incurs a cold start
+   */
+  public double getColdRatio(int index) {
+    checkFunctionEstimates();
+    return functionColdRatios[index];
+  }
+
+  /**
+   * @return rate at which requests for the index-th function are lost (requests / second)
+   */
+  public double getLossRate(int index) {
+    checkFunctionEstimates();
+    return functionLossRates[index];
+  }
+
+  private void checkFunctionEstimates() {
+    if (functionColdRatios == null) {
+      throw new IllegalStateException("No per function estimates for M = " + capacity);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "M = " + capacity + ": C_ratio " + coldRatio + ", L_rate " + lossRate
+        + (functionColdRatios != null && functionColdRatios.length <= 10
+        ? ", per function C_ratio " + Arrays.toString(functionColdRatios)
+        + ", L_rate " + Arrays.toString(functionLossRates)
+        : "");
+  }
+}
@@ -0,0 +1,59 @@
+package Analytical;
+
+import java.util.Arrays;
+
+/**
+ * Stationary distribution of a continuous-time Markov chain by Gauss-Seidel iteration over its
+ * global balance equations, pi_j * q_j = sum_i pi_i * q_ij, with the generator stored sparsely by
+ * destination state (compressed rows of incoming transitions).
+ */
+final class SparseGaussSeidel {
+
+  static final double TOLERANCE = 1e-13;
+  static final int MAX_ITERATIONS = 1_000_000;
+
+  private SparseGaussSeidel() {
+  }
+
+  /**
+   * @param incomingStart transitions into state j are incomingStart[j] to incomingStart[j + 1] - 1
+   * @param incomingFrom  source state of every incoming transition
+   * @param incomingRate  rate of every incoming transition
+   * @param outflowRate   total rate out of every state, self loops excluded
+   * @return the stationary distribution, summing to 1
+   * @throws IllegalStateException if the iteration does not converge
+   */
+  static double[] solve(int[] incomingStart, int[] incomingFrom, double[] incomingRate,
+      double[] outflowRate) {
+    int states = outflowRate.length;
+    double[] pi = new double[states];
+    Arrays.fill(pi, 1.0 / states);
+
+    for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+      double change = 0;
+      double total = 0;
+      for (int j = 0; j < states; j++) {
+        if (outflowRate[j] == 0) {
+          total += pi[j]; // absorbing, keeps whatever flowed into it
+          continue;
+        }
+        double inflow = 0;
+        for (int t = incomingStart[j]; t < incomingStart[j + 1]; t++) {
+          inflow += pi[incomingFrom[t]] * incomingRate[t];
+        }
+        double updated = inflow / outflowRate[j];
+        change += Math.abs(updated - pi[j]);
+        pi[j] = updated;
+        total += updated;
+      }
+      for (int j = 0; j < states; j++) {
+        pi[j] /= total;
+      }
+      if (change / total < TOLERANCE) {
+        return pi;
+      }
+    }
+    throw new IllegalStateException(
+        "Stationary distribution did not converge in " + MAX_ITERATIONS + " iterations");
+  }
+}
@@ -1,15 +1,25 @@
 package FunctionAsAService;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
 public class Function {
 
   /* Metadata from CSV */
   private final int functionID; // ID
+  private final double avgServiceTimeMilliseconds; // milliseconds / request
   private final double avgServiceRateSeconds; // requests / second
   private final int invocations30Days; // requests in 30 days
 
   /* Arrival of requests for this function */
   private final double arrivalRate; // requests / second
 
+  /* Position among the simulated functions, which the tables of the simulation are indexed by */
+  private int index;
+
   /* Simulation tracking variables */
   private int requests = 0;
   private int coldStarts = 0;
@@ -18,12 +28,29 @@ public class Function {
   private int rejections = 0;
 
   public Function(int functionID, double avgServiceTimeMilliseconds, int invocations30Days) {
+    if (functionID < 0) {
+      throw new IllegalArgumentException("Function IDs can't be negative, got " + functionID);
+    }
     this.functionID = functionID;
+    this.index = functionID;
+    this.avgServiceTimeMilliseconds = avgServiceTimeMilliseconds;
     this.avgServiceRateSeconds = 1 / millisToSeconds(avgServiceTimeMilliseconds);
     this.invocations30Days = invocations30Days;
     this.arrivalRate = calculateArrivalRate();
   }
 
+  /**
+   * Copies the metadata of a function, with all of its simulation tracking variables at zero
+   */
+  public Function(Function template) {
+    this.functionID = template.functionID;
+    this.index = template.index;
+    this.avgServiceTimeMilliseconds = template.avgServiceTimeMilliseconds;
+    this.avgServiceRateSeconds = template.avgServiceRateSeconds;
+    this.invocations30Days = template.invocations30Days;
+    this.arrivalRate = template.arrivalRate;
+  }
+
   private double millisToSeconds(double avgServiceTimeMilliseconds) {
     // milliseconds / job -> seconds / job means diving by 10^3
     return avgServiceTimeMilliseconds * Math.pow(10, -3);
@@ -40,10 +67,43 @@ public class Function {
     return ((double) invocations30Days) / secondsIn30Days;
   }
 
+  /**
+   * Numbers the functions 0 to n - 1 in the order they are listed, so that tables indexed by
+   * getIndex are sized by the number of functions whatever their IDs, e.g. hashes
+   *
+   * @throws IllegalArgumentException if two functions have the same ID
+   */
+  public static void index(List<Function> functions) {
+    int[] ids = new int[functions.size()];
+    for (int i = 0; i < ids.length; i++) {
+      Function f = functions.get(i);
+      ids[i] = f.functionID;
+      f.index = i;
+    }
+    Arrays.sort(ids);
+    for (int i = 1; i < ids.length; i++) {
+      if (ids[i] == ids[i - 1]) {
+        throw new IllegalArgumentException("Function " + ids[i] + " is listed twice");
+      }
+    }
+  }
+
   public int getFunctionID() {
     return functionID;
   }
 
+  /**
+   * @return position of the function in the list it was last indexed in, see index, or its ID if
+   * it never was
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public double getAvgServiceTimeMilliseconds() {
+    return avgServiceTimeMilliseconds;
+  }
+
   public double getServiceRate() {
     return avgServiceRateSeconds;
   }
@@ -105,6 +165,28 @@ public class Function {
     return "ID: " + getFunctionID();
   }
 
+  /**
+   * Writes the simulation tracking variables, the metadata is left to the trace
+   */
+  public void writeMeasures(DataOutput out) throws IOException {
+    out.writeInt(requests);
+    out.writeInt(coldStarts);
+    out.writeInt(promotions);
+    out.writeInt(completions);
+    out.writeInt(rejections);
+  }
+
+  /**
+   * Replaces the simulation tracking variables with those written by writeMeasures
+   */
+  public void readMeasures(DataInput in) throws IOException {
+    requests = in.readInt();
+    coldStarts = in.readInt();
+    promotions = in.readInt();
+    completions = in.readInt();
+    rejections = in.readInt();
+  }
+
   public void resetMeasures() {
     requests = 0;
     coldStarts = 0;
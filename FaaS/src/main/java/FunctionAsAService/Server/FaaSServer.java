@@ -1,9 +1,12 @@
 package FunctionAsAService.Server;
 
 import FunctionAsAService.Function;
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 /**
  * FaaSServer class has three partitions of used memory: active, loading and idle.
@@ -15,20 +18,76 @@ import java.util.Map;
  * A1: If a request arrives for a function f and there is not enough spare memory to load it, the
  * function g that is already loaded in memory and has been idle the longest is instantaneously
  * deallocated and its memory space immediately allocated to f.
+ * <p>
+ * The partitions are kept as a dense state table indexed by Function.getIndex: one state byte per
+ * function, plus intrusive previous/next links threading the idle functions in the order they
+ * became idle. Every state check is a single array load and every transition is O(1), with no
+ * boxing and no per-transition allocation.
+ * <p>
+ * A checked server throws a MemoryException on any illegal transition. An unchecked server trusts
+ * its caller to respect the rules and skips those checks.
+ * <p>
+ * Given a clock, the server also keeps time-weighted occupancy statistics. Each transition first
+ * adds the partition sizes times the time since the previous transition to running areas, so the
+ * averages cost O(1) per transition and need no time series.
+ * <p>
+ * The whole state (partitions, idle order and occupancy statistics) can be written out and read
+ * back into another server of the same capacity, see writeState.
  */
 public class FaaSServer {
 
-  private final Map<Integer, Function> active = new HashMap<Integer, Function>();
-  private final Map<Integer, Function> loading = new HashMap<Integer, Function>();
-  private final QueueMap<Integer, Function> idle = new QueueMap<Integer, Function>();
+  /* States a function can be in */
+  private static final byte UNRESERVED = 0;
+  private static final byte ACTIVE = 1;
+  private static final byte IDLE = 2;
+  private static final byte LOADING = 3;
+
+  private static final int NIL = -1;
+
+  /* State table, indexed by function index */
+  private byte[] states = new byte[0];
+  private Function[] residents = new Function[0]; // functions currently in memory
+  private int[] idlePrevious = new int[0]; // towards the function idle the longest
+  private int[] idleNext = new int[0];
+
+  /* Idle functions, from the one idle the longest (head) to the most recent (tail) */
+  private int idleHead = NIL;
+  private int idleTail = NIL;
+
+  /* Partition sizes */
+  private int activeSize = 0;
+  private int idleSize = 0;
+  private int loadingSize = 0;
 
   private final int maximumCapacity;
+  private final boolean checked;
+
+  /* Time-weighted occupancy, accumulated while a clock is set */
+  private DoubleSupplier clock = null;
+  private double occupancyStart = 0;
+  private double lastTransition = 0;
+  private double activeArea = 0;
+  private double idleArea = 0;
+  private double loadingArea = 0;
+  private double fullyBusyTime = 0; // time with no idle function to evict
+  private double[] idleSince = new double[0];
+  private double evictedIdleTime = 0;
+  private long evictions = 0;
 
   /**
    * @param maximumCapacity Maximum capacity of the memory
    */
   public FaaSServer(int maximumCapacity) {
+    this(maximumCapacity, true);
+  }
+
+  /**
+   * @param maximumCapacity Maximum capacity of the memory
+   * @param checked         true if illegal transitions should throw a MemoryException
+   */
+  public FaaSServer(int maximumCapacity, boolean checked) {
     this.maximumCapacity = maximumCapacity;
+    this.checked = checked;
   }
 
   /**
@@ -41,6 +100,13 @@ public class FaaSServer {
    * won't be dependent of the state it started in.
    */
   public void fillMemory(List<Function> functions) {
+    // size the state table for every function up front
+    int maxIndex = -1;
+    for (Function f : functions) {
+      maxIndex = Math.max(maxIndex, f.getIndex());
+    }
+    ensureCapacity(maxIndex);
+
     for (Function f : functions) {
       if (isFull()) {
         break;
@@ -53,7 +119,19 @@ public class FaaSServer {
    * @return current of the memory
    */
   public int size() {
-    return active.size() + idle.size() + loading.size();
+    return activeSize + idleSize + loadingSize;
+  }
+
+  public int getActiveSize() {
+    return activeSize;
+  }
+
+  public int getIdleSize() {
+    return idleSize;
+  }
+
+  public int getLoadingSize() {
+    return loadingSize;
   }
 
   /**
@@ -71,7 +149,9 @@ public class FaaSServer {
    */
   public void enqueueActive(Function function) {
     canAddToMemory(function);
-    active.put(function.getFunctionID(), function);
+    advanceClock();
+    reserve(function, ACTIVE);
+    activeSize++;
   }
 
   /**
@@ -82,7 +162,9 @@ public class FaaSServer {
    */
   public void enqueueIdle(Function function) {
     canAddToMemory(function);
-    idle.put(function.getFunctionID(), function);
+    advanceClock();
+    reserve(function, IDLE);
+    appendIdle(function.getIndex());
   }
 
   /**
@@ -93,35 +175,37 @@ public class FaaSServer {
    */
   public void enqueueLoading(Function function) {
     canAddToMemory(function);
-    loading.put(function.getFunctionID(), function);
+    advanceClock();
+    reserve(function, LOADING);
+    loadingSize++;
   }
 
   /**
-   * @return returns if a given functionID is currently busy/active
+   * @return returns if a function of the given index is currently busy/active
    */
-  public boolean isActive(int functionID) {
-    return active.containsKey(functionID);
+  public boolean isActive(int index) {
+    return stateOf(index) == ACTIVE;
   }
 
   /**
-   * @return returns if a given functionID is currently idle/inactive
+   * @return returns if a function of the given index is currently idle/inactive
    */
-  public boolean isIdle(int functionID) {
-    return idle.containsKey(functionID);
+  public boolean isIdle(int index) {
+    return stateOf(index) == IDLE;
   }
 
   /**
-   * @return returns if a given functionID is currently loading into memory
+   * @return returns if a function of the given index is currently loading into memory
    */
-  public boolean isLoading(int functionID) {
-    return loading.containsKey(functionID);
+  public boolean isLoading(int index) {
+    return stateOf(index) == LOADING;
   }
 
   /**
-   * @return returns if a given functionID is not in memory
+   * @return returns if a function of the given index is not in memory
    */
-  public boolean isUnreserved(int functionID) {
-    return !(isActive(functionID) || isLoading(functionID) || isIdle(functionID));
+  public boolean isUnreserved(int index) {
+    return stateOf(index) == UNRESERVED;
   }
 
   /**
@@ -132,19 +216,25 @@ public class FaaSServer {
    * Idle -> Active
    */
   public void promote(Function function) {
+    int id = function.getIndex();
+    byte state = stateOf(id);
+
     // does this service exist in memory?
-    if (isUnreserved(function.getFunctionID())) {
+    if (checked && state == UNRESERVED) {
       throw MemoryException.MEMORY_MISSING;
     }
 
-    if (isLoading(function.getFunctionID())) {
+    advanceClock();
+    if (state == LOADING) {
       // move to active list
-      active.put(function.getFunctionID(), loading.remove(function.getFunctionID()));
-    }
-
-    if (isIdle(function.getFunctionID())) {
+      loadingSize--;
+      states[id] = ACTIVE;
+      activeSize++;
+    } else if (state == IDLE) {
       // move to active list
-      active.put(function.getFunctionID(), idle.remove(function.getFunctionID()));
+      unlinkIdle(id);
+      states[id] = ACTIVE;
+      activeSize++;
     }
   }
 
@@ -158,24 +248,32 @@ public class FaaSServer {
    * Loading -> throws exception
    */
   public void demote(Function function) {
-    // does this service exist in memory?
-    if (isUnreserved(function.getFunctionID())) {
-      throw MemoryException.MEMORY_MISSING;
-    }
+    int id = function.getIndex();
+    byte state = stateOf(id);
 
-    // is this function loading?
-    if (isLoading(function.getFunctionID())) {
-      throw MemoryException.MEMORY_BUSY;
+    if (checked) {
+      // does this service exist in memory?
+      if (state == UNRESERVED) {
+        throw MemoryException.MEMORY_MISSING;
+      }
+
+      // is this function loading?
+      if (state == LOADING) {
+        throw MemoryException.MEMORY_BUSY;
+      }
     }
 
-    if (isActive(function.getFunctionID())) {
+    advanceClock();
+    if (state == ACTIVE) {
       // move function to idle memory
-      idle.put(function.getFunctionID(), active.remove(function.getFunctionID()));
-    } else if (isIdle(function.getFunctionID())) {
+      activeSize--;
+      states[id] = IDLE;
+      appendIdle(id);
+    } else if (state == IDLE) {
       // remove from memory
-      idle.remove(function.getFunctionID());
+      unlinkIdle(id);
+      release(id);
     }
-
   }
 
   /**
@@ -183,10 +281,13 @@ public class FaaSServer {
    *                 it
    */
   private void canAddToMemory(Function function) {
+    if (!checked) {
+      return;
+    }
     if (size() >= maximumCapacity) {
       throw MemoryException.MEMORY_OVERFLOW;
     }
-    if (!isUnreserved(function.getFunctionID())) {
+    if (!isUnreserved(function.getIndex())) {
       throw MemoryException.MEMORY_CLASH;
     }
   }
@@ -197,7 +298,7 @@ public class FaaSServer {
    * @return true if there is a service we can replace, false otherwise
    */
   public boolean canEvict() {
-    return idle.size() > 0;
+    return idleSize > 0;
   }
 
   /**
@@ -205,11 +306,266 @@ public class FaaSServer {
    * throws a memory exception
    */
   public Function evict() {
-    if (!canEvict()) {
+    if (checked && !canEvict()) {
       throw MemoryException.MEMORY_BUSY;
     }
+    advanceClock();
     // evict the oldest idle service
-    return idle.pop();
+    int id = idleHead;
+    evictedIdleTime += lastTransition - idleSince[id];
+    evictions++;
+    Function evicted = residents[id];
+    unlinkIdle(id);
+    release(id);
+    return evicted;
+  }
+
+  /**
+   * Starts keeping time-weighted occupancy statistics, measured from now on the given clock
+   */
+  public void setClock(DoubleSupplier clock) {
+    this.clock = clock;
+    double now = clock.getAsDouble();
+    lastTransition = now;
+    Arrays.fill(idleSince, now);
+    resetOccupancy();
+  }
+
+  /**
+   * Discards the occupancy statistics gathered so far, e.g. at the end of the warm-up period.
+   * Functions idle at the reset count their idle time before eviction from the reset.
+   */
+  public void resetOccupancy() {
+    advanceClock();
+    occupancyStart = lastTransition;
+    activeArea = 0;
+    idleArea = 0;
+    loadingArea = 0;
+    fullyBusyTime = 0;
+    for (int id = idleHead; id != NIL; id = idleNext[id]) {
+      idleSince[id] = lastTransition;
+    }
+    evictedIdleTime = 0;
+    evictions = 0;
+  }
+
+  /**
+   * Adds the partition sizes since the previous transition to the occupancy areas
+   */
+  private void advanceClock() {
+    if (clock == null) {
+      return;
+    }
+    double now = clock.getAsDouble();
+    double elapsed = now - lastTransition;
+    activeArea += activeSize * elapsed;
+    idleArea += idleSize * elapsed;
+    loadingArea += loadingSize * elapsed;
+    if (idleSize == 0) {
+      fullyBusyTime += elapsed;
+    }
+    lastTransition = now;
+  }
+
+  /**
+   * @return time the occupancy statistics cover so far
+   */
+  private double observedTime() {
+    return clock == null ? 0 : clock.getAsDouble() - occupancyStart;
+  }
+
+  /**
+   * @return area under `size` over the observed time, including the time since the last
+   * transition
+   */
+  private double averageOf(double area, int size) {
+    double observed = observedTime();
+    if (observed <= 0) {
+      return size;
+    }
+    return (area + size * (clock.getAsDouble() - lastTransition)) / observed;
+  }
+
+  /**
+   * @return time-weighted average number of active functions
+   */
+  public double getAverageActiveSize() {
+    return averageOf(activeArea, activeSize);
+  }
+
+  /**
+   * @return time-weighted average number of idle functions
+   */
+  public double getAverageIdleSize() {
+    return averageOf(idleArea, idleSize);
+  }
+
+  /**
+   * @return time-weighted average number of loading functions
+   */
+  public double getAverageLoadingSize() {
+    return averageOf(loadingArea, loadingSize);
+  }
+
+  /**
+   * @return fraction of time no function was idle, i.e. any request for a function not in memory
+   * would have been lost (A1)
+   */
+  public double getFullyBusyFraction() {
+    return averageOf(fullyBusyTime, idleSize == 0 ? 1 : 0);
+  }
+
+  /**
+   * @return average time evicted functions had been idle for when they were evicted, NaN if none
+   * was
+   */
+  public double getAverageIdleTimeBeforeEviction() {
+    return evictions == 0 ? Double.NaN : evictedIdleTime / evictions;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  private byte stateOf(int index) {
+    return index < states.length ? states[index] : UNRESERVED;
+  }
+
+  private void reserve(Function function, byte state) {
+    int id = function.getIndex();
+    ensureCapacity(id);
+    states[id] = state;
+    residents[id] = function;
+  }
+
+  private void release(int id) {
+    states[id] = UNRESERVED;
+    residents[id] = null;
+  }
+
+  /**
+   * Makes `id` the most recently idle function
+   */
+  private void appendIdle(int id) {
+    idleSince[id] = lastTransition;
+    idlePrevious[id] = idleTail;
+    idleNext[id] = NIL;
+    if (idleTail == NIL) {
+      idleHead = id;
+    } else {
+      idleNext[idleTail] = id;
+    }
+    idleTail = id;
+    idleSize++;
+  }
+
+  private void unlinkIdle(int id) {
+    int previous = idlePrevious[id];
+    int next = idleNext[id];
+    if (previous == NIL) {
+      idleHead = next;
+    } else {
+      idleNext[previous] = next;
+    }
+    if (next == NIL) {
+      idleTail = previous;
+    } else {
+      idlePrevious[next] = previous;
+    }
+    idleSize--;
+  }
+
+  /**
+   * Grows the state table so that it can hold function `id`
+   */
+  private void ensureCapacity(int id) {
+    if (id < states.length) {
+      return;
+    }
+    int capacity = Math.max(id + 1, states.length * 2);
+    states = Arrays.copyOf(states, capacity);
+    residents = Arrays.copyOf(residents, capacity);
+    idlePrevious = Arrays.copyOf(idlePrevious, capacity);
+    idleNext = Arrays.copyOf(idleNext, capacity);
+    idleSince = Arrays.copyOf(idleSince, capacity);
+  }
+
+  /**
+   * Writes the state of every function, the order the idle ones became idle in and the occupancy
+   * statistics. The clock is not part of the state.
+   */
+  public void writeState(DataOutput out) throws IOException {
+    out.writeInt(maximumCapacity);
+    out.writeInt(states.length);
+    out.write(states);
+    out.writeInt(idleSize);
+    for (int id = idleHead; id != NIL; id = idleNext[id]) {
+      out.writeInt(id);
+      out.writeDouble(idleSince[id]);
+    }
+    out.writeDouble(occupancyStart);
+    out.writeDouble(lastTransition);
+    out.writeDouble(activeArea);
+    out.writeDouble(idleArea);
+    out.writeDouble(loadingArea);
+    out.writeDouble(fullyBusyTime);
+    out.writeDouble(evictedIdleTime);
+    out.writeLong(evictions);
+  }
+
+  /**
+   * Replaces the state of this server with one written by writeState
+   *
+   * @param functionsByIndex the functions the state refers to, by index
+   * @throws IllegalArgumentException if the state is of a server with another capacity
+   */
+  public void readState(DataInput in, Function[] functionsByIndex) throws IOException {
+    int capacity = in.readInt();
+    if (capacity != maximumCapacity) {
+      throw new IllegalArgumentException(
+          "State of a server of capacity " + capacity + ", not " + maximumCapacity);
+    }
+    int length = in.readInt();
+    byte[] read = new byte[length];
+    in.readFully(read);
+
+    states = new byte[0];
+    residents = new Function[0];
+    idlePrevious = new int[0];
+    idleNext = new int[0];
+    idleSince = new double[0];
+    ensureCapacity(length - 1);
+    activeSize = 0;
+    loadingSize = 0;
+    for (int id = 0; id < length; id++) {
+      if (read[id] == UNRESERVED) {
+        continue;
+      }
+      states[id] = read[id];
+      residents[id] = functionsByIndex[id];
+      if (read[id] == ACTIVE) {
+        activeSize++;
+      } else if (read[id] == LOADING) {
+        loadingSize++;
+      }
+    }
+    idleHead = NIL;
+    idleTail = NIL;
+    idleSize = 0;
+    for (int i = in.readInt(); i > 0; i--) {
+      int id = in.readInt();
+      appendIdle(id);
+      idleSince[id] = in.readDouble();
+    }
+
+    occupancyStart = in.readDouble();
+    lastTransition = in.readDouble();
+    activeArea = in.readDouble();
+    idleArea = in.readDouble();
+    loadingArea = in.readDouble();
+    fullyBusyTime = in.readDouble();
+    evictedIdleTime = in.readDouble();
+    evictions = in.readLong();
   }
 
   /**
@@ -218,9 +574,9 @@ public class FaaSServer {
   @Override
   public String toString() {
     return "[" + size() + " - " +
-        "(A:" + active.size() +
-        ",I:" + idle.size() +
-        ",L:" + loading.size() + ")/"
+        "(A:" + activeSize +
+        ",I:" + idleSize +
+        ",L:" + loadingSize + ")/"
         + maximumCapacity + "]\n";
   }
 }
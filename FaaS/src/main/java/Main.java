@@ -1,12 +1,19 @@
 import static Simulation.FaaSSimulation.confidenceIntervalToString;
 import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.FaaSSimulationBuilder.parseCSV;
 
+import Analytical.MarkovChainModel;
 import FunctionAsAService.Function;
+import Samplers.Sampler;
+import Simulation.Experiment.CapacitySweep;
+import Simulation.Experiment.ReplicationReport;
+import Simulation.Experiment.ReplicationRunner;
 import Simulation.FaaSSimulation;
+import Simulation.Observation.MissRatioCurve;
+import Simulation.Observation.ShardsProfiler;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -36,7 +43,20 @@ public class Main {
     // Q1.b
 //    System.out.println("Q1.b");
 //    System.out.print("The smallest value of M for a cold start less than 5%: ");
-//    System.out.println(confidenceIntervalToString(binarySearchSmallestM(0.05)));
+//    System.out.println(sweepSmallestM(0.05));
+
+    // Q1.b, approximated from a single run
+//    System.out.println("Q1.b (miss ratio curve)");
+//    System.out.println(profileSmallestM(0.05));
+
+    // Q1.a, replicated
+//    System.out.println("Q1.a (30 replications)");
+//    ReplicationReport report = runReplicatedSimulation(traceCSV, 40, 30 * 24 * 60 * 60,
+//        60 * 60, 30);
+//    System.out.println(
+//        "C_ratio: " + confidenceIntervalToString(report.getColdRatioConfidenceInterval()));
+//    System.out.println(
+//        "L_rate: " + confidenceIntervalToString(report.getLossConfidenceInterval()));
 
     // Q2.d
     System.out.println("Q2.d");
@@ -47,6 +67,7 @@ public class Main {
         "ColdRatio: " + confidenceIntervalToString(sim2fs.getColdRatioConfidenceInterval()));
     System.out.println(
         "LossRate: " + confidenceIntervalToString(sim2fs.getLossConfidenceInterval()));
+    System.out.println("Exact: " + new MarkovChainModel(parseCSV(trace2Fs), 1).solve());
   }
 
   /**
@@ -62,50 +83,45 @@ public class Main {
   }
 
   /**
-   * @param desiredGreatestColdStart a percentage from 0 <= x <= 1 indicating the greatest cold
-   *                                 start ratio you wish to observe
-   * @return the smallest value of M such that the cold start is maximised but stays below the
-   * colsStartRatio input
+   * @return the smallest value of M whose approximate cold start ratio, read off the miss ratio
+   * curve profiled over a single run, stays below desiredGreatestColdStart. If the curve can't be
+   * trusted at that M, it is searched for by simulation instead
    */
-  private static double[] binarySearchSmallestM(double desiredGreatestColdStart)
-      throws IOException {
-    int medianCapacity = 0;
-    int low = 0;
-    int high = 10862;
-
-    List<Integer> memories = new LinkedList<>();
-
-    while (low <= high) {
-      medianCapacity = low + ((high - low) / 2);
-
-      FaaSSimulation sim = runStandardSimulation(traceCSV, medianCapacity, 60 * 60 * 24);
-      double[] interval = sim.getColdRatioConfidenceInterval();
-      double C_ratio = interval[1];
-
-      // check if C_ratio falls in the confidence interval we calculated
-      if (interval[0] <= desiredGreatestColdStart && desiredGreatestColdStart <= interval[2]) {
-        memories.add(medianCapacity);
-      }
-
-//      System.out.println(memories);
-
-//      System.out.println(medianCapacity + ": " + C_ratio);
-
-      // Perform binary search to decide which way to expand/decrease memory
-      if (C_ratio > desiredGreatestColdStart) {
-        low = medianCapacity + 1;
-      } else if (C_ratio < desiredGreatestColdStart) {
-        high = medianCapacity - 1;
-      } else if (C_ratio == desiredGreatestColdStart) {
-        break;
-      }
+  private static int profileSmallestM(double desiredGreatestColdStart) throws IOException {
+    ShardsProfiler profiler = new ShardsProfiler();
+    createFaaSSimBuilder()
+        .withFunctionsFromCSV(traceCSV)
+        .withMemoryCapacity(M)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(24 * 60 * 60)
+        .withWarmUpPeriod(60 * 60)
+        .withProfiler(profiler)
+        .createFaaSSimulation()
+        .runSim();
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+    System.out.println(curve);
+    int smallestM = curve.smallestCapacity(desiredGreatestColdStart);
+    if (smallestM == MissRatioCurve.UNRELIABLE) {
+      System.out.println("The curve is unreliable below M = "
+          + curve.getSmallestReliableCapacity() + ", sweeping instead");
+      return sweepSmallestM(desiredGreatestColdStart);
     }
+    return smallestM;
+  }
 
-    // return least great memory capacity
-    return new double[]{
-        memories.stream().min(Integer::compareTo).get(),
-        medianCapacity,
-        memories.stream().max(Integer::compareTo).get()};
+  /**
+   * @param desiredGreatestColdStart a percentage from 0 <= x <= 1 indicating the greatest cold
+   *                                 start ratio you wish to observe
+   * @return the smallest value of M such that the cold start ratio stays below
+   * desiredGreatestColdStart, searched over several values of M at once within the band the
+   * mean-field approximation predicts
+   */
+  private static int sweepSmallestM(double desiredGreatestColdStart) throws IOException {
+    CapacitySweep sweep = new CapacitySweep(parseCSV(traceCSV),
+        Runtime.getRuntime().availableProcessors());
+    int smallestM = sweep.smallestCapacity(desiredGreatestColdStart, 0.1);
+    sweep.getEstimates().forEach(System.out::println);
+    return smallestM;
   }
 
   /**
@@ -169,6 +185,25 @@ public class Main {
     return sim;
   }
 
+  /**
+   * Runs independent replications of a standard simulation in parallel, all sharing one parsed
+   * trace, and reports C_ratio and L_rate with between-replication confidence intervals
+   */
+  private static ReplicationReport runReplicatedSimulation(File functionTrace,
+      int maximumCapacity, int simulationTime, double warmUpTime, int replications)
+      throws IOException {
+    List<Function> trace = parseCSV(functionTrace);
+    return new ReplicationRunner().run(replications, Sampler.DEFAULT_SEED,
+        seed -> createFaaSSimBuilder()
+            .withFreshFunctions(trace)
+            .withMemoryCapacity(maximumCapacity)
+            .withFullIdleMemory() // A6
+            .withSimulationTimeDuration(simulationTime)
+            .withWarmUpPeriod(warmUpTime)
+            .withSeed(seed)
+            .createFaaSSimulation());
+  }
+
   private static void printToFile(File file, String content) throws IOException {
     Files.writeString(file.toPath(), content);
   }
@@ -0,0 +1,83 @@
+package Samplers;
+
+/**
+ * Walker's alias method, built with Vose's numerically stable construction. After O(n) set up, a
+ * discrete distribution over n outcomes can be sampled in O(1) from a single uniform variate.
+ */
+public class AliasTable {
+
+  private final double[] probability; // chance of keeping column i rather than taking its alias
+  private final int[] alias;
+
+  /**
+   * @param weights non-negative relative weight of each outcome, at least one of them positive
+   */
+  public AliasTable(double[] weights) {
+    int n = weights.length;
+    probability = new double[n];
+    alias = new int[n];
+
+    double total = 0;
+    for (double w : weights) {
+      if (w < 0 || Double.isNaN(w)) {
+        throw new IllegalArgumentException("Weights must be non-negative, got " + w);
+      }
+      total += w;
+    }
+    if (!(total > 0)) {
+      throw new IllegalArgumentException("At least one weight must be positive");
+    }
+
+    // scale so the average column holds exactly 1, then pair small columns with large ones
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallCount = 0;
+    int largeCount = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / total;
+      if (scaled[i] < 1) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      probability[less] = scaled[less];
+      alias[less] = more;
+      scaled[more] = (scaled[more] + scaled[less]) - 1;
+      if (scaled[more] < 1) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    // whatever is left over is 1 up to rounding error
+    while (largeCount > 0) {
+      probability[large[--largeCount]] = 1;
+    }
+    while (smallCount > 0) {
+      probability[small[--smallCount]] = 1;
+    }
+  }
+
+  public int size() {
+    return probability.length;
+  }
+
+  /**
+   * @param uniform a uniform variate in [0, 1)
+   * @return index of the sampled outcome
+   */
+  public int sample(double uniform) {
+    // the integer part picks a column, the fractional part tosses the column's coin
+    double scaled = uniform * probability.length;
+    int column = (int) scaled;
+    if (column >= probability.length) {
+      column = probability.length - 1;
+    }
+    return scaled - column < probability[column] ? column : alias[column];
+  }
+}
@@ -0,0 +1,15 @@
+package Samplers;
+
+/**
+ * How a Sampler generates exponential variates
+ * <ul>
+ * <li>INVERSION: -ln(U) / lambda, one uniform and one logarithm per variate. Kept as the
+ * reference method</li>
+ * <li>ZIGGURAT: unit variates from ZigguratExponential, generated in small batches and scaled by
+ * 1 / lambda on every call</li>
+ * </ul>
+ */
+public enum ExponentialMethod {
+  INVERSION,
+  ZIGGURAT
+}
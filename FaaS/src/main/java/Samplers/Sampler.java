@@ -1,15 +1,297 @@
 package Samplers;
 
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 
+/**
+ * Source of the random variates a simulation draws. Every simulation owns its own Sampler, so runs
+ * with the same seed draw exactly the same variates, no matter what else runs in the JVM.
+ * <p>
+ * Besides its own stream, a Sampler hands out independent substreams, one per stream type and per
+ * subject (e.g. the service times of function 42). The seed of a substream is a hash of (seed,
+ * type, key) and not of the order substreams are asked for. The key of a subject is the subject
+ * itself unless given, e.g. the ID of the function at that index, so each function draws the same
+ * variates whatever the other functions do. The generators are SplitMix64, the algorithm of
+ * SplittableRandom, which are neither synchronized nor shared between threads.
+ * <p>
+ * The substreams of subjects are only a long of state each, kept in a column per type that is
+ * filled on the first draw of that type, so a million functions take 8MB per type drawn from.
+ * They draw through one generator of the parent, loaded with the subject's state and stored back.
+ * <p>
+ * Exponential variates are generated by the ziggurat method unless the Sampler is created with
+ * ExponentialMethod.INVERSION. Substreams use the same method as their parent, and those of
+ * subjects generate one variate at a time rather than in batches, which draws the same variates.
+ * <p>
+ * The state of a Sampler and of all its substreams can be written out and read back, see
+ * writeState, so that a restored Sampler carries on drawing exactly where the original was.
+ */
 public class Sampler {
 
-  private static final Random rand = new Random(1234567890);
+  public static final long DEFAULT_SEED = 1234567890;
 
   /**
-   * Generate a random number based on the exponential distribution. Uses the
+   * What a substream is used for
    */
-  public static double Exponential(double lambda) {
-    return -Math.log(rand.nextDouble()) / lambda;
+  public enum Stream {
+    ARRIVAL,
+    SERVICE,
+    COLD_START
+  }
+
+  private static final Stream[] STREAMS = Stream.values();
+  private static final int GLOBAL = -1;
+  private static final int BATCH = 16; // unit exponentials generated at a time by the ziggurat
+
+  private final long seed;
+  private final ExponentialMethod exponentialMethod;
+  private final SplitMix64 rand;
+
+  /* Unit exponentials not handed out yet */
+  private final double[] batch;
+  private int batchCursor = BATCH;
+  private long batchState; // state of rand before the batch was generated
+
+  /* Substreams shared by every subject, created on first use */
+  private Sampler[] globalSubstreams = null;
+
+  /* States of the substreams of subjects, a column per type indexed by subject */
+  private int subjects = 0;
+  private int[] subjectKeys = null; // seeds the substream of each subject, the subject if null
+  private final long[][] subjectStates = new long[STREAMS.length][];
+  private final SplitMix64 subjectRand = new SplitMix64(0);
+
+  public Sampler() {
+    this(DEFAULT_SEED);
+  }
+
+  public Sampler(long seed) {
+    this(seed, ExponentialMethod.ZIGGURAT);
+  }
+
+  public Sampler(long seed, ExponentialMethod exponentialMethod) {
+    this.seed = seed;
+    this.exponentialMethod = exponentialMethod;
+    this.rand = new SplitMix64(seed);
+    this.batch = exponentialMethod == ExponentialMethod.ZIGGURAT ? new double[BATCH] : null;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public ExponentialMethod getExponentialMethod() {
+    return exponentialMethod;
+  }
+
+  /**
+   * @return the substream of the given type shared by every subject
+   */
+  public Sampler substream(Stream type) {
+    if (globalSubstreams == null) {
+      globalSubstreams = new Sampler[STREAMS.length];
+    }
+    Sampler substream = globalSubstreams[type.ordinal()];
+    if (substream == null) {
+      substream = new Sampler(substreamSeed(type, GLOBAL), exponentialMethod);
+      globalSubstreams[type.ordinal()] = substream;
+    }
+    return substream;
+  }
+
+  /**
+   * Makes room for the substreams of subjects 0 to subjects - 1, see Exponential(Stream, int,
+   * double). Each column of states is only filled on the first draw of its type
+   */
+  public void createSubstreams(int subjects) {
+    this.subjects = subjects;
+    this.subjectKeys = null;
+    Arrays.fill(subjectStates, null);
+  }
+
+  /**
+   * Makes room for the substreams of subjects 0 to keys.length - 1, the substreams of subject i
+   * seeded from keys[i]
+   */
+  public void createSubstreams(int[] keys) {
+    createSubstreams(keys.length);
+    this.subjectKeys = keys;
+  }
+
+  private long[] subjectStates(Stream type) {
+    long[] states = subjectStates[type.ordinal()];
+    if (states == null) {
+      states = new long[subjects];
+      for (int subject = 0; subject < subjects; subject++) {
+        states[subject] = substreamSeed(type, subjectKeys == null ? subject : subjectKeys[subject]);
+      }
+      subjectStates[type.ordinal()] = states;
+    }
+    return states;
+  }
+
+  long substreamSeed(Stream type, int key) {
+    long typeAndKey = ((long) type.ordinal() << 32) | (key & 0xFFFFFFFFL);
+    return mix64(seed ^ mix64(typeAndKey + 0x9E3779B97F4A7C15L));
+  }
+
+  /**
+   * SplitMix64 finalizer (Stafford's variant 13), spreads every input bit over the output
+   */
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Generate a random number based on the exponential distribution, with the ExponentialMethod of
+   * this Sampler.
+   */
+  public double Exponential(double lambda) {
+    if (exponentialMethod == ExponentialMethod.INVERSION) {
+      // 1 - U lies in (0, 1], so the logarithm is always finite
+      return -Math.log(1 - rand.nextDouble()) / lambda;
+    }
+    if (batchCursor == BATCH) {
+      batchState = rand.getState();
+      ZigguratExponential.fill(rand, batch);
+      batchCursor = 0;
+    }
+    return batch[batchCursor++] / lambda;
+  }
+
+  /**
+   * @return a random number uniformly distributed in [0, 1)
+   */
+  public double Uniform() {
+    return rand.nextDouble();
+  }
+
+  /**
+   * Draws from the substream of the given type owned by `subject`, one of those made room for by
+   * createSubstreams
+   */
+  public double Exponential(Stream type, int subject, double lambda) {
+    long[] states = subjectStates(type);
+    subjectRand.setState(states[subject]);
+    double sample = exponentialMethod == ExponentialMethod.INVERSION
+        ? -Math.log(1 - subjectRand.nextDouble())
+        : ZigguratExponential.next(subjectRand);
+    states[subject] = subjectRand.getState();
+    return sample / lambda;
+  }
+
+  /**
+   * @return a random number uniformly distributed in [0, 1) from the substream of the given type
+   * owned by `subject`
+   */
+  public double Uniform(Stream type, int subject) {
+    long[] states = subjectStates(type);
+    subjectRand.setState(states[subject]);
+    double sample = subjectRand.nextDouble();
+    states[subject] = subjectRand.getState();
+    return sample;
+  }
+
+  /**
+   * Writes where this Sampler and every substream created so far are in their streams. A batch of
+   * exponentials is written as the state it was generated from, which is regenerated on reading.
+   */
+  public void writeState(DataOutput out) throws IOException {
+    writeOwnState(out);
+    out.writeBoolean(globalSubstreams != null);
+    if (globalSubstreams != null) {
+      for (Sampler substream : globalSubstreams) {
+        writeSubstreamState(out, substream);
+      }
+    }
+    out.writeInt(subjects);
+    for (long[] states : subjectStates) {
+      out.writeBoolean(states != null);
+      if (states != null) {
+        for (long state : states) {
+          out.writeLong(state);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a state written by writeState of a Sampler with the same seed and ExponentialMethod.
+   * Substreams created with keys keep them
+   *
+   * @throws IllegalArgumentException if the state is of a Sampler with another seed or
+   *                                  ExponentialMethod, or with another number of keyed subjects
+   */
+  public void readState(DataInput in) throws IOException {
+    readOwnState(in);
+    if (in.readBoolean()) {
+      for (Stream type : STREAMS) {
+        readSubstreamState(in, type);
+      }
+    }
+    int subjects = in.readInt();
+    if (subjectKeys != null && subjects != this.subjects) {
+      throw new IllegalArgumentException(
+          "State of " + subjects + " subjects, not " + this.subjects);
+    }
+    if (subjectKeys == null) {
+      createSubstreams(subjects);
+    }
+    Arrays.fill(subjectStates, null);
+    for (int type = 0; type < STREAMS.length; type++) {
+      if (in.readBoolean()) {
+        long[] states = new long[subjects];
+        for (int subject = 0; subject < subjects; subject++) {
+          states[subject] = in.readLong();
+        }
+        subjectStates[type] = states;
+      }
+    }
+  }
+
+  private static void writeSubstreamState(DataOutput out, Sampler substream) throws IOException {
+    out.writeBoolean(substream != null);
+    if (substream != null) {
+      substream.writeOwnState(out);
+    }
+  }
+
+  private void readSubstreamState(DataInput in, Stream type) throws IOException {
+    if (in.readBoolean()) {
+      substream(type).readOwnState(in);
+    }
+  }
+
+  private void writeOwnState(DataOutput out) throws IOException {
+    out.writeLong(seed);
+    out.writeByte(exponentialMethod.ordinal());
+    out.writeLong(rand.getState());
+    if (batch != null) {
+      out.writeByte(batchCursor);
+      out.writeLong(batchState);
+    }
+  }
+
+  private void readOwnState(DataInput in) throws IOException {
+    long seed = in.readLong();
+    int method = in.readByte();
+    if (seed != this.seed || method != exponentialMethod.ordinal()) {
+      throw new IllegalArgumentException("State of a Sampler with seed " + seed + " and method "
+          + ExponentialMethod.values()[method] + ", not " + this.seed + " and "
+          + exponentialMethod);
+    }
+    long state = in.readLong();
+    if (batch != null) {
+      batchCursor = in.readByte();
+      batchState = in.readLong();
+      if (batchCursor < BATCH) {
+        rand.setState(batchState);
+        ZigguratExponential.fill(rand, batch);
+      }
+    }
+    rand.setState(state);
   }
 }
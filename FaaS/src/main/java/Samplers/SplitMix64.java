@@ -0,0 +1,41 @@
+package Samplers;
+
+/**
+ * Steele, Lea and Flood's SplitMix64 generator, the algorithm behind java.util.SplittableRandom
+ * and drawing exactly the same numbers from the same seed. Unlike SplittableRandom, its whole state
+ * is a single long that can be read and set, so a Sampler can be saved and restored mid-stream.
+ */
+final class SplitMix64 {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  private long state;
+
+  SplitMix64(long seed) {
+    this.state = seed;
+  }
+
+  long getState() {
+    return state;
+  }
+
+  void setState(long state) {
+    this.state = state;
+  }
+
+  long nextLong() {
+    long z = state += GOLDEN_GAMMA;
+    // Stafford's variant 13, as in SplittableRandom
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * @return a number uniformly distributed in [0, 1)
+   */
+  double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+}
@@ -0,0 +1,70 @@
+package Samplers;
+
+/**
+ * Marsaglia and Tsang's ziggurat method (J. Stat. Software 2000) for unit exponential variates.
+ * <p>
+ * The density e^-x is covered by 256 horizontal layers of equal area V: a base layer made of the
+ * tail beyond R plus the rectangle below f(R), and 255 rectangles stacked above it. A variate
+ * picks a layer and a point in it with a single 64-bit draw and is accepted straight away if that
+ * point lies under the layer above, which happens about 99% of the time. Only the rare remaining
+ * draws need a call to Math.exp or Math.log.
+ */
+final class ZigguratExponential {
+
+  private static final int LAYERS = 256;
+  private static final double R = 7.69711747013104972; // start of the tail
+  private static final double V = 3.949659822581572e-3; // area of every layer
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  /* Layer i spans [0, x[i]) horizontally and [f(x[i]), f(x[i + 1])) vertically */
+  private static final double[] x = new double[LAYERS + 1];
+  private static final double[] f = new double[LAYERS + 1];
+
+  static {
+    x[0] = V / Math.exp(-R); // width of the base rectangle with the same area as the base layer
+    x[1] = R;
+    for (int i = 1; i < LAYERS; i++) {
+      x[i + 1] = -Math.log(V / x[i] + Math.exp(-x[i]));
+    }
+    x[LAYERS] = 0; // the recurrence only reaches 0 up to rounding
+    for (int i = 0; i <= LAYERS; i++) {
+      f[i] = Math.exp(-x[i]);
+    }
+  }
+
+  private ZigguratExponential() {
+  }
+
+  /**
+   * @return a sample of the exponential distribution with rate 1
+   */
+  static double next(SplitMix64 rand) {
+    while (true) {
+      long bits = rand.nextLong();
+      int layer = (int) bits & (LAYERS - 1);
+      // the layer uses the low 8 bits, the position the high 53
+      double u = (bits >>> 11) * DOUBLE_UNIT * x[layer];
+      if (u < x[layer + 1]) {
+        return u;
+      }
+      if (layer == 0) {
+        // the exponential is memoryless, so the tail beyond R is R plus an exponential
+        return R - Math.log(1 - rand.nextDouble());
+      }
+      // the point lies in the wedge to the right of the layer above, accept if it is under f
+      double y = f[layer] + rand.nextDouble() * (f[layer + 1] - f[layer]);
+      if (y < Math.exp(-u)) {
+        return u;
+      }
+    }
+  }
+
+  /**
+   * Fills the buffer with samples of the exponential distribution with rate 1
+   */
+  static void fill(SplitMix64 rand, double[] buffer) {
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = next(rand);
+    }
+  }
+}
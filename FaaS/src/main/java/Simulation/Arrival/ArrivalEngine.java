@@ -0,0 +1,31 @@
+package Simulation.Arrival;
+
+import FunctionAsAService.Function;
+import java.util.List;
+
+/**
+ * The arrival processes a simulation can be configured with. Both generate independent Poisson
+ * arrivals with rate Function.getArrivalRate() for every function, so they are statistically
+ * equivalent.
+ * <ul>
+ * <li>PER_FUNCTION: every function keeps its own pending request in the diary</li>
+ * <li>SUPERPOSED: a single pending request for the superposition of all the processes, the
+ * function it is for is only picked when it arrives</li>
+ * </ul>
+ */
+public enum ArrivalEngine {
+  PER_FUNCTION,
+  SUPERPOSED;
+
+  /**
+   * @return a new arrival process of this type over the given functions
+   */
+  public ArrivalProcess create(List<Function> functions) {
+    switch (this) {
+      case SUPERPOSED:
+        return new SuperposedArrivals(functions);
+      default:
+        return new PerFunctionArrivals();
+    }
+  }
+}
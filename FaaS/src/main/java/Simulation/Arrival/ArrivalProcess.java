@@ -0,0 +1,54 @@
+package Simulation.Arrival;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Decides when requests arrive and for which function. The simulation asks the process for the
+ * first arrivals when it starts and then, every time a request arrives, for the arrival(s) that
+ * follow it.
+ */
+public interface ArrivalProcess {
+
+  /**
+   * Schedules the first arrivals of the simulation
+   */
+  void start(FaaSSimulation simulation);
+
+  /**
+   * Schedules whatever arrivals follow a request
+   *
+   * @param arrived function the request that just arrived was for
+   * @param time    time the request arrived at
+   */
+  void next(FaaSSimulation simulation, Function arrived, double time);
+
+  /**
+   * @return true if the process knows the service time of every request, in which case the
+   * simulation serves requests for getServiceTime rather than sampling it
+   */
+  default boolean replaysServiceTimes() {
+    return false;
+  }
+
+  /**
+   * @return service time of the request that just arrived for the function, asked before next
+   */
+  default double getServiceTime(Function arrived) {
+    throw new UnsupportedOperationException(getClass().getSimpleName()
+        + " doesn't replay service times");
+  }
+
+  /**
+   * Writes whatever state the process keeps besides the requests pending in the diary, see
+   * FaaSSimulation.snapshot
+   */
+  default void writeState(DataOutput out) throws IOException {
+  }
+
+  default void readState(DataInput in) throws IOException {
+  }
+}
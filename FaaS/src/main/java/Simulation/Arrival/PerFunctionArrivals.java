@@ -0,0 +1,31 @@
+package Simulation.Arrival;
+
+import FunctionAsAService.Function;
+import Samplers.Sampler.Stream;
+import Simulation.Event.Request;
+import Simulation.FaaSSimulation;
+
+/**
+ * Every function has its own Poisson process, and so always has exactly one pending request in the
+ * diary.
+ */
+public class PerFunctionArrivals implements ArrivalProcess {
+
+  @Override
+  public void start(FaaSSimulation simulation) {
+    // for each function, trigger an initial burst of requests in some arbitrary order. This order
+    // doesn't matter initially as it is part of the start-up window we don't care about
+    for (Function f : simulation.getFunctions()) {
+      simulation.schedule(0, f.getIndex(), Request.KIND);
+    }
+  }
+
+  @Override
+  public void next(FaaSSimulation simulation, Function arrived, double time) {
+    // The inter-arrival rate for an arrival of the function has come and gone. Therefore, schedule
+    // another function call.
+    double interArrivalTime = simulation.getSampler()
+        .Exponential(Stream.ARRIVAL, arrived.getIndex(), arrived.getArrivalRate());
+    simulation.schedule(time + interArrivalTime, arrived.getIndex(), Request.KIND);
+  }
+}
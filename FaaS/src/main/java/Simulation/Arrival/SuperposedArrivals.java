@@ -0,0 +1,56 @@
+package Simulation.Arrival;
+
+import FunctionAsAService.Function;
+import Samplers.AliasTable;
+import Samplers.Sampler;
+import Samplers.Sampler.Stream;
+import Simulation.Event.Request;
+import Simulation.FaaSSimulation;
+import java.util.List;
+
+/**
+ * The superposition of independent Poisson processes with rates l_f is a Poisson process with rate
+ * sum(l_f), in which each arrival is for function f with probability l_f / sum(l_f). So instead of
+ * one pending request per function, there is a single pending request whose function is drawn
+ * from an alias table when it arrives. The diary then only holds that request plus the in-flight
+ * promotions and completions.
+ */
+public class SuperposedArrivals implements ArrivalProcess {
+
+  private final Function[] functions;
+  private final AliasTable selection;
+  private final double totalArrivalRate; // requests / second
+
+  public SuperposedArrivals(List<Function> functions) {
+    this.functions = functions.toArray(new Function[0]);
+    double[] rates = new double[this.functions.length];
+    double total = 0;
+    for (int i = 0; i < rates.length; i++) {
+      rates[i] = this.functions[i].getArrivalRate();
+      total += rates[i];
+    }
+    this.selection = new AliasTable(rates);
+    this.totalArrivalRate = total;
+  }
+
+  public double getTotalArrivalRate() {
+    return totalArrivalRate;
+  }
+
+  @Override
+  public void start(FaaSSimulation simulation) {
+    scheduleArrival(simulation, 0);
+  }
+
+  @Override
+  public void next(FaaSSimulation simulation, Function arrived, double time) {
+    scheduleArrival(simulation, time);
+  }
+
+  private void scheduleArrival(FaaSSimulation simulation, double time) {
+    Sampler arrivals = simulation.getSampler().substream(Stream.ARRIVAL);
+    double interArrivalTime = arrivals.Exponential(totalArrivalRate);
+    Function next = functions[selection.sample(arrivals.Uniform())];
+    simulation.schedule(time + interArrivalTime, next.getIndex(), Request.KIND);
+  }
+}
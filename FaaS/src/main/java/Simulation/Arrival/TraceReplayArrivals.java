@@ -0,0 +1,86 @@
+package Simulation.Arrival;
+
+import FunctionAsAService.Function;
+import Simulation.Event.Request;
+import Simulation.FaaSSimulation;
+import Traces.InvocationTrace;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Replays the invocations of an InvocationTrace, at the times they were recorded, instead of
+ * generating Poisson arrivals. The trace is sorted by time, so the next invocation is only read
+ * when the previous one arrives and the diary holds a single pending request, however long the
+ * trace. If the trace has durations, requests are served for their recorded duration.
+ * <p>
+ * Every invocation must be for one of the simulated functions, whose arrival rates are then only
+ * used by the approximations (e.g. ShardsProfiler).
+ */
+public class TraceReplayArrivals implements ArrivalProcess {
+
+  private final InvocationTrace trace;
+  private double pendingDuration = Double.NaN; // of the request pending in the diary
+
+  public TraceReplayArrivals(InvocationTrace trace) {
+    this.trace = trace;
+  }
+
+  @Override
+  public void start(FaaSSimulation simulation) {
+    scheduleNext(simulation);
+  }
+
+  @Override
+  public void next(FaaSSimulation simulation, Function arrived, double time) {
+    scheduleNext(simulation);
+  }
+
+  @Override
+  public boolean replaysServiceTimes() {
+    return trace.hasDurations();
+  }
+
+  @Override
+  public double getServiceTime(Function arrived) {
+    return pendingDuration;
+  }
+
+  private void scheduleNext(FaaSSimulation simulation) {
+    if (!trace.hasNext()) {
+      return; // the trace is over, no more requests arrive
+    }
+    try {
+      trace.next();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    int id = trace.getFunctionID();
+    Function function = simulation.getFunction(id);
+    if (function == null) {
+      throw new IllegalArgumentException("Invocation " + (trace.getPosition() - 1)
+          + " of the trace is for function " + id + ", which isn't simulated");
+    }
+    pendingDuration = trace.getDuration();
+    simulation.schedule(trace.getTime(), function.getIndex(), Request.KIND);
+  }
+
+  @Override
+  public void writeState(DataOutput out) throws IOException {
+    out.writeLong(trace.getPosition());
+  }
+
+  @Override
+  public void readState(DataInput in) throws IOException {
+    long position = in.readLong();
+    if (position > 0) {
+      // read the pending request again for its duration, it's already in the diary
+      trace.seek(position - 1);
+      trace.next();
+      pendingDuration = trace.getDuration();
+    } else {
+      trace.seek(0);
+    }
+  }
+}
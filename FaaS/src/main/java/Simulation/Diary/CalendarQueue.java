@@ -0,0 +1,250 @@
+package Simulation.Diary;
+
+import static Simulation.Diary.EventNodes.NIL;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Brown's calendar queue (CACM 1988). Time is cut into slots of a fixed width which are mapped
+ * round-robin onto an array of buckets, a "year" being one full pass over the buckets. Each bucket
+ * is a list sorted by (time, sequence) and dequeueing walks the buckets slot by slot. The number of
+ * buckets doubles/halves with the number of pending events and the slot width is re-estimated from
+ * the separation of the earliest events on every resize, which gives amortized O(1) hold operations
+ * when the event time distribution is stable.
+ */
+public final class CalendarQueue implements FutureEventList {
+
+  private static final int MIN_BUCKETS = 16;
+  private static final int WIDTH_SAMPLE = 25;
+
+  private final EventNodes nodes = new EventNodes(64);
+
+  private int[] buckets;
+  private int[] tails; // last node of each bucket, most insertions append there
+  private double width = 1.0;
+  private int mask; // number of buckets - 1, bucket counts are powers of two
+
+  private long currentSlot = 0; // no pending event lives in a slot before this one
+  private int head = NIL; // cached earliest event, NIL if it has to be searched for
+
+  private int size = 0;
+  private long nextSequence = 0;
+
+  public CalendarQueue() {
+    buckets = new int[MIN_BUCKETS];
+    tails = new int[MIN_BUCKETS];
+    Arrays.fill(buckets, NIL);
+    Arrays.fill(tails, NIL);
+    mask = MIN_BUCKETS - 1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void add(double time, int subject, byte kind) {
+    insert(nodes.allocate(time, nextSequence++, subject, kind));
+    size++;
+    if (size > 2 * buckets.length) {
+      resize(buckets.length * 2);
+    }
+  }
+
+  @Override
+  public double peekTime() {
+    return nodes.times[first()];
+  }
+
+  @Override
+  public int peekSubject() {
+    return nodes.subjects[first()];
+  }
+
+  @Override
+  public byte peekKind() {
+    return nodes.kinds[first()];
+  }
+
+  @Override
+  public void remove() {
+    int node = first();
+    int bucket = (int) (currentSlot & mask);
+    buckets[bucket] = nodes.next[node];
+    if (buckets[bucket] == NIL) {
+      tails[bucket] = NIL;
+    }
+    nodes.free(node);
+    head = NIL;
+    size--;
+    if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+      resize(buckets.length / 2);
+    }
+  }
+
+  @Override
+  public void clear() {
+    nodes.clear();
+    Arrays.fill(buckets, NIL);
+    Arrays.fill(tails, NIL);
+    currentSlot = 0;
+    head = NIL;
+    size = 0;
+  }
+
+  private long slotOf(double time) {
+    return (long) Math.floor(time / width);
+  }
+
+  /**
+   * Links an allocated node into its bucket
+   */
+  private void insert(int node) {
+    long slot = slotOf(nodes.times[node]);
+    int bucket = (int) (slot & mask);
+    int tail = tails[bucket];
+    if (tail == NIL) {
+      nodes.next[node] = NIL;
+      buckets[bucket] = node;
+      tails[bucket] = node;
+    } else if (!nodes.before(node, tail)) {
+      nodes.next[node] = NIL;
+      nodes.next[tail] = node;
+      tails[bucket] = node;
+    } else {
+      buckets[bucket] = nodes.insertSorted(buckets[bucket], node);
+    }
+    if (slot < currentSlot) {
+      currentSlot = slot;
+    }
+    if (head != NIL && nodes.before(node, head)) {
+      head = NIL;
+    }
+  }
+
+  /**
+   * @return the earliest node, advancing the current slot up to it
+   */
+  private int first() {
+    if (size == 0) {
+      throw new NoSuchElementException("The event list is empty");
+    }
+    if (head != NIL) {
+      return head;
+    }
+    // walk one year of buckets looking for an event in the current slot
+    for (int i = 0; i <= mask; i++, currentSlot++) {
+      int candidate = buckets[(int) (currentSlot & mask)];
+      if (candidate != NIL && slotOf(nodes.times[candidate]) <= currentSlot) {
+        head = candidate;
+        return head;
+      }
+    }
+    // nothing within a year, fall back to a direct search over the bucket heads
+    int earliest = NIL;
+    for (int candidate : buckets) {
+      if (candidate != NIL && (earliest == NIL || nodes.before(candidate, earliest))) {
+        earliest = candidate;
+      }
+    }
+    currentSlot = slotOf(nodes.times[earliest]);
+    head = earliest;
+    return head;
+  }
+
+  /**
+   * Rebuilds the calendar with a new number of buckets and a re-estimated slot width
+   */
+  private void resize(int bucketCount) {
+    double newWidth = estimateWidth();
+
+    // unlink every node into a single list
+    int all = NIL;
+    for (int i = 0; i < buckets.length; i++) {
+      int node = buckets[i];
+      while (node != NIL) {
+        int following = nodes.next[node];
+        nodes.next[node] = all;
+        all = node;
+        node = following;
+      }
+    }
+
+    buckets = new int[bucketCount];
+    tails = new int[bucketCount];
+    Arrays.fill(buckets, NIL);
+    Arrays.fill(tails, NIL);
+    mask = bucketCount - 1;
+    width = newWidth;
+    currentSlot = Long.MAX_VALUE;
+    head = NIL;
+
+    while (all != NIL) {
+      int following = nodes.next[all];
+      insert(all);
+      all = following;
+    }
+    if (currentSlot == Long.MAX_VALUE) {
+      currentSlot = 0;
+    }
+  }
+
+  /**
+   * Brown's heuristic: three times the average separation of the earliest events, ignoring
+   * separations more than twice the average.
+   *
+   * @return the new slot width
+   */
+  private double estimateWidth() {
+    int samples = Math.min(size, WIDTH_SAMPLE);
+    if (samples < 2) {
+      return width;
+    }
+    double[] earliest = earliestTimes(samples);
+
+    double total = 0;
+    for (int i = 1; i < samples; i++) {
+      total += earliest[i] - earliest[i - 1];
+    }
+    double average = total / (samples - 1);
+
+    double trimmedTotal = 0;
+    int trimmedCount = 0;
+    for (int i = 1; i < samples; i++) {
+      double separation = earliest[i] - earliest[i - 1];
+      if (separation <= 2 * average) {
+        trimmedTotal += separation;
+        trimmedCount++;
+      }
+    }
+    double estimate = trimmedCount == 0 ? 0 : 3 * trimmedTotal / trimmedCount;
+    return estimate > 0 ? estimate : width;
+  }
+
+  /**
+   * @return the invoke times of the `count` earliest events in increasing order
+   */
+  private double[] earliestTimes(int count) {
+    // each bucket is sorted, so a k-way pick over the bucket heads suffices
+    int[] cursors = buckets.clone();
+    double[] earliest = new double[count];
+    for (int i = 0; i < count; i++) {
+      int best = -1;
+      for (int b = 0; b < cursors.length; b++) {
+        if (cursors[b] != NIL && (best == -1 || nodes.before(cursors[b], cursors[best]))) {
+          best = b;
+        }
+      }
+      earliest[i] = nodes.times[cursors[best]];
+      cursors[best] = nodes.next[cursors[best]];
+    }
+    return earliest;
+  }
+}
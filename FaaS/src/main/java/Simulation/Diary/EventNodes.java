@@ -0,0 +1,157 @@
+package Simulation.Diary;
+
+import java.util.Arrays;
+
+/**
+ * Pool of singly linked list nodes stored as primitive columns, shared by the bucket based event
+ * lists. A node is referenced by its index and NIL terminates a list. Freed nodes are recycled
+ * through an internal free list, so a list in steady state never allocates.
+ */
+final class EventNodes {
+
+  static final int NIL = -1;
+
+  double[] times;
+  long[] sequence;
+  int[] subjects;
+  byte[] kinds;
+  int[] next;
+
+  private int freeHead = NIL;
+  private int used = 0;
+
+  EventNodes(int initialCapacity) {
+    times = new double[initialCapacity];
+    sequence = new long[initialCapacity];
+    subjects = new int[initialCapacity];
+    kinds = new byte[initialCapacity];
+    next = new int[initialCapacity];
+  }
+
+  /**
+   * @return index of a node holding the given event, with no successor
+   */
+  int allocate(double time, long seq, int subject, byte kind) {
+    int node;
+    if (freeHead != NIL) {
+      node = freeHead;
+      freeHead = next[node];
+    } else {
+      if (used == times.length) {
+        grow();
+      }
+      node = used++;
+    }
+    times[node] = time;
+    sequence[node] = seq;
+    subjects[node] = subject;
+    kinds[node] = kind;
+    next[node] = NIL;
+    return node;
+  }
+
+  void free(int node) {
+    next[node] = freeHead;
+    freeHead = node;
+  }
+
+  void clear() {
+    freeHead = NIL;
+    used = 0;
+  }
+
+  /**
+   * @return true if node a should leave the list before node b
+   */
+  boolean before(int a, int b) {
+    return times[a] < times[b] || (times[a] == times[b] && sequence[a] < sequence[b]);
+  }
+
+  /**
+   * Inserts a node into a sorted list
+   *
+   * @return the new head of the list
+   */
+  int insertSorted(int head, int node) {
+    if (head == NIL || before(node, head)) {
+      next[node] = head;
+      return node;
+    }
+    int previous = head;
+    while (next[previous] != NIL && !before(node, next[previous])) {
+      previous = next[previous];
+    }
+    next[node] = next[previous];
+    next[previous] = node;
+    return head;
+  }
+
+  /**
+   * Sorts a list with a bottom-up merge sort, stable with respect to (time, sequence)
+   *
+   * @return the head of the sorted list
+   */
+  int sort(int head) {
+    if (head == NIL || next[head] == NIL) {
+      return head;
+    }
+    for (int run = 1; ; run *= 2) {
+      int remaining = head;
+      int sortedHead = NIL;
+      int sortedTail = NIL;
+      int merges = 0;
+      while (remaining != NIL) {
+        merges++;
+        // split off two runs of (up to) `run` nodes each
+        int left = remaining;
+        int leftSize = 0;
+        int cursor = remaining;
+        while (cursor != NIL && leftSize < run) {
+          cursor = next[cursor];
+          leftSize++;
+        }
+        int right = cursor;
+        int rightSize = 0;
+        while (cursor != NIL && rightSize < run) {
+          cursor = next[cursor];
+          rightSize++;
+        }
+        remaining = cursor;
+
+        // merge the two runs onto the sorted output
+        while (leftSize > 0 || rightSize > 0) {
+          int take;
+          if (rightSize == 0 || (leftSize > 0 && !before(right, left))) {
+            take = left;
+            left = next[left];
+            leftSize--;
+          } else {
+            take = right;
+            right = next[right];
+            rightSize--;
+          }
+          if (sortedTail == NIL) {
+            sortedHead = take;
+          } else {
+            next[sortedTail] = take;
+          }
+          sortedTail = take;
+        }
+      }
+      next[sortedTail] = NIL;
+      head = sortedHead;
+      if (merges <= 1) {
+        return head;
+      }
+    }
+  }
+
+  private void grow() {
+    int capacity = Math.max(16, times.length * 2);
+    times = Arrays.copyOf(times, capacity);
+    sequence = Arrays.copyOf(sequence, capacity);
+    subjects = Arrays.copyOf(subjects, capacity);
+    kinds = Arrays.copyOf(kinds, capacity);
+    next = Arrays.copyOf(next, capacity);
+  }
+}
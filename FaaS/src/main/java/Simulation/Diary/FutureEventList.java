@@ -0,0 +1,43 @@
+package Simulation.Diary;
+
+/**
+ * A diary of pending events. Implementations only store the invoke time, subject and kind of each
+ * event, and must hand them back ordered by invoke time, breaking ties in the order the events were
+ * added. That contract means every implementation produces exactly the same event order for the
+ * same sequence of operations, so they can be swapped purely on performance grounds.
+ * <p>
+ * The peek methods and remove throw NoSuchElementException on an empty list.
+ */
+public interface FutureEventList {
+
+  int size();
+
+  boolean isEmpty();
+
+  /**
+   * Schedules a new event
+   */
+  void add(double time, int subject, byte kind);
+
+  /**
+   * @return invoke time of the earliest event
+   */
+  double peekTime();
+
+  /**
+   * @return subject of the earliest event
+   */
+  int peekSubject();
+
+  /**
+   * @return kind of the earliest event
+   */
+  byte peekKind();
+
+  /**
+   * Removes the earliest event. Read it beforehand through the peek methods.
+   */
+  void remove();
+
+  void clear();
+}
@@ -0,0 +1,30 @@
+package Simulation.Diary;
+
+/**
+ * The future event list engines a simulation can be configured with.
+ * <ul>
+ * <li>HEAP: 4-ary heap, O(log n) per operation, robust to any event time distribution</li>
+ * <li>CALENDAR_QUEUE: Brown's calendar queue, amortized O(1) hold for stable distributions</li>
+ * <li>LADDER_QUEUE: Tang et al.'s ladder queue, amortized O(1) hold and tolerant of skewed
+ * distributions</li>
+ * </ul>
+ */
+public enum FutureEventListType {
+  HEAP,
+  CALENDAR_QUEUE,
+  LADDER_QUEUE;
+
+  /**
+   * @return a new, empty event list of this type
+   */
+  public FutureEventList create() {
+    switch (this) {
+      case CALENDAR_QUEUE:
+        return new CalendarQueue();
+      case LADDER_QUEUE:
+        return new LadderQueue();
+      default:
+        return new QuaternaryHeap();
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package Simulation.Diary;
+
+import static Simulation.Diary.EventNodes.NIL;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Tang, Goh and Thng's ladder queue (ACM TOMACS 2005). Events are kept in three tiers:
+ * <ul>
+ * <li>Top: an unsorted list of far-future events, with O(1) insertion</li>
+ * <li>Ladder: rungs of unsorted buckets, each rung subdividing one bucket of the rung above</li>
+ * <li>Bottom: a short sorted list of the earliest events, from which events are dequeued</li>
+ * </ul>
+ * Sorting is deferred until a bucket holds at most THRESHOLD events (or the ladder is full), so
+ * hold operations are amortized O(1) even for skewed event time distributions.
+ */
+public final class LadderQueue implements FutureEventList {
+
+  private static final int THRESHOLD = 50;
+  private static final int MAX_RUNGS = 8;
+
+  private final EventNodes nodes = new EventNodes(64);
+
+  /* Top: unsorted, every event at or after topStart */
+  private int topHead = NIL;
+  private int topCount = 0;
+  private double topMin = Double.POSITIVE_INFINITY;
+  private double topMax = Double.NEGATIVE_INFINITY;
+  private double topStart = Double.NEGATIVE_INFINITY;
+
+  /* Ladder: rung 0 is the coarsest, rungs - 1 the finest */
+  private int rungs = 0;
+  private final double[] rungStart = new double[MAX_RUNGS];
+  private final double[] rungWidth = new double[MAX_RUNGS];
+  private final int[] rungBuckets = new int[MAX_RUNGS]; // buckets in use on each rung
+  private final int[] rungCurrent = new int[MAX_RUNGS]; // first bucket not yet dequeued
+  private final int[] rungCount = new int[MAX_RUNGS];
+  private final int[][] bucketHeads = new int[MAX_RUNGS][];
+  private final int[][] bucketCounts = new int[MAX_RUNGS][];
+
+  /* Bottom: sorted, every event before the current bucket of the finest rung */
+  private int bottomHead = NIL;
+
+  private int size = 0;
+  private long nextSequence = 0;
+
+  public LadderQueue() {
+    for (int r = 0; r < MAX_RUNGS; r++) {
+      bucketHeads[r] = new int[0];
+      bucketCounts[r] = new int[0];
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void add(double time, int subject, byte kind) {
+    int node = nodes.allocate(time, nextSequence++, subject, kind);
+    size++;
+
+    if (time >= topStart) {
+      nodes.next[node] = topHead;
+      topHead = node;
+      topCount++;
+      topMin = Math.min(topMin, time);
+      topMax = Math.max(topMax, time);
+      return;
+    }
+
+    for (int r = 0; r < rungs; r++) {
+      if (time >= bucketStart(r, rungCurrent[r])) {
+        addToRung(r, node);
+        return;
+      }
+    }
+
+    bottomHead = nodes.insertSorted(bottomHead, node);
+  }
+
+  @Override
+  public double peekTime() {
+    return nodes.times[first()];
+  }
+
+  @Override
+  public int peekSubject() {
+    return nodes.subjects[first()];
+  }
+
+  @Override
+  public byte peekKind() {
+    return nodes.kinds[first()];
+  }
+
+  @Override
+  public void remove() {
+    int node = first();
+    bottomHead = nodes.next[node];
+    nodes.free(node);
+    size--;
+  }
+
+  @Override
+  public void clear() {
+    nodes.clear();
+    topHead = NIL;
+    topCount = 0;
+    topMin = Double.POSITIVE_INFINITY;
+    topMax = Double.NEGATIVE_INFINITY;
+    topStart = Double.NEGATIVE_INFINITY;
+    rungs = 0;
+    bottomHead = NIL;
+    size = 0;
+  }
+
+  private double bucketStart(int rung, int bucket) {
+    return rungStart[rung] + bucket * rungWidth[rung];
+  }
+
+  private void addToRung(int rung, int node) {
+    int bucket = (int) ((nodes.times[node] - rungStart[rung]) / rungWidth[rung]);
+    // guard against rounding at either end of the rung
+    bucket = Math.max(rungCurrent[rung], Math.min(bucket, rungBuckets[rung] - 1));
+    nodes.next[node] = bucketHeads[rung][bucket];
+    bucketHeads[rung][bucket] = node;
+    bucketCounts[rung][bucket]++;
+    rungCount[rung]++;
+  }
+
+  /**
+   * @return the earliest node, refilling the bottom from the ladder/top if it is empty
+   */
+  private int first() {
+    if (size == 0) {
+      throw new NoSuchElementException("The event list is empty");
+    }
+    while (bottomHead == NIL) {
+      if (rungs == 0) {
+        transferTop();
+        continue;
+      }
+
+      int rung = rungs - 1;
+      if (rungCount[rung] == 0) {
+        rungs--;
+        continue;
+      }
+      int bucket = rungCurrent[rung];
+      while (bucketCounts[rung][bucket] == 0) {
+        bucket++;
+      }
+      rungCurrent[rung] = bucket + 1;
+
+      int head = bucketHeads[rung][bucket];
+      int count = bucketCounts[rung][bucket];
+      bucketHeads[rung][bucket] = NIL;
+      bucketCounts[rung][bucket] = 0;
+      rungCount[rung] -= count;
+
+      if (count > THRESHOLD && rungs < MAX_RUNGS && spansTime(head)) {
+        spawnRung(head, count, bucketStart(rung, bucket), rungWidth[rung]);
+      } else {
+        bottomHead = nodes.sort(head);
+      }
+    }
+    return bottomHead;
+  }
+
+  /**
+   * Moves the whole top into the ladder as a new rung 0, or straight into the bottom if it is small
+   */
+  private void transferTop() {
+    int head = topHead;
+    int count = topCount;
+    double min = topMin;
+    double max = topMax;
+    topHead = NIL;
+    topCount = 0;
+    topMin = Double.POSITIVE_INFINITY;
+    topMax = Double.NEGATIVE_INFINITY;
+
+    if (count <= THRESHOLD || min == max) {
+      topStart = max;
+      bottomHead = nodes.sort(head);
+      return;
+    }
+    double width = (max - min) / count;
+    int buckets = count + 1;
+    topStart = min + buckets * width;
+    newRung(min, width, buckets);
+    distribute(head, 0);
+  }
+
+  /**
+   * Spreads an oversized bucket over a new, finer rung below the current finest one
+   */
+  private void spawnRung(int head, int count, double start, double parentWidth) {
+    int buckets = count + 1;
+    newRung(start, parentWidth / buckets, buckets);
+    distribute(head, rungs - 1);
+  }
+
+  private void newRung(double start, double width, int buckets) {
+    int rung = rungs++;
+    rungStart[rung] = start;
+    rungWidth[rung] = width;
+    rungBuckets[rung] = buckets;
+    rungCurrent[rung] = 0;
+    rungCount[rung] = 0;
+    if (bucketHeads[rung].length < buckets) {
+      int capacity = Math.max(buckets, bucketHeads[rung].length * 2);
+      bucketHeads[rung] = new int[capacity];
+      bucketCounts[rung] = new int[capacity];
+    }
+    Arrays.fill(bucketHeads[rung], 0, buckets, NIL);
+    Arrays.fill(bucketCounts[rung], 0, buckets, 0);
+  }
+
+  private void distribute(int head, int rung) {
+    while (head != NIL) {
+      int following = nodes.next[head];
+      addToRung(rung, head);
+      head = following;
+    }
+  }
+
+  /**
+   * @return true if the list holds at least two distinct times, i.e. it can be split further
+   */
+  private boolean spansTime(int head) {
+    double time = nodes.times[head];
+    for (int node = nodes.next[head]; node != NIL; node = nodes.next[node]) {
+      if (nodes.times[node] != time) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,166 @@
+package Simulation.Diary;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Future event list backed by a 4-ary min-heap laid out over primitive columns. Each scheduled
+ * event is described by its invoke time, the subject it acts upon (e.g. a function ID) and a kind
+ * code, so the diary never holds on to event objects and ordering never goes through a
+ * Comparator.
+ * <p>
+ * Events scheduled for the same instant leave the heap in the order they were added (FIFO), which
+ * keeps runs deterministic for a given sequence of schedules.
+ */
+public final class QuaternaryHeap implements FutureEventList {
+
+  private static final int ARITY = 4;
+  private static final int DEFAULT_CAPACITY = 64;
+
+  /* Heap columns, one entry per pending event */
+  private double[] times;
+  private long[] sequence;
+  private int[] subjects;
+  private byte[] kinds;
+
+  private int size = 0;
+  private long nextSequence = 0;
+
+  public QuaternaryHeap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity number of events the heap can hold before it has to grow
+   */
+  public QuaternaryHeap(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, ARITY);
+    times = new double[capacity];
+    sequence = new long[capacity];
+    subjects = new int[capacity];
+    kinds = new byte[capacity];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void add(double time, int subject, byte kind) {
+    if (size == times.length) {
+      grow();
+    }
+    siftUp(size++, time, nextSequence++, subject, kind);
+  }
+
+  @Override
+  public double peekTime() {
+    checkNotEmpty();
+    return times[0];
+  }
+
+  @Override
+  public int peekSubject() {
+    checkNotEmpty();
+    return subjects[0];
+  }
+
+  @Override
+  public byte peekKind() {
+    checkNotEmpty();
+    return kinds[0];
+  }
+
+  @Override
+  public void remove() {
+    checkNotEmpty();
+    int last = --size;
+    if (last > 0) {
+      siftDown(0, times[last], sequence[last], subjects[last], kinds[last]);
+    }
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+  }
+
+  private void checkNotEmpty() {
+    if (size == 0) {
+      throw new NoSuchElementException("The event list is empty");
+    }
+  }
+
+  /**
+   * Moves the hole at `index` towards the root until the given entry fits
+   */
+  private void siftUp(int index, double time, long seq, int subject, byte kind) {
+    while (index > 0) {
+      int parent = (index - 1) / ARITY;
+      if (!before(time, seq, times[parent], sequence[parent])) {
+        break;
+      }
+      move(parent, index);
+      index = parent;
+    }
+    set(index, time, seq, subject, kind);
+  }
+
+  /**
+   * Moves the hole at `index` towards the leaves until the given entry fits
+   */
+  private void siftDown(int index, double time, long seq, int subject, byte kind) {
+    while (true) {
+      int first = index * ARITY + 1;
+      if (first >= size) {
+        break;
+      }
+      // pick the earliest of the (up to) four children
+      int child = first;
+      int end = Math.min(first + ARITY, size);
+      for (int c = first + 1; c < end; c++) {
+        if (before(times[c], sequence[c], times[child], sequence[child])) {
+          child = c;
+        }
+      }
+      if (!before(times[child], sequence[child], time, seq)) {
+        break;
+      }
+      move(child, index);
+      index = child;
+    }
+    set(index, time, seq, subject, kind);
+  }
+
+  private static boolean before(double time, long seq, double otherTime, long otherSeq) {
+    return time < otherTime || (time == otherTime && seq < otherSeq);
+  }
+
+  private void move(int from, int to) {
+    times[to] = times[from];
+    sequence[to] = sequence[from];
+    subjects[to] = subjects[from];
+    kinds[to] = kinds[from];
+  }
+
+  private void set(int index, double time, long seq, int subject, byte kind) {
+    times[index] = time;
+    sequence[index] = seq;
+    subjects[index] = subject;
+    kinds[index] = kind;
+  }
+
+  private void grow() {
+    int capacity = times.length * 2;
+    times = Arrays.copyOf(times, capacity);
+    sequence = Arrays.copyOf(sequence, capacity);
+    subjects = Arrays.copyOf(subjects, capacity);
+    kinds = Arrays.copyOf(kinds, capacity);
+  }
+}
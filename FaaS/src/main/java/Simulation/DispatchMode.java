@@ -0,0 +1,16 @@
+package Simulation;
+
+/**
+ * How a FaaSSimulation invokes the events it takes off the diary. Both run the same handlers, so
+ * they produce exactly the same simulation.
+ * <ul>
+ * <li>POLYMORPHIC: every event is materialised as an Event object (recycled through the event
+ * pool) and invoked through Event.invoke, whose call site sees every event class</li>
+ * <li>SWITCH: model events are handled by a switch over their kind code straight from the diary,
+ * which the JIT can inline into the event loop. Only control events are materialised</li>
+ * </ul>
+ */
+public enum DispatchMode {
+  POLYMORPHIC,
+  SWITCH
+}
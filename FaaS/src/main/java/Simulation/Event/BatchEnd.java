@@ -0,0 +1,38 @@
+package Simulation.Event;
+
+import Simulation.FaaSSimulation;
+
+/**
+ * Control event at the end of a batch of the batch means statistics, see FaaSSimulation.endBatch
+ */
+public class BatchEnd extends Event {
+
+  public static final byte KIND = 5;
+
+  private final FaaSSimulation simulation;
+
+  public BatchEnd(double invokeTime, FaaSSimulation simulation) {
+    super(invokeTime);
+    this.simulation = simulation;
+  }
+
+  @Override
+  public void invoke() {
+    simulation.endBatch();
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
+  }
+
+  @Override
+  public int getSubject() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "BATCH END: [" + getInvokeTime() + "]";
+  }
+}
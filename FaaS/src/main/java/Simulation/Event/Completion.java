@@ -9,14 +9,20 @@ import Simulation.FaaSSimulation;
  */
 public class Completion extends FaaSEvent {
 
+  public static final byte KIND = 2;
+
   public Completion(double invokeTime, Function function, FaaSSimulation simulation) {
     super(invokeTime, function, simulation);
   }
 
   @Override
   public void invoke() {
-    simulation.getServer().demote(function);
-    this.function.logNewCompletion();
+    simulation.handleCompletion(function);
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
   }
 
   @Override
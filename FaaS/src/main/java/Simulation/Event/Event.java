@@ -2,11 +2,16 @@ package Simulation.Event;
 
 /**
  * An abstract class for an event, allowing you to overwrite the invoke method.
+ * <p>
+ * The diary only stores the invoke time, the kind and the subject of an event, so every event has
+ * to be reconstructable from those three values (see Sim.createEvent). Once invoked, an event may
+ * be handed back to its simulation and re-targeted through reuse, so implementations must not keep
+ * any other per-occurrence state.
  */
 
 public abstract class Event {
   /* Event fields */
-  private final double invokeTime;
+  private double invokeTime;
 
   public Event(double invokeTime) {
     this.invokeTime = invokeTime;
@@ -14,6 +19,23 @@ public abstract class Event {
 
   public abstract void invoke();
 
+  /**
+   * @return code identifying the type of this event within its simulation
+   */
+  public abstract byte getKind();
+
+  /**
+   * @return identifier of the entity this event acts upon
+   */
+  public abstract int getSubject();
+
+  /**
+   * Re-targets a recycled event at a new occurrence of the same kind
+   */
+  public void reuse(double invokeTime, int subject) {
+    this.invokeTime = invokeTime;
+  }
+
   public double getInvokeTime() {
     return invokeTime;
   }
@@ -1,17 +1,20 @@
 package Simulation.Event;
 
 import FunctionAsAService.Function;
-import Samplers.Sampler;
 import Simulation.FaaSSimulation;
 
 /**
  * Class more specified to our simulation. Holds the current FaaSSimulation class which deals with
  * memory and evictions, and also the function the event is handling.
+ * <p>
+ * What an event does is implemented by the matching FaaSSimulation handler, which the
+ * SWITCH dispatch mode calls without materialising the event at all. Follow-up events are written
+ * straight into the diary as (time, function, kind), no event objects are created for them.
  */
 public abstract class FaaSEvent extends Event {
 
   // Server state variables
-  protected final Function function;
+  protected Function function;
   protected final FaaSSimulation simulation;
 
   public FaaSEvent(double invokeTime, Function function, FaaSSimulation simulation) {
@@ -20,28 +23,15 @@ public abstract class FaaSEvent extends Event {
     this.simulation = simulation;
   }
 
-  /**
-   * @return new Promotion event displaced by a sample of coldStart distribution
-   */
-  public final Promotion coldStart() {
-    double coldStart = Sampler.Exponential(FaaSSimulation.coldStartRate);
-    return new Promotion(getInvokeTime() + coldStart, function, simulation);
-  }
-
-  /**
-   * @return new Request event displaced by a sample of inter arrival rate for a particular function
-   */
-  public final Request request() {
-    double interArrivalTime = Sampler.Exponential(function.getArrivalRate());
-    return new Request(getInvokeTime() + interArrivalTime, function, simulation);
+  @Override
+  public int getSubject() {
+    return function.getIndex();
   }
 
-  /**
-   * @return new Promotion event displaced by a sample of average processing time for a function
-   */
-  public final Completion completion() {
-    double completionTime = Sampler.Exponential(function.getServiceRate());
-    return new Completion(getInvokeTime() + completionTime, function, simulation);
+  @Override
+  public void reuse(double invokeTime, int subject) {
+    super.reuse(invokeTime, subject);
+    this.function = simulation.getFunctionByIndex(subject);
   }
 
   @Override
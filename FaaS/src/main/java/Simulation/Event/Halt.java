@@ -0,0 +1,41 @@
+package Simulation.Event;
+
+import Simulation.Sim;
+
+/**
+ * Control event ending the simulation, e.g. at the end of its horizon. Events due after it are
+ * never invoked, events due at the same time still are (see Sim.deferToPendingEvents).
+ */
+public class Halt extends Event {
+
+  public static final byte KIND = Byte.MAX_VALUE;
+
+  private final Sim simulation;
+
+  public Halt(double invokeTime, Sim simulation) {
+    super(invokeTime);
+    this.simulation = simulation;
+  }
+
+  @Override
+  public void invoke() {
+    if (!simulation.deferToPendingEvents(KIND)) {
+      simulation.halt();
+    }
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
+  }
+
+  @Override
+  public int getSubject() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "HALT: [" + getInvokeTime() + "]";
+  }
+}
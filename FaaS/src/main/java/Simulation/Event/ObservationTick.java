@@ -0,0 +1,39 @@
+package Simulation.Event;
+
+import Simulation.FaaSSimulation;
+
+/**
+ * Control event recording an observation of the simulation. Ticks fall on exact multiples of the
+ * observation interval, each one scheduling the next.
+ */
+public class ObservationTick extends Event {
+
+  public static final byte KIND = 4;
+
+  private final FaaSSimulation simulation;
+
+  public ObservationTick(double invokeTime, FaaSSimulation simulation) {
+    super(invokeTime);
+    this.simulation = simulation;
+  }
+
+  @Override
+  public void invoke() {
+    simulation.recordObservation();
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
+  }
+
+  @Override
+  public int getSubject() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "OBSERVATION: [" + getInvokeTime() + "]";
+  }
+}
@@ -0,0 +1,40 @@
+package Simulation.Event;
+
+import Simulation.Sim;
+
+/**
+ * Control event returning from Sim.go without ending the simulation, see Sim.goUntil
+ */
+public class Pause extends Event {
+
+  public static final byte KIND = Byte.MAX_VALUE - 1;
+
+  private final Sim simulation;
+
+  public Pause(double invokeTime, Sim simulation) {
+    super(invokeTime);
+    this.simulation = simulation;
+  }
+
+  @Override
+  public void invoke() {
+    if (!simulation.deferToPendingEvents(KIND)) {
+      simulation.pause();
+    }
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
+  }
+
+  @Override
+  public int getSubject() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "PAUSE: [" + getInvokeTime() + "]";
+  }
+}
@@ -9,15 +9,20 @@ import Simulation.FaaSSimulation;
  */
 public class Promotion extends FaaSEvent {
 
+  public static final byte KIND = 1;
+
   public Promotion(double invokeTime, Function function, FaaSSimulation simulation) {
     super(invokeTime, function, simulation);
   }
 
   @Override
   public void invoke() {
-    simulation.getServer().promote(function);
-    this.function.logNewPromotion();
-    simulation.schedule(completion());
+    simulation.handlePromotion(function);
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
   }
 
   @Override
@@ -1,7 +1,6 @@
 package Simulation.Event;
 
 import FunctionAsAService.Function;
-import FunctionAsAService.Server.FaaSServer;
 import Simulation.FaaSSimulation;
 
 /**
@@ -19,33 +18,20 @@ import Simulation.FaaSSimulation;
  */
 public class Request extends FaaSEvent {
 
+  public static final byte KIND = 0;
+
   public Request(double invokeTime, Function function, FaaSSimulation simulation) {
     super(invokeTime, function, simulation);
   }
 
   @Override
   public void invoke() {
-    simulation.countEvent();
-    this.function.logNewRequest();
-
-    FaaSServer memory = simulation.getServer();
-    
-    // go through cases as in JavaDoc above
-    if (memory.isIdle(function.getFunctionID())) {
-      memory.promote(function);
-      simulation.schedule(completion());
-    } else if (memory.isUnreserved(function.getFunctionID()) && memory.canEvict()) {
-      memory.evict();
-      memory.enqueueLoading(function);
-      simulation.schedule(coldStart());
-      this.function.logNewColdStart();
-    } else {
-      this.function.logNewRejection();
-    }
+    simulation.handleRequest(function);
+  }
 
-    // The inter-arrival rate for an arrival of the function has come and gone. Therefore, schedule
-    // another function call.
-    simulation.schedule(request());
+  @Override
+  public byte getKind() {
+    return KIND;
   }
 
   @Override
@@ -0,0 +1,38 @@
+package Simulation.Event;
+
+import Simulation.FaaSSimulation;
+
+/**
+ * Control event at the end of the warm-up period, resets every measure of the simulation
+ */
+public class WarmUpEnd extends Event {
+
+  public static final byte KIND = 3;
+
+  private final FaaSSimulation simulation;
+
+  public WarmUpEnd(double invokeTime, FaaSSimulation simulation) {
+    super(invokeTime);
+    this.simulation = simulation;
+  }
+
+  @Override
+  public void invoke() {
+    simulation.resetMeasures();
+  }
+
+  @Override
+  public byte getKind() {
+    return KIND;
+  }
+
+  @Override
+  public int getSubject() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return "WARM UP END: [" + getInvokeTime() + "]";
+  }
+}
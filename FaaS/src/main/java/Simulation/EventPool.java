@@ -0,0 +1,37 @@
+package Simulation;
+
+import Simulation.Event.Event;
+import java.util.Arrays;
+
+/**
+ * Per-kind free lists of events that have already been invoked, so that a simulation in steady
+ * state can re-target old events instead of allocating new ones.
+ */
+final class EventPool {
+
+  private final Event[][] free = new Event[Byte.MAX_VALUE + 1][];
+  private final int[] counts = new int[Byte.MAX_VALUE + 1];
+
+  /**
+   * @return a previously released event of the given kind, or null if there is none
+   */
+  Event acquire(byte kind) {
+    int count = counts[kind];
+    if (count == 0) {
+      return null;
+    }
+    counts[kind] = --count;
+    return free[kind][count];
+  }
+
+  void release(Event event) {
+    byte kind = event.getKind();
+    Event[] events = free[kind];
+    if (events == null) {
+      events = free[kind] = new Event[4];
+    } else if (counts[kind] == events.length) {
+      events = free[kind] = Arrays.copyOf(events, events.length * 2);
+    }
+    events[counts[kind]++] = event;
+  }
+}
@@ -0,0 +1,67 @@
+package Simulation.Experiment;
+
+/**
+ * Cold start ratio of a FaaS server with a given memory capacity, estimated by batch means over a
+ * single run, and how it compares to the target of the sweep that produced it.
+ */
+public class CapacityEstimate {
+
+  /**
+   * Outcome of the comparison with the target cold start ratio
+   */
+  public enum Verdict {
+    ABOVE, // the whole confidence interval lies above the target
+    BELOW, // the whole confidence interval lies below the target
+    UNDECIDED, // the interval still contained the target after the maximum number of batches
+    CANCELLED // stopped because another capacity made this one irrelevant
+  }
+
+  private final int capacity;
+  private final double[] interval;
+  private final int batches;
+  private final Verdict verdict;
+
+  CapacityEstimate(int capacity, double[] interval, int batches, Verdict verdict) {
+    this.capacity = capacity;
+    this.interval = interval;
+    this.batches = batches;
+    this.verdict = verdict;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return lower bound at 0, mean cold start ratio at 1, and upper bound at 2. Null if cancelled
+   * before there were enough batches for an interval
+   */
+  public double[] getColdRatioConfidenceInterval() {
+    return interval == null ? null : interval.clone();
+  }
+
+  /**
+   * @return number of batches the estimate is based on
+   */
+  public int getBatches() {
+    return batches;
+  }
+
+  public Verdict getVerdict() {
+    return verdict;
+  }
+
+  /**
+   * @return true if the capacity (probably) meets the target
+   */
+  boolean meetsTarget(double target) {
+    return verdict == Verdict.BELOW || (verdict == Verdict.UNDECIDED && interval[1] <= target);
+  }
+
+  @Override
+  public String toString() {
+    return "M=" + capacity + " " + verdict + " after " + batches + " batches"
+        + (interval == null ? "" : " ( " + interval[0] + " <= " + interval[1] + " <= "
+        + interval[2] + " )");
+  }
+}
@@ -0,0 +1,373 @@
+package Simulation.Experiment;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+
+import Analytical.MeanFieldModel;
+import Analytical.PerformanceEstimate;
+import FunctionAsAService.Function;
+import Samplers.Sampler;
+import Simulation.Experiment.CapacityEstimate.Verdict;
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for the smallest memory capacity M whose cold start ratio stays below a target.
+ * <p>
+ * Each round of the search simulates several capacities spread over the remaining range in
+ * parallel (a k-section search, k being the parallelism), which narrows the range k + 1 times
+ * per round instead of twice.
+ * <p>
+ * Every candidate shares one parsed trace and draws from the same seed with common random numbers
+ * on, so all of them see exactly the same requests with the same service times and cold starts.
+ * Any difference between them comes from the capacity alone, which keeps the search from being
+ * misled by noise.
+ * <p>
+ * A candidate is simulated in batches after the warm-up period and the cold start ratio of every
+ * batch is a sample of a batch means confidence interval. The candidates of a round run their
+ * batches in lockstep. Between two batches, a candidate stops as soon as its interval lies entirely
+ * above or below the target, or once it can no longer change the outcome of the round (e.g. a
+ * smaller capacity already meets the target). Which candidates stop when therefore only depends
+ * on the simulations, never on how the threads were scheduled.
+ */
+public class CapacitySweep {
+
+  private final List<Function> trace;
+  private final int parallelism;
+
+  private double warmUpPeriod = 60 * 60;
+  private double batchLength = 60 * 60;
+  private int minBatches = 5;
+  private int maxBatches = 24;
+  private double confidence = 0.90;
+  private long seed = Sampler.DEFAULT_SEED;
+
+  private final List<CapacityEstimate> estimates = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * @param trace       functions of the workload, never modified by the sweep
+   * @param parallelism number of capacities simulated at the same time
+   */
+  public CapacitySweep(List<Function> trace, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+    }
+    this.trace = trace;
+    this.parallelism = parallelism;
+  }
+
+  public CapacitySweep withWarmUpPeriod(double warmUpPeriodSeconds) {
+    this.warmUpPeriod = warmUpPeriodSeconds;
+    return this;
+  }
+
+  /**
+   * @param batchLengthSeconds simulated time of every batch, long enough for consecutive batches to
+   *                           be roughly independent
+   */
+  public CapacitySweep withBatchLength(double batchLengthSeconds) {
+    this.batchLength = batchLengthSeconds;
+    return this;
+  }
+
+  /**
+   * @param minBatches batches a candidate runs before it may be decided
+   * @param maxBatches batches after which an undecided candidate is judged by its mean
+   */
+  public CapacitySweep withBatches(int minBatches, int maxBatches) {
+    if (minBatches < 2 || maxBatches < minBatches) {
+      throw new IllegalArgumentException("Need 2 <= minBatches <= maxBatches");
+    }
+    this.minBatches = minBatches;
+    this.maxBatches = maxBatches;
+    return this;
+  }
+
+  public CapacitySweep withConfidence(double confidence) {
+    this.confidence = confidence;
+    return this;
+  }
+
+  public CapacitySweep withSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * The cold start ratio is assumed to decrease with the capacity over [low, high]. It does not
+   * below some capacity: with very little memory most requests are rejected rather than cold
+   * started, so `low` should lie past that peak.
+   *
+   * @param targetColdStartRatio a ratio from 0 <= x <= 1 the cold start ratio should stay below
+   * @param low                  smallest capacity to consider
+   * @param high                 largest capacity to consider, assumed to meet the target
+   * @return the smallest capacity in [low, high] that meets the target
+   */
+  public int smallestCapacity(double targetColdStartRatio, int low, int high) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      // invariant: the answer lies in [low, high]
+      while (low < high) {
+        List<CapacityEstimate> round = runRound(pool, candidates(low, high), targetColdStartRatio,
+            low, high);
+        estimates.addAll(round);
+
+        // narrow the range down to the smallest capacity meeting the target and the largest
+        // capacity below it missing the target
+        int meeting = high;
+        for (CapacityEstimate estimate : round) {
+          if (estimate.getVerdict() != Verdict.CANCELLED
+              && estimate.meetsTarget(targetColdStartRatio)) {
+            meeting = Math.min(meeting, estimate.getCapacity());
+          }
+        }
+        int missing = low - 1;
+        for (CapacityEstimate estimate : round) {
+          if (estimate.getVerdict() != Verdict.CANCELLED
+              && !estimate.meetsTarget(targetColdStartRatio) && estimate.getCapacity() < meeting) {
+            missing = Math.max(missing, estimate.getCapacity());
+          }
+        }
+        low = Math.max(low, missing + 1);
+        high = meeting;
+      }
+      return high;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while sweeping capacities", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A capacity simulation failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs the candidates batch by batch until every one of them is decided or cancelled
+   *
+   * @return the estimates of the candidates, in the order they were decided
+   */
+  private List<CapacityEstimate> runRound(ForkJoinPool pool, List<Integer> capacities,
+      double target, int low, int high) throws InterruptedException, ExecutionException {
+    List<Candidate> running = new ArrayList<>(capacities.size());
+    for (int capacity : capacities) {
+      running.add(new Candidate(capacity));
+    }
+    List<CapacityEstimate> round = new ArrayList<>(capacities.size());
+    int smallestMeeting = high; // smallest capacity of the round known to meet the target
+    int largestMissing = low - 1; // largest capacity of the round known to miss the target
+    while (!running.isEmpty()) {
+      List<Callable<Void>> tasks = new ArrayList<>(running.size());
+      for (Candidate candidate : running) {
+        tasks.add(() -> {
+          candidate.runBatch(target);
+          return null;
+        });
+      }
+      for (Future<Void> result : pool.invokeAll(tasks)) {
+        result.get();
+      }
+
+      for (Iterator<Candidate> it = running.iterator(); it.hasNext(); ) {
+        CapacityEstimate estimate = it.next().estimate;
+        if (estimate != null) {
+          it.remove();
+          round.add(estimate);
+          if (estimate.getVerdict() == Verdict.BELOW) {
+            smallestMeeting = Math.min(smallestMeeting, estimate.getCapacity());
+          } else if (estimate.getVerdict() == Verdict.ABOVE) {
+            largestMissing = Math.max(largestMissing, estimate.getCapacity());
+          }
+        }
+      }
+      for (Iterator<Candidate> it = running.iterator(); it.hasNext(); ) {
+        Candidate candidate = it.next();
+        if (candidate.capacity > smallestMeeting || candidate.capacity < largestMissing) {
+          it.remove();
+          round.add(candidate.cancel());
+        }
+      }
+    }
+    return round;
+  }
+
+  /**
+   * Like smallestCapacity(target, low, high), over the capacities MeanFieldModel predicts to
+   * bring the cold start ratio within the margin of the target, past the peak of the predicted
+   * ratio.
+   * <p>
+   * The model is only trusted to narrow the search: the edges of that band are simulated first.
+   * If the largest capacity of the band misses the target, the search carries on over the larger
+   * capacities, and if the one just below the band meets it, over the smaller capacities down to
+   * the predicted peak.
+   *
+   * @param margin relative error allowed to the approximation, e.g. 0.1 to simulate the capacities
+   *               predicted between 0.9 and 1.1 times the target
+   * @throws IllegalStateException if not even every function in memory meets the target
+   */
+  public int smallestCapacity(double targetColdStartRatio, double margin) {
+    if (margin < 0 || margin >= 1) {
+      throw new IllegalArgumentException("Margin must be in [0, 1), got " + margin);
+    }
+    List<PerformanceEstimate> predicted = new MeanFieldModel(trace).estimateAll();
+    int peak = 0;
+    for (int i = 1; i < predicted.size(); i++) {
+      if (predicted.get(i).getColdRatio() > predicted.get(peak).getColdRatio()) {
+        peak = i;
+      }
+    }
+    int peakCapacity = predicted.get(peak).getCapacity();
+    int largestCapacity = predicted.get(predicted.size() - 1).getCapacity();
+    int low = firstPredictedBelow(predicted, peak, targetColdStartRatio * (1 + margin));
+    int high = firstPredictedBelow(predicted, peak, targetColdStartRatio * (1 - margin));
+
+    List<Integer> edges = new ArrayList<>(2);
+    if (low > peakCapacity) {
+      edges.add(low - 1);
+    }
+    edges.add(high);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    List<CapacityEstimate> checked;
+    try {
+      // whichever edge first rules out the band cancels the other: high missing the target or
+      // low - 1 meeting it is enough on its own to move the search
+      checked = runRound(pool, edges, targetColdStartRatio, Integer.MIN_VALUE + 1,
+          Integer.MAX_VALUE);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while sweeping capacities", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A capacity simulation failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    estimates.addAll(checked);
+
+    for (CapacityEstimate edge : checked) {
+      if (edge.getVerdict() == Verdict.CANCELLED) {
+        continue; // the other edge already settled it
+      }
+      boolean meets = edge.meetsTarget(targetColdStartRatio);
+      if (edge.getCapacity() == high && !meets) {
+        if (high == largestCapacity) {
+          throw new IllegalStateException("Even M = " + high + " misses the target "
+              + targetColdStartRatio + ": " + edge);
+        }
+        return smallestCapacity(targetColdStartRatio, high + 1, largestCapacity);
+      }
+      if (edge.getCapacity() == low - 1 && meets) {
+        return smallestCapacity(targetColdStartRatio, peakCapacity, low - 1);
+      }
+    }
+    return smallestCapacity(targetColdStartRatio, low, high);
+  }
+
+  /**
+   * @return smallest capacity from the one at index `from` predicted to meet the threshold, or the
+   * largest capacity if none does
+   */
+  private static int firstPredictedBelow(List<PerformanceEstimate> predicted, int from,
+      double threshold) {
+    for (int i = from; i < predicted.size(); i++) {
+      if (predicted.get(i).getColdRatio() <= threshold) {
+        return predicted.get(i).getCapacity();
+      }
+    }
+    return predicted.get(predicted.size() - 1).getCapacity();
+  }
+
+  /**
+   * @return every estimate made by the searches of this sweep so far, round by round in the order
+   * they were decided
+   */
+  public List<CapacityEstimate> getEstimates() {
+    synchronized (estimates) {
+      return new ArrayList<>(estimates);
+    }
+  }
+
+  /**
+   * Simulates a capacity for the maximum number of batches, without comparing it to any target
+   */
+  public CapacityEstimate estimate(int capacity) {
+    Candidate candidate = new Candidate(capacity);
+    while (candidate.estimate == null) {
+      candidate.runBatch(Double.NaN);
+    }
+    return candidate.estimate;
+  }
+
+  /**
+   * @return up to `parallelism` distinct capacities in [low, high), evenly spread
+   */
+  private List<Integer> candidates(int low, int high) {
+    int count = Math.min(parallelism, high - low);
+    List<Integer> candidates = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      // the i-th of `count` points splitting [low, high) into count + 1 parts
+      int capacity = low + (int) ((long) (high - low) * (i + 1) / (count + 1));
+      if (candidates.isEmpty() || capacity > candidates.get(candidates.size() - 1)) {
+        candidates.add(capacity);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * A capacity simulated one batch at a time, until its interval is decided
+   */
+  private final class Candidate {
+
+    private final int capacity;
+    private FaaSSimulation sim = null; // created by the first batch, on the thread running it
+    private double[] interval = null;
+    private int batches = 0;
+    private CapacityEstimate estimate = null; // set once decided or cancelled
+
+    private Candidate(int capacity) {
+      this.capacity = capacity;
+    }
+
+    /**
+     * Runs one more batch, and decides the candidate if its interval clears the target or it has
+     * run the maximum number of batches
+     */
+    private void runBatch(double target) {
+      if (sim == null) {
+        sim = createFaaSSimBuilder()
+            .withFreshFunctions(trace)
+            .withMemoryCapacity(capacity, false)
+            .withFullIdleMemory() // A6
+            .withSimulationTimeDuration(warmUpPeriod + maxBatches * batchLength)
+            .withWarmUpPeriod(warmUpPeriod)
+            .withSeed(seed)
+            .withCommonRandomNumbers(true)
+            .withBatchLength(batchLength)
+            .createFaaSSimulation();
+      }
+      sim.runUntil(warmUpPeriod + ++batches * batchLength);
+      if (batches < minBatches) {
+        return;
+      }
+      interval = sim.getColdRatioConfidenceInterval(confidence);
+      if (interval[2] < target) {
+        estimate = new CapacityEstimate(capacity, interval, batches, Verdict.BELOW);
+      } else if (interval[0] > target) {
+        estimate = new CapacityEstimate(capacity, interval, batches, Verdict.ABOVE);
+      } else if (batches == maxBatches) {
+        estimate = new CapacityEstimate(capacity, interval, batches, Verdict.UNDECIDED);
+      }
+    }
+
+    private CapacityEstimate cancel() {
+      estimate = new CapacityEstimate(capacity, interval, batches, Verdict.CANCELLED);
+      return estimate;
+    }
+  }
+}
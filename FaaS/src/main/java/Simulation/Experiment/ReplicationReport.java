@@ -0,0 +1,71 @@
+package Simulation.Experiment;
+
+import Statistics.StudentT;
+
+/**
+ * Measures of a set of independent replications. Each replication contributes a single
+ * observation of C_ratio and L_rate, so the intervals use the variance between replications and a
+ * t distribution with (replications - 1) degrees of freedom.
+ */
+public class ReplicationReport {
+
+  public static final double DEFAULT_CONFIDENCE = 0.90;
+
+  private final long[] seeds;
+  private final double[] coldStartRatios;
+  private final double[] lossRates;
+
+  ReplicationReport(long[] seeds, double[] coldStartRatios, double[] lossRates) {
+    this.seeds = seeds;
+    this.coldStartRatios = coldStartRatios;
+    this.lossRates = lossRates;
+  }
+
+  public int getReplications() {
+    return seeds.length;
+  }
+
+  /**
+   * @return the seed replication r was built from
+   */
+  public long getSeed(int replication) {
+    return seeds[replication];
+  }
+
+  /**
+   * @return C_ratio of every replication, in replication order
+   */
+  public double[] getColdStartRatios() {
+    return coldStartRatios.clone();
+  }
+
+  /**
+   * @return L_rate of every replication, in replication order
+   */
+  public double[] getLossRates() {
+    return lossRates.clone();
+  }
+
+  /**
+   * @return returns an array with ret[1] = mean C_ratio, ret[0,2] = 90% confidence bounds
+   */
+  public double[] getColdRatioConfidenceInterval() {
+    return getColdRatioConfidenceInterval(DEFAULT_CONFIDENCE);
+  }
+
+  public double[] getColdRatioConfidenceInterval(double confidence) {
+    return StudentT.meanConfidenceInterval(coldStartRatios, coldStartRatios.length,
+        confidence);
+  }
+
+  /**
+   * @return returns an array with ret[1] = mean L_rate, ret[0,2] = 90% confidence bounds
+   */
+  public double[] getLossConfidenceInterval() {
+    return getLossConfidenceInterval(DEFAULT_CONFIDENCE);
+  }
+
+  public double[] getLossConfidenceInterval(double confidence) {
+    return StudentT.meanConfidenceInterval(lossRates, lossRates.length, confidence);
+  }
+}
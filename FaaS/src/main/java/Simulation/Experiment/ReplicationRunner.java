@@ -0,0 +1,97 @@
+package Simulation.Experiment;
+
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Runs independent replications of a FaaSSimulation in parallel.
+ * <p>
+ * Every replication is built by the given factory from its own seed, so each one draws from its
+ * own random stream. The seeds are derived from a base seed before any replication starts, which
+ * makes the results depend only on the base seed and not on the parallelism or on the order in
+ * which the replications happen to finish.
+ * <p>
+ * The factory is called from the worker threads, so it must not hand out shared mutable state
+ * (e.g. build each simulation with FaaSSimulationBuilder.withFreshFunctions over one parsed
+ * trace).
+ */
+public class ReplicationRunner {
+
+  private final int parallelism;
+
+  public ReplicationRunner() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param parallelism number of replications running at the same time
+   */
+  public ReplicationRunner(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * @param replications number of independent replications to run
+   * @param baseSeed     seed from which the seed of every replication is derived
+   * @param factory      creates an unstarted simulation from a replication seed
+   * @return the measures of every replication, in replication order
+   */
+  public ReplicationReport run(int replications, long baseSeed,
+      LongFunction<FaaSSimulation> factory) {
+    if (replications < 2) {
+      throw new IllegalArgumentException("At least 2 replications are needed for an interval");
+    }
+    long[] seeds = replicationSeeds(replications, baseSeed);
+
+    List<Callable<double[]>> tasks = new ArrayList<>(replications);
+    for (long seed : seeds) {
+      tasks.add(() -> {
+        FaaSSimulation sim = factory.apply(seed);
+        sim.runSim();
+        return new double[]{sim.getBiasedColdStartRatio(), sim.getBiasedLossRate()};
+      });
+    }
+
+    double[] coldStartRatios = new double[replications];
+    double[] lossRates = new double[replications];
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<Future<double[]>> results = pool.invokeAll(tasks);
+      for (int r = 0; r < replications; r++) {
+        double[] measures = results.get(r).get();
+        coldStartRatios[r] = measures[0];
+        lossRates[r] = measures[1];
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running replications", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A replication failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return new ReplicationReport(seeds, coldStartRatios, lossRates);
+  }
+
+  /**
+   * @return one seed per replication, drawn sequentially from the base seed
+   */
+  static long[] replicationSeeds(int replications, long baseSeed) {
+    SplittableRandom seeder = new SplittableRandom(baseSeed);
+    long[] seeds = new long[replications];
+    for (int r = 0; r < replications; r++) {
+      seeds[r] = seeder.nextLong();
+    }
+    return seeds;
+  }
+}
@@ -2,14 +2,32 @@ package Simulation;
 
 import FunctionAsAService.Function;
 import FunctionAsAService.Server.FaaSServer;
+import Samplers.Sampler;
+import Samplers.Sampler.Stream;
+import Simulation.Arrival.ArrivalProcess;
+import Simulation.Diary.FutureEventList;
+import Simulation.Event.BatchEnd;
+import Simulation.Event.Completion;
+import Simulation.Event.Event;
+import Simulation.Event.ObservationTick;
+import Simulation.Event.Promotion;
 import Simulation.Event.Request;
-import java.io.File;
+import Simulation.Event.WarmUpEnd;
+import Simulation.Observation.ObservationSink;
+import Simulation.Observation.ShardsProfiler;
+import Simulation.Observation.SimulationMetrics;
+import Statistics.LatencyHistogram;
+import Statistics.RunningStatistics;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
-import org.jetbrains.annotations.NotNull;
 
 /**
  * My class for completing this simulation task
@@ -22,32 +40,147 @@ public class FaaSSimulation extends Sim {
   /* Simulation objects */
   private final FaaSServer server;
   private final List<Function> functions;
+  private final Function[] functionsByIndex; // see Function.index
+  private final long[] indexByID; // function ID << 32 | index, sorted, see getFunction
+  private final ArrivalProcess arrivalProcess;
+  private final Sampler sampler;
+  private final boolean switchDispatch;
+
+  /* Common random numbers: variates drawn when a function's request arrives, by function index */
+  private final boolean commonRandomNumbers;
+  private final double[] pendingServiceTimes;
+  private final double[] pendingColdStarts;
+
+  /* Service times of the requests the functions are loading for or serving, by function index,
+   * taken when a request is let in so that later arrivals can't replace them. Null unless they are
+   * drawn on arrival (common random numbers) or replayed by the arrival process */
+  private final double[] admittedServiceTimes;
 
   /* Simulation trackers */
   private final double simulationTimeSeconds;
   private final double warmUpPeriod;
-  private boolean warmUp = true;
+  private boolean started = false;
+  private boolean restored = false; // true if the state was read from a SimulationSnapshot
   protected int numEvents = 0;
 
-  /* Fields responsible for holding the tracked state of the server */
-  private StringBuilder observations = new StringBuilder();
-  private double timeSinceLastObservation = 0;
+  /* Running totals over all functions, kept in step with the per-function counters */
+  private long totalRequests = 0;
+  private long totalColdStarts = 0;
+  private long totalPromotions = 0;
+  private long totalCompletions = 0;
+  private long totalRejections = 0;
+
+  /* Batch means: the measured period is cut into batches of simulated time, whose cold start
+   * ratios and loss rates are treated as independent samples */
+  public static final int DEFAULT_BATCHES = 30;
+  public static final double DEFAULT_CONFIDENCE = 0.90;
+  private final double batchLength;
+  private double batchesStart = 0;
+  private long batchStartRequests = 0; // running totals at the start of the current batch
+  private long batchStartColdStarts = 0;
+  private long batchStartRejections = 0;
+  private final RunningStatistics coldRatioBatches = new RunningStatistics();
+  private final RunningStatistics lossRateBatches = new RunningStatistics();
+
+  /* Sequential stopping rule, checked at the end of every batch. Null to always run to the
+   * horizon */
+  public static final int DEFAULT_MIN_BATCHES = 5;
+  private PrecisionTarget precisionTarget = null;
+  private double relativeHalfWidth;
+  private int minBatches = DEFAULT_MIN_BATCHES;
+  private boolean precisionReached = false;
+
+  /* Response times, from a request's arrival to its completion. Null unless recorded. A function's
+   * histogram takes about 4 KB, so it is only allocated once the function completes a request */
+  public static final int LATENCY_PRECISION_BITS = 8;
+  public static final int FUNCTION_LATENCY_PRECISION_BITS = 5;
+  private final LatencyHistogram latency;
+  private final LatencyHistogram[] functionLatencies; // indexed by function index, null if unused
+  private final double[] arrivalTimes; // of the request each function is loading for or serving
+
+  /* Reuse distances of the requests, null unless profiled */
+  private ShardsProfiler profiler = null;
+
+  /* Fields responsible for recording the tracked state of the server. The sink is flushed every
+   * OBSERVATIONS_PER_FLUSH observations, so a run that is killed loses at most that many */
+  public static final int OBSERVATIONS_PER_FLUSH = 16;
+  private ObservationSink observationSink; // null if observations aren't recorded
   private final double observationIntervals;
-  private final File observationOutput; // file to output observation csv to
+  private long observationTicks = 0; // observations are made at multiples of the interval
+  private int unflushedObservations = 0;
 
   protected FaaSSimulation(FaaSServer server, List<Function> functions,
       double simulationTimeSeconds, double warmUpPeriod, double observationIntervals,
-      File observationOutput) {
+      ObservationSink observationSink, FutureEventList diary, boolean recycleEvents,
+      ArrivalProcess arrivalProcess, Sampler sampler, boolean commonRandomNumbers,
+      DispatchMode dispatchMode, boolean recordLatencies, double batchLength) {
+    super(diary, recycleEvents);
     this.server = server;
+    server.setClock(this::getTime);
     this.functions = functions;
+    Function.index(functions);
+    this.functionsByIndex = functions.toArray(new Function[0]);
+    this.indexByID = indexByID(functionsByIndex);
+    this.arrivalProcess = arrivalProcess;
+    this.sampler = sampler;
+    int[] ids = new int[functionsByIndex.length];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = functionsByIndex[i].getFunctionID();
+    }
+    sampler.createSubstreams(ids); // each function keeps its variates wherever it is listed
+    this.switchDispatch = dispatchMode == DispatchMode.SWITCH;
+    this.commonRandomNumbers = commonRandomNumbers;
+    this.pendingServiceTimes = commonRandomNumbers ? new double[functionsByIndex.length] : null;
+    this.pendingColdStarts = commonRandomNumbers ? new double[functionsByIndex.length] : null;
+    this.admittedServiceTimes = commonRandomNumbers || arrivalProcess.replaysServiceTimes()
+        ? new double[functionsByIndex.length] : null;
     this.simulationTimeSeconds = simulationTimeSeconds;
     this.warmUpPeriod = warmUpPeriod;
     this.observationIntervals = observationIntervals;
-    this.observationOutput = observationOutput;
+    this.observationSink = observationSink;
+    double measuredPeriod = simulationTimeSeconds - Math.max(warmUpPeriod, 0);
+    this.batchLength = batchLength > 0 ? batchLength : measuredPeriod / DEFAULT_BATCHES;
+
+    if (recordLatencies) {
+      this.latency = new LatencyHistogram(LATENCY_PRECISION_BITS);
+      this.functionLatencies = new LatencyHistogram[functionsByIndex.length];
+      this.arrivalTimes = new double[functionsByIndex.length];
+    } else {
+      this.latency = null;
+      this.functionLatencies = null;
+      this.arrivalTimes = null;
+    }
+  }
 
-    // Define the format of the observations
-    observations.append(
-        "ServerTime,TotalRequests,TotalColdStarts,TotalPromotions,TotalCompletions,TotalRejections\n");
+  private static long[] indexByID(Function[] functionsByIndex) {
+    long[] byID = new long[functionsByIndex.length];
+    for (int i = 0; i < byID.length; i++) {
+      byID[i] = (long) functionsByIndex[i].getFunctionID() << 32 | i;
+    }
+    Arrays.sort(byID);
+    return byID;
+  }
+
+  /**
+   * Also makes the metrics sample the partition sizes of this simulation's server
+   */
+  @Override
+  public void setMetrics(SimulationMetrics metrics) {
+    if (metrics != null) {
+      metrics.watch(server);
+    }
+    super.setMetrics(metrics);
+  }
+
+  /**
+   * Makes every request report to the given profiler from now on, null turns it off
+   */
+  public void setProfiler(ShardsProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public ShardsProfiler getProfiler() {
+    return profiler;
   }
 
   /* Returns the server object */
@@ -55,125 +188,699 @@ public class FaaSSimulation extends Sim {
     return server;
   }
 
+  /* Returns the source of this simulation's random variates */
+  public Sampler getSampler() {
+    return sampler;
+  }
+
+  /* Returns the process generating the requests */
+  public ArrivalProcess getArrivalProcess() {
+    return arrivalProcess;
+  }
+
   /**
-   * Runs the simulation for `simulationTimeSeconds` seconds. Initially, schedules as many functions
-   * into idle memory as possible. Then runs the simulation and optionally saves the output into a
-   * csv
+   * Runs the simulation for `simulationTimeSeconds` seconds. Initially, lets the arrival process
+   * schedule the first requests. Then runs the simulation and closes the observation sink (if
+   * any), which has been written to as the simulation progressed.
    */
   public void runSim() {
-    // for each function, trigger an initial burst of requests in some arbitrary order. This order
-    // doesn't matter initially as it is part of the start-up window we don't care about
-    for (Function f : functions) {
-      schedule(new Request(0, f, this));
+    try {
+      // schedule the first requests
+      start();
+
+      // run simulation
+      go();
+    } finally {
+      // whatever was observed before a failure is still written out
+      closeObservations();
     }
+  }
 
-    // run simulation
-    go();
-
-    // save any observations to the output file (if specified)
-    if (observationOutput != null) {
+  /**
+   * Writes out and closes the observation sink, no observations are recorded afterwards
+   */
+  public void closeObservations() {
+    if (observationSink != null) {
       try {
-        Files.writeString(observationOutput.toPath(), observations.toString());
+        observationSink.close();
       } catch (IOException e) {
         System.err.println("WARNING: " + e);
       }
+      observationSink = null;
     }
   }
 
-  @Override
-  public boolean stop() {
-    return time > simulationTimeSeconds;
+  /**
+   * Runs the simulation up to time `until`, or until it stops if that is sooner. Calling it again
+   * with a later time resumes the simulation, so a run can be inspected while it progresses. Unlike
+   * runSim, the observation sink is left open, see closeObservations.
+   */
+  public void runUntil(double until) {
+    start();
+    goUntil(until);
+  }
+
+  /**
+   * Captures the state of the model, the measures and the random number streams, e.g. once the
+   * warm-up period is over (see runUntil), so that many simulations can be forked from it. Control
+   * events are left out: a simulation restored from the snapshot schedules its own, from its own
+   * configuration. The observation sink, metrics and profiler are not part of the state.
+   *
+   * @throws IllegalStateException if the run has ended
+   */
+  public SimulationSnapshot snapshot() {
+    if (isHalted()) {
+      throw new IllegalStateException("Cannot take a snapshot of a run that has ended");
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeState(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write a snapshot in memory", e);
+    }
+    return new SimulationSnapshot(time, bytes.toByteArray());
+  }
+
+  /**
+   * Carries on from a snapshot instead of from A6's initial state. The simulation must not have
+   * started yet and must have the same functions (in the same order), capacity, seed, arrival
+   * engine and common random numbers setting as the one the snapshot was taken of.
+   * <p>
+   * Its own configuration applies from the time of the snapshot on: the end of the run, the end of
+   * the warm-up if still ahead, observations, the precision target. Batches restored from the
+   * snapshot are carried on, so its batch length must be the same unless the snapshot was taken
+   * before the first batch ended.
+   *
+   * @throws IllegalArgumentException if the snapshot is of an incompatible simulation
+   */
+  public void restore(SimulationSnapshot snapshot) {
+    if (started) {
+      throw new IllegalStateException("Cannot restore a simulation that has started");
+    }
+    try (DataInputStream in = snapshot.open()) {
+      readState(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read the snapshot", e);
+    }
+    restored = true;
+  }
+
+  private static boolean isModelEvent(int kind) {
+    return kind == Request.KIND || kind == Promotion.KIND || kind == Completion.KIND;
+  }
+
+  private void writeState(DataOutput out) throws IOException {
+    out.writeDouble(time);
+    out.writeInt(functions.size());
+    for (Function f : functions) {
+      out.writeInt(f.getFunctionID());
+      f.writeMeasures(out);
+    }
+    out.writeUTF(arrivalProcess.getClass().getName());
+    arrivalProcess.writeState(out);
+    out.writeBoolean(commonRandomNumbers);
+    if (commonRandomNumbers) {
+      for (Function f : functions) {
+        out.writeDouble(pendingServiceTimes[f.getIndex()]);
+        out.writeDouble(pendingColdStarts[f.getIndex()]);
+      }
+    }
+    if (admittedServiceTimes != null) {
+      for (Function f : functions) {
+        out.writeDouble(admittedServiceTimes[f.getIndex()]);
+      }
+    }
+    out.writeBoolean(latency != null);
+    if (latency != null) {
+      latency.writeState(out);
+      for (Function f : functions) {
+        LatencyHistogram functionLatency = functionLatencies[f.getIndex()];
+        out.writeBoolean(functionLatency != null);
+        if (functionLatency != null) {
+          functionLatency.writeState(out);
+        }
+        out.writeDouble(arrivalTimes[f.getIndex()]);
+      }
+    }
+    sampler.writeState(out);
+    server.writeState(out);
+    writePendingEvents(out, FaaSSimulation::isModelEvent);
+
+    out.writeInt(numEvents);
+    out.writeLong(totalRequests);
+    out.writeLong(totalColdStarts);
+    out.writeLong(totalPromotions);
+    out.writeLong(totalCompletions);
+    out.writeLong(totalRejections);
+    out.writeLong(batchStartRequests);
+    out.writeLong(batchStartColdStarts);
+    out.writeLong(batchStartRejections);
+    coldRatioBatches.writeState(out);
+    lossRateBatches.writeState(out);
+  }
+
+  private void readState(DataInput in) throws IOException {
+    time = in.readDouble();
+    int count = in.readInt();
+    if (count != functions.size()) {
+      throw new IllegalArgumentException(
+          "Snapshot of " + count + " functions, not " + functions.size());
+    }
+    for (Function f : functions) {
+      int id = in.readInt();
+      if (id != f.getFunctionID()) {
+        throw new IllegalArgumentException("Snapshot has function " + id + " where "
+            + f.getFunctionID() + " is expected");
+      }
+      f.readMeasures(in);
+    }
+    String arrivals = in.readUTF();
+    if (!arrivals.equals(arrivalProcess.getClass().getName())) {
+      throw new IllegalArgumentException("Snapshot of a simulation with " + arrivals);
+    }
+    arrivalProcess.readState(in);
+    if (in.readBoolean() != commonRandomNumbers) {
+      throw new IllegalArgumentException("Snapshot with common random numbers "
+          + (commonRandomNumbers ? "off" : "on"));
+    }
+    if (commonRandomNumbers) {
+      for (Function f : functions) {
+        pendingServiceTimes[f.getIndex()] = in.readDouble();
+        pendingColdStarts[f.getIndex()] = in.readDouble();
+      }
+    }
+    if (admittedServiceTimes != null) {
+      for (Function f : functions) {
+        admittedServiceTimes[f.getIndex()] = in.readDouble();
+      }
+    }
+    boolean recordedLatencies = in.readBoolean();
+    if (recordedLatencies != (latency != null)) {
+      throw new IllegalArgumentException("Snapshot with latency histograms "
+          + (recordedLatencies ? "on" : "off"));
+    }
+    if (recordedLatencies) {
+      latency.readState(in);
+      for (Function f : functions) {
+        if (in.readBoolean()) {
+          functionLatency(f.getIndex()).readState(in);
+        } else {
+          functionLatencies[f.getIndex()] = null;
+        }
+        arrivalTimes[f.getIndex()] = in.readDouble();
+      }
+    }
+    sampler.readState(in);
+    server.readState(in, functionsByIndex);
+    readPendingEvents(in);
+
+    numEvents = in.readInt();
+    totalRequests = in.readLong();
+    totalColdStarts = in.readLong();
+    totalPromotions = in.readLong();
+    totalCompletions = in.readLong();
+    totalRejections = in.readLong();
+    batchStartRequests = in.readLong();
+    batchStartColdStarts = in.readLong();
+    batchStartRejections = in.readLong();
+    coldRatioBatches.readState(in);
+    lossRateBatches.readState(in);
+  }
+
+  /**
+   * Schedules the control events of the run (its end, the end of the warm-up and the first
+   * observation) and the first requests. A restored simulation already has its requests, and only
+   * schedules the control events still ahead of it.
+   */
+  private void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    if (simulationTimeSeconds < time) {
+      throw new IllegalStateException(
+          "Restored at " + time + ", past the end of the run at " + simulationTimeSeconds);
+    }
+    scheduleHalt(simulationTimeSeconds);
+    if (warmUpPeriod > time && warmUpPeriod < simulationTimeSeconds) {
+      schedule(warmUpPeriod, 0, WarmUpEnd.KIND);
+    }
+    if (observationSink != null) {
+      // the first observation boundary after the warm-up period
+      observationTicks = (long) Math.floor(Math.max(warmUpPeriod, time) / observationIntervals);
+      scheduleNextObservation();
+    }
+    if (batchLength > 0) {
+      batchesStart = Math.max(warmUpPeriod, 0);
+      if (batchesStart + (coldRatioBatches.getCount() + 1) * batchLength < time) {
+        throw new IllegalStateException("The " + coldRatioBatches.getCount()
+            + " batches restored end before " + time + " with batches of " + batchLength + "s");
+      }
+      scheduleNextBatchEnd();
+    }
+    if (!restored) {
+      arrivalProcess.start(this);
+    }
+  }
+
+  private void scheduleNextBatchEnd() {
+    double next = batchesStart + (coldRatioBatches.getCount() + 1) * batchLength;
+    // the last of the default batches may round past the horizon
+    if (next > simulationTimeSeconds && next - simulationTimeSeconds < 1e-9 * batchLength) {
+      next = simulationTimeSeconds;
+    }
+    if (next <= simulationTimeSeconds) {
+      schedule(next, 0, BatchEnd.KIND);
+    }
+  }
+
+  /**
+   * Closes the current batch: its cold start ratio and loss rate become one more sample of the
+   * batch means statistics. See BatchEnd
+   */
+  public void endBatch() {
+    long requests = totalRequests - batchStartRequests;
+    long coldStarts = totalColdStarts - batchStartColdStarts;
+    coldRatioBatches.add(requests == 0 ? 0 : (double) coldStarts / requests);
+    lossRateBatches.add((totalRejections - batchStartRejections) / batchLength);
+
+    batchStartRequests = totalRequests;
+    batchStartColdStarts = totalColdStarts;
+    batchStartRejections = totalRejections;
+    scheduleNextBatchEnd();
+
+    if (precisionTarget != null && isPrecise()) {
+      precisionReached = true;
+      halt();
+    }
+  }
+
+  /**
+   * Ends the run as soon as the relative half-width of the targeted confidence intervals falls
+   * below `relativeHalfWidth` at the end of a batch, after at least `minBatches` batches. The run
+   * still ends at the horizon otherwise.
+   *
+   * @param target            null to always run to the horizon
+   * @param relativeHalfWidth e.g. 0.05 to stop once the intervals are within 5% of their means
+   */
+  public void setPrecisionTarget(PrecisionTarget target, double relativeHalfWidth,
+      int minBatches) {
+    if (minBatches < 2) {
+      throw new IllegalArgumentException("At least 2 batches are needed for an interval");
+    }
+    this.precisionTarget = target;
+    this.relativeHalfWidth = relativeHalfWidth;
+    this.minBatches = minBatches;
+  }
+
+  private boolean isPrecise() {
+    if (coldRatioBatches.getCount() < minBatches) {
+      return false;
+    }
+    boolean coldRatio = coldRatioBatches.relativeHalfWidth(DEFAULT_CONFIDENCE)
+        <= relativeHalfWidth;
+    boolean lossRate = lossRateBatches.relativeHalfWidth(DEFAULT_CONFIDENCE)
+        <= relativeHalfWidth;
+    switch (precisionTarget) {
+      case COLD_RATIO:
+        return coldRatio;
+      case LOSS_RATE:
+        return lossRate;
+      default:
+        return coldRatio && lossRate;
+    }
+  }
+
+  /**
+   * @return true if the run ended early because its intervals were precise enough
+   */
+  public boolean isPrecisionReached() {
+    return precisionReached;
+  }
+
+  private void scheduleNextObservation() {
+    double next = ++observationTicks * observationIntervals;
+    if (next <= simulationTimeSeconds) {
+      schedule(next, 0, ObservationTick.KIND);
+    }
+  }
+
+  /**
+   * With common random numbers on, draws the service time and cold start of a request as soon as it
+   * arrives, whatever then happens to it. The k-th request of a function then always gets the same
+   * variates from the function's substreams, so simulations that only differ in their
+   * configuration (e.g. memory capacity) see exactly the same workload.
+   * <p>
+   * A function serves at most one request at a time, so one pending variate per function is enough.
+   * A request that is let in keeps its service time apart (see nextServiceTime), so that requests
+   * rejected while it loads don't change it.
+   */
+  public void drawRequestVariates(Function function) {
+    if (commonRandomNumbers) {
+      int id = function.getIndex();
+      pendingServiceTimes[id] = serviceTimeSample(function);
+      pendingColdStarts[id] = coldStartSample(function);
+    }
+  }
+
+  /**
+   * @return the service time of the request the function is serving
+   */
+  public double nextServiceTime(Function function) {
+    return admittedServiceTimes != null
+        ? admittedServiceTimes[function.getIndex()]
+        : serviceTimeSample(function);
+  }
+
+  /**
+   * @return the cold start of the request the function is loading for
+   */
+  public double nextColdStart(Function function) {
+    return commonRandomNumbers
+        ? pendingColdStarts[function.getIndex()]
+        : coldStartSample(function);
+  }
+
+  private double serviceTimeSample(Function function) {
+    return sampler.Exponential(Stream.SERVICE, function.getIndex(),
+        function.getServiceRate());
+  }
+
+  private double coldStartSample(Function function) {
+    return sampler.Exponential(Stream.COLD_START, function.getIndex(), coldStartRate);
+  }
+
+  /**
+   * @return the function with the given ID, or null if it isn't part of this simulation
+   */
+  public Function getFunction(int functionID) {
+    int low = 0;
+    int high = indexByID.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int id = (int) (indexByID[middle] >>> 32);
+      if (id < functionID) {
+        low = middle + 1;
+      } else if (id > functionID) {
+        high = middle - 1;
+      } else {
+        return functionsByIndex[(int) indexByID[middle]];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the function at the given index, see Function.index
+   */
+  public Function getFunctionByIndex(int index) {
+    return functionsByIndex[index];
   }
 
   @Override
-  public void tryResetMeasure() {
-    if (warmUp && time > warmUpPeriod) {
-      warmUp = false;
-      // reset all the measures
-      functions.forEach(Function::resetMeasures);
-      observations = new StringBuilder();
-      timeSinceLastObservation = 0;
+  protected void dispatch(byte kind, int subject) {
+    if (switchDispatch) {
+      switch (kind) {
+        case Request.KIND:
+          handleRequest(functionsByIndex[subject]);
+          return;
+        case Promotion.KIND:
+          handlePromotion(functionsByIndex[subject]);
+          return;
+        case Completion.KIND:
+          handleCompletion(functionsByIndex[subject]);
+          return;
+        default:
+          break;
+      }
+    }
+    super.dispatch(kind, subject);
+  }
+
+  /**
+   * A new request for the function arrives now, see Request for the cases
+   */
+  public void handleRequest(Function function) {
+    numEvents++;
+    logNewRequest(function);
+    drawRequestVariates(function);
+    if (profiler != null) {
+      profiler.recordRequest(function);
+    }
+
+    int id = function.getIndex();
+    if (server.isIdle(id)) {
+      admit(function);
+      server.promote(function);
+      schedule(time + nextServiceTime(function), id, Completion.KIND);
+      if (arrivalTimes != null) {
+        arrivalTimes[id] = time;
+      }
+    } else if (server.isUnreserved(id) && server.canEvict()) {
+      if (arrivalTimes != null) {
+        arrivalTimes[id] = time;
+      }
+      admit(function);
+      server.evict();
+      server.enqueueLoading(function);
+      schedule(time + nextColdStart(function), id, Promotion.KIND);
+      logNewColdStart(function);
+    } else {
+      logNewRejection(function);
+    }
+
+    // Let the arrival process schedule whatever request comes next
+    arrivalProcess.next(this, function, time);
+  }
+
+  /**
+   * Keeps the service time of the request the function takes on, if it is already known
+   */
+  private void admit(Function function) {
+    if (admittedServiceTimes != null) {
+      int id = function.getIndex();
+      admittedServiceTimes[id] = arrivalProcess.replaysServiceTimes()
+          ? arrivalProcess.getServiceTime(function)
+          : pendingServiceTimes[id];
     }
   }
 
+  /**
+   * The function has finished loading and starts serving the request that loaded it
+   */
+  public void handlePromotion(Function function) {
+    server.promote(function);
+    logNewPromotion(function);
+    schedule(time + nextServiceTime(function), function.getIndex(), Completion.KIND);
+  }
+
+  /**
+   * The function has finished serving its request and becomes idle
+   */
+  public void handleCompletion(Function function) {
+    server.demote(function);
+    logNewCompletion(function);
+    if (latency != null) {
+      int id = function.getIndex();
+      double responseTime = time - arrivalTimes[id];
+      latency.record(responseTime);
+      functionLatency(id).record(responseTime);
+    }
+  }
+
+  private LatencyHistogram functionLatency(int index) {
+    if (functionLatencies[index] == null) {
+      functionLatencies[index] = new LatencyHistogram(FUNCTION_LATENCY_PRECISION_BITS);
+    }
+    return functionLatencies[index];
+  }
+
   @Override
-  public void tryRecordMeasure() {
-    // check if we should record the current server state
-    if (time - timeSinceLastObservation > observationIntervals) {
-      // update timeSinceLastObservation
-      timeSinceLastObservation = time;
+  protected Event createEvent(double invokeTime, byte kind, int subject) {
+    Function function = functionsByIndex[subject];
+    switch (kind) {
+      case Request.KIND:
+        return new Request(invokeTime, function, this);
+      case Promotion.KIND:
+        return new Promotion(invokeTime, function, this);
+      case Completion.KIND:
+        return new Completion(invokeTime, function, this);
+      case WarmUpEnd.KIND:
+        return new WarmUpEnd(invokeTime, this);
+      case ObservationTick.KIND:
+        return new ObservationTick(invokeTime, this);
+      case BatchEnd.KIND:
+        return new BatchEnd(invokeTime, this);
+      default:
+        throw new IllegalArgumentException("Unknown event kind " + kind);
+    }
+  }
 
-      // save the current server state
-      observations.append(getCurrentSimulationState());
+  /**
+   * Resets all the measures at the end of the warm-up period, see WarmUpEnd
+   */
+  public void resetMeasures() {
+    functions.forEach(Function::resetMeasures);
+    totalRequests = 0;
+    totalColdStarts = 0;
+    totalPromotions = 0;
+    totalCompletions = 0;
+    totalRejections = 0;
+    batchStartRequests = 0;
+    batchStartColdStarts = 0;
+    batchStartRejections = 0;
+    server.resetOccupancy();
+    if (profiler != null) {
+      profiler.reset();
+    }
+    if (latency != null) {
+      latency.reset();
+      for (LatencyHistogram functionLatency : functionLatencies) {
+        if (functionLatency != null) {
+          functionLatency.reset();
+        }
+      }
+    }
+    if (observationSink != null) {
+      try {
+        observationSink.reset();
+      } catch (IOException e) {
+        abandonObservations(e);
+      }
     }
   }
 
+  /**
+   * Records the current server state and schedules the next observation, see ObservationTick
+   */
+  public void recordObservation() {
+    if (observationSink != null) {
+      try {
+        observationSink.record(time, totalRequests, totalColdStarts, totalPromotions,
+            totalCompletions, totalRejections);
+        if (++unflushedObservations == OBSERVATIONS_PER_FLUSH) {
+          observationSink.flush();
+          unflushedObservations = 0;
+        }
+      } catch (IOException e) {
+        abandonObservations(e);
+      }
+    }
+    scheduleNextObservation();
+  }
+
+  /**
+   * A failing sink must not bring down the simulation, so it is closed and observing stops
+   */
+  private void abandonObservations(IOException e) {
+    System.err.println("WARNING: stopped recording observations, " + e);
+    closeObservations();
+  }
+
   public void countEvent() {
     this.numEvents++;
   }
 
+  /* Logging simulation tracking variables, per function and in total */
+
+  public void logNewRequest(Function function) {
+    function.logNewRequest();
+    totalRequests++;
+  }
+
+  public void logNewColdStart(Function function) {
+    function.logNewColdStart();
+    totalColdStarts++;
+  }
+
+  public void logNewPromotion(Function function) {
+    function.logNewPromotion();
+    totalPromotions++;
+  }
+
+  public void logNewCompletion(Function function) {
+    function.logNewCompletion();
+    totalCompletions++;
+  }
+
+  public void logNewRejection(Function function) {
+    function.logNewRejection();
+    totalRejections++;
+  }
+
+  /**
+   * @return response times of every completed request, from its arrival (including any cold
+   * start) to its completion. Null unless latencies are recorded
+   */
+  public LatencyHistogram getLatencyHistogram() {
+    return latency;
+  }
+
+  /**
+   * @return response times of the completed requests for one function, empty if it hasn't
+   * completed any. Null unless latencies are recorded
+   */
+  public LatencyHistogram getLatencyHistogram(int functionID) {
+    Function function = getFunction(functionID);
+    if (functionLatencies == null || function == null) {
+      return null;
+    }
+    LatencyHistogram functionLatency = functionLatencies[function.getIndex()];
+    return functionLatency != null
+        ? functionLatency : new LatencyHistogram(FUNCTION_LATENCY_PRECISION_BITS);
+  }
+
   /**
    * @return total number of requests the system rejected
    */
-  public int getTotalRejections() {
-    return functions
-        .stream()
-        .map(Function::getRejections)
-        .reduce(0, Integer::sum);
+  public long getTotalRejections() {
+    return totalRejections;
   }
 
   /**
    * @return total number of requests the system completed
    */
-  public int getTotalCompletions() {
-    return functions
-        .stream()
-        .map(Function::getCompletions)
-        .reduce(0, Integer::sum);
+  public long getTotalCompletions() {
+    return totalCompletions;
   }
 
   /**
-   * @return total number of requests the system rejected
+   * @return total number of requests that incurred a cold start
    */
-  public int getTotalColdStarts() {
-    return functions
-        .stream()
-        .map(Function::getColdStarts)
-        .reduce(0, Integer::sum);
+  public long getTotalColdStarts() {
+    return totalColdStarts;
   }
 
   /**
    * @return total number of requests the system promoted
    */
-  public int getTotalPromotions() {
-    return functions
-        .stream()
-        .map(Function::getPromotions)
-        .reduce(0, Integer::sum);
+  public long getTotalPromotions() {
+    return totalPromotions;
   }
 
   /**
    * @return total number of requests the system received
    */
-  public int getTotalRequests() {
-    return functions
-        .stream()
-        .map(Function::getRequests)
-        .reduce(0, Integer::sum);
+  public long getTotalRequests() {
+    return totalRequests;
   }
 
   /**
-   * @return returns an array with ret[0] = unbiased cold start, ret[1,2] = 90% confidence bounds
+   * @return batch means confidence interval of the cold start ratio at DEFAULT_CONFIDENCE, see
+   * getColdRatioConfidenceInterval(double)
    */
   public double[] getColdRatioConfidenceInterval() {
-    List<Double> coldStartRatiosPerFunction = new ArrayList<>(functions.size());
-    for (Function f : functions) {
-      if (f.getRequests() != 0) { // if the function was never called
-        coldStartRatiosPerFunction.add((double) f.getColdStarts() / (double) f.getRequests());
-      }
-    }
+    return getColdRatioConfidenceInterval(DEFAULT_CONFIDENCE);
+  }
 
-    return calculateSampleStatistics(getBiasedColdStartRatio(), coldStartRatiosPerFunction);
+  /**
+   * Available at any time during the run, from the batches completed so far
+   *
+   * @return lower bound at 0, mean of the batch cold start ratios at 1, and upper bound at 2. The
+   * bounds are NaN until two batches have completed
+   */
+  public double[] getColdRatioConfidenceInterval(double confidence) {
+    return coldRatioBatches.confidenceInterval(confidence);
   }
 
   /**
@@ -185,52 +892,61 @@ public class FaaSSimulation extends Sim {
 
   /**
    * @return returns a sample mean of the cold starts. For bounds consider
-   * calculateUnbiasedColdStart
+   * getColdRatioConfidenceInterval
    */
   public double getBiasedColdStartRatio() {
     return (double) getTotalColdStarts() / (double) getTotalRequests();
   }
 
   /**
-   * @return returns an array with ret[0] = unbiased loss rate, ret[1,2] = 90% confidence bounds
+   * @return batch means confidence interval of the loss rate at DEFAULT_CONFIDENCE, see
+   * getLossConfidenceInterval(double)
    */
   public double[] getLossConfidenceInterval() {
-    List<Double> lossRatePerFunction = new ArrayList<>(functions.size());
-    for (Function f : functions) {
-      if (f.getRequests() != 0) {
-        lossRatePerFunction.add((double) f.getRejections() / getSimulationTime());
-      }
-    }
-
-    return calculateSampleStatistics(getBiasedLossRate(), lossRatePerFunction);
+    return getLossConfidenceInterval(DEFAULT_CONFIDENCE);
   }
 
-  private double @NotNull [] calculateSampleStatistics(double sampleMean,
-      List<Double> coldStartRatiosPerFunction) {
-    double mseTotal = 0;
-    for (double d : coldStartRatiosPerFunction) {
-      mseTotal += Math.pow(sampleMean - d, 2);
-    }
-
-    double sampleVariance = mseTotal / (functions.size() - 1);
-
-    double sampleSTD = Math.pow(sampleVariance, 0.5);
+  /**
+   * Available at any time during the run, from the batches completed so far
+   *
+   * @return lower bound at 0, mean of the batch loss rates (requests lost per second) at 1, and
+   * upper bound at 2. The bounds are NaN until two batches have completed
+   */
+  public double[] getLossConfidenceInterval(double confidence) {
+    return lossRateBatches.confidenceInterval(confidence);
+  }
 
-    // int degreesOfFreedom = functions.size() - 1;
-    // for the sake of the coursework we'll assume that functions size will always be 10861 so deg
-    // of freedom is 10860 ~ 10,000. For a constant confidence interval of 90%, we need (1 - 0.90) / 2
-    // so student's table for ~10000 degrees of freedom and 0.05.
+  /**
+   * @return cold start ratios of the batches completed so far
+   */
+  public RunningStatistics getColdRatioBatches() {
+    return coldRatioBatches;
+  }
 
-    double t_student = 1.960;
+  /**
+   * @return loss rates of the batches completed so far
+   */
+  public RunningStatistics getLossRateBatches() {
+    return lossRateBatches;
+  }
 
-    return new double[]{
-        sampleMean - t_student * sampleSTD / Math.sqrt(functions.size()),
-        sampleMean,
-        sampleMean + t_student * sampleSTD / Math.sqrt(functions.size())};
+  public double getBatchLength() {
+    return batchLength;
   }
 
+  /**
+   * @return rejections per second over the measured period, see getMeasuredTime
+   */
   public double getBiasedLossRate() {
-    return getTotalRejections() / getSimulationTime();
+    return getTotalRejections() / getMeasuredTime();
+  }
+
+  /**
+   * @return time the measures cover, from the end of the warm-up period if it is over, otherwise
+   * from the start of the run
+   */
+  public double getMeasuredTime() {
+    return warmUpPeriod > 0 && warmUpPeriod <= time ? time - warmUpPeriod : time;
   }
 
   public String getFunctionStatistics() {
@@ -261,7 +977,17 @@ public class FaaSSimulation extends Sim {
         // C_ratio: probability that a request incurs a cold start
         + "C_ratio: " + confidenceIntervalToString(getColdRatioConfidenceInterval()) + "\n"
         // L_rate: the rate at which requests are lost
-        + "L_rate: " + confidenceIntervalToString(getLossConfidenceInterval()) + "\n";
+        + "L_rate: " + confidenceIntervalToString(getLossConfidenceInterval()) + "\n"
+        + "---------\n"
+
+        // time-weighted occupancy of the memory partitions
+        + String.format("Average occupancy: A:%.3f, I:%.3f, L:%.3f%n",
+        server.getAverageActiveSize(), server.getAverageIdleSize(),
+        server.getAverageLoadingSize())
+        + String.format("Fully busy: %.4f of the time%n", server.getFullyBusyFraction())
+        + String.format("Average idle time before eviction: %.3f%n",
+        server.getAverageIdleTimeBeforeEviction())
+        + (latency == null ? "" : "Response time: " + latency + "\n");
   }
 
   public List<Function> getFunctions() {
@@ -3,11 +3,25 @@ package Simulation;
 import FunctionAsAService.Function;
 import FunctionAsAService.Server.FaaSServer;
 import FunctionAsAService.Server.MemoryException;
+import Samplers.ExponentialMethod;
+import Samplers.Sampler;
+import Simulation.Arrival.ArrivalEngine;
+import Simulation.Arrival.ArrivalProcess;
+import Simulation.Arrival.TraceReplayArrivals;
+import Simulation.Diary.FutureEventListType;
+import Simulation.Observation.BinaryObservationWriter;
+import Simulation.Observation.CsvObservationWriter;
+import Simulation.Observation.ObservationSink;
+import Simulation.Observation.ShardsProfiler;
+import Simulation.Observation.SimulationMetrics;
+import Traces.BinaryTrace;
+import Traces.InvocationTrace;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
@@ -16,13 +30,46 @@ import org.jetbrains.annotations.NotNull;
  * <p>
  * Important to note, there are several routes to take with creating a FaaSSimulation.
  * <ol>
- * <li> present your own list of functions, or choose to populate it from an input CSV file.</li>
+ * <li> present your own list of functions, or choose to populate it from an input CSV file or a
+ * binary trace.</li>
  * <li> present your own memory object, or choose to populate it from scratch with its constructor
  * parameters (memory) </li>
  * <li> you may choose to opt into populating the memory with idle functions before running the
  * simulation, although you need to make sure that functions and memory are not null beforehand</li>
  * <li>Optionally, you may choose to set the observation window. If left uncalled, the simulation
- * will start and observations will happen every Integer.MAX_INT (i.e. never)</li>
+ * will start and observations will happen every Integer.MAX_INT (i.e. never). Observations are
+ * streamed to a CSV or binary log file, or to your own ObservationSink, as the simulation
+ * runs.</li>
+ * <li>Optionally, you may choose the future event list engine. If left uncalled, the simulation
+ * uses a heap.</li>
+ * <li>Optionally, you may turn off event recycling, so every invoked event is a fresh object.</li>
+ * <li>Optionally, you may choose the arrival engine. If left uncalled, every function schedules its
+ * own requests. Alternatively, you may replay the invocations of an InvocationTrace, streamed
+ * from the file as the simulation runs.</li>
+ * <li>Optionally, you may set the seed of the simulation's random number generator. If left
+ * uncalled, Sampler.DEFAULT_SEED is used.</li>
+ * <li>Optionally, you may choose how exponential variates are generated. If left uncalled, the
+ * ziggurat method is used.</li>
+ * <li>Optionally, you may turn on common random numbers, so that every request draws its service
+ * time and cold start when it arrives. Simulations with the same seed then see the same workload
+ * whatever their capacity, at the cost of two extra draws per request.</li>
+ * <li>Optionally, you may choose how events are dispatched. If left uncalled, model events are
+ * handled by a switch over their kind.</li>
+ * <li>Optionally, you may attach SimulationMetrics to follow the event loop while it runs. If left
+ * uncalled, the event loop keeps no metrics.</li>
+ * <li>Optionally, you may record response time histograms, globally and per function. They are
+ * allocated up front, about 4KB per function.</li>
+ * <li>Optionally, you may set the simulated length of the batches the confidence intervals are
+ * computed over. If left uncalled, the period after the warm-up is split into
+ * FaaSSimulation.DEFAULT_BATCHES batches.</li>
+ * <li>Optionally, you may end the run as soon as its confidence intervals are precise enough,
+ * checked at the end of every batch. The simulation time then only caps the run. If left uncalled,
+ * the run always lasts the whole simulation time.</li>
+ * <li>Optionally, you may profile the reuse distances of the requests, which approximates the cold
+ * start ratio of every capacity from this single run. If left uncalled, nothing is profiled.</li>
+ * <li>Optionally, you may start from a SimulationSnapshot rather than from A6's initial state,
+ * e.g. to fork several simulations from one warm-up or to resume a run. The functions and memory
+ * must then match those of the snapshot, and the memory need not be filled.</li>
  * </ol>
  */
 public class FaaSSimulationBuilder {
@@ -31,8 +78,26 @@ public class FaaSSimulationBuilder {
   private List<Function> functions = null;
   private double simulationTimeSeconds = 0.0;
   private File observationOutput = null;
+  private boolean binaryObservations = false;
+  private ObservationSink observationSink = null;
   private double observationIntervals = Integer.MAX_VALUE;
   private double warmUpPeriod = Integer.MIN_VALUE;
+  private FutureEventListType futureEventList = FutureEventListType.HEAP;
+  private boolean recycleEvents = true;
+  private ArrivalEngine arrivalEngine = null; // ArrivalEngine.PER_FUNCTION if left unset
+  private File invocationTrace = null; // replayed instead of an arrival engine if set
+  private long seed = Sampler.DEFAULT_SEED;
+  private ExponentialMethod exponentialMethod = ExponentialMethod.ZIGGURAT;
+  private boolean commonRandomNumbers = false;
+  private DispatchMode dispatchMode = DispatchMode.SWITCH;
+  private SimulationMetrics metrics = null;
+  private boolean recordLatencies = false;
+  private double batchLength = 0;
+  private PrecisionTarget precisionTarget = null;
+  private double relativeHalfWidth = 0;
+  private int minBatches = FaaSSimulation.DEFAULT_MIN_BATCHES;
+  private ShardsProfiler profiler = null;
+  private SimulationSnapshot snapshot = null;
 
   public static FaaSSimulationBuilder createFaaSSimBuilder() {
     return new FaaSSimulationBuilder();
@@ -48,11 +113,32 @@ public class FaaSSimulationBuilder {
     return this;
   }
 
+  /**
+   * @param checked false to skip the MemoryException checks on every transition of the server
+   */
+  public FaaSSimulationBuilder withMemoryCapacity(int capacity, boolean checked) {
+    this.faaSServer = new FaaSServer(capacity, checked);
+    return this;
+  }
+
   public FaaSSimulationBuilder withFunctions(List<Function> functions) {
     this.functions = functions;
     return this;
   }
 
+  /**
+   * Uses fresh copies of the given functions, so that several simulations can share one parsed
+   * trace without sharing their counters
+   */
+  public FaaSSimulationBuilder withFreshFunctions(List<Function> trace) {
+    List<Function> copies = new ArrayList<>(trace.size());
+    for (Function f : trace) {
+      copies.add(new Function(f));
+    }
+    this.functions = copies;
+    return this;
+  }
+
   public FaaSSimulationBuilder withFunctionsFromCSV(File pathToCSV) throws IOException {
     this.functions = parseCSV(pathToCSV);
     return this;
@@ -62,10 +148,19 @@ public class FaaSSimulationBuilder {
     return withFunctionsFromCSV(new File(pathToCSV));
   }
 
-  private static @NotNull List<Function> parseCSV(File fp) throws IOException {
+  /**
+   * Reads the functions from a memory-mapped BinaryTrace, see Traces.TraceConverter to create one
+   * from a CSV file
+   */
+  public FaaSSimulationBuilder withFunctionsFromBinaryTrace(File pathToTrace) throws IOException {
+    this.functions = BinaryTrace.read(pathToTrace);
+    return this;
+  }
+
+  public static @NotNull List<Function> parseCSV(File fp) throws IOException {
     FileReader fr = new FileReader(fp);
     BufferedReader br = new BufferedReader(fr);
-    List<Function> functions = new LinkedList<>();
+    List<Function> functions = new ArrayList<>();
 
     String line = br.readLine(); // ignore the heading (assume correct format)
     while ((line = br.readLine()) != null) {
@@ -90,8 +185,20 @@ public class FaaSSimulationBuilder {
   }
 
   public FaaSSimulation createFaaSSimulation() {
-    return new FaaSSimulation(faaSServer, functions, simulationTimeSeconds, warmUpPeriod,
-        observationIntervals, observationOutput);
+    FaaSSimulation simulation = new FaaSSimulation(faaSServer, functions, simulationTimeSeconds,
+        warmUpPeriod, observationIntervals, createObservationSink(), futureEventList.create(),
+        recycleEvents, createArrivalProcess(),
+        new Sampler(seed, exponentialMethod), commonRandomNumbers, dispatchMode,
+        recordLatencies, batchLength);
+    simulation.setMetrics(metrics);
+    simulation.setProfiler(profiler);
+    if (snapshot != null) {
+      simulation.restore(snapshot);
+    }
+    if (precisionTarget != null) {
+      simulation.setPrecisionTarget(precisionTarget, relativeHalfWidth, minBatches);
+    }
+    return simulation;
   }
 
   public FaaSSimulationBuilder withFullIdleMemory() {
@@ -101,17 +208,176 @@ public class FaaSSimulationBuilder {
     if (functions == null) {
       throw new MemoryException("Cannot fill memory with idle functions as functions is null");
     }
+    Function.index(functions); // as the simulation will, so the server's tables match its own
     faaSServer.fillMemory(functions);
     return this;
   }
 
+  /**
+   * Streams the observations to a CSV file
+   */
   public FaaSSimulationBuilder withObservationLogFile(File observationOutput) {
     this.observationOutput = observationOutput;
+    this.binaryObservations = false;
+    this.observationSink = null;
+    return this;
+  }
+
+  /**
+   * Streams the observations to a file of BinaryObservationWriter records
+   */
+  public FaaSSimulationBuilder withBinaryObservationLogFile(File observationOutput) {
+    this.observationOutput = observationOutput;
+    this.binaryObservations = true;
+    this.observationSink = null;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withObservationSink(ObservationSink observationSink) {
+    this.observationSink = observationSink;
+    this.observationOutput = null;
     return this;
   }
 
+  private ObservationSink createObservationSink() {
+    if (observationOutput == null) {
+      return observationSink;
+    }
+    try {
+      return binaryObservations
+          ? new BinaryObservationWriter(observationOutput)
+          : new CsvObservationWriter(observationOutput);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open " + observationOutput, e);
+    }
+  }
+
   public FaaSSimulationBuilder withWarmUpPeriod(double warmUpPeriodSeconds) {
     this.warmUpPeriod = warmUpPeriodSeconds;
     return this;
   }
-}
\ No newline at end of file
+
+  public FaaSSimulationBuilder withFutureEventList(FutureEventListType futureEventList) {
+    this.futureEventList = futureEventList;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withEventRecycling(boolean recycleEvents) {
+    this.recycleEvents = recycleEvents;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withArrivalEngine(ArrivalEngine arrivalEngine) {
+    this.arrivalEngine = arrivalEngine;
+    return this;
+  }
+
+  /**
+   * Replays the invocations of the trace instead of generating arrivals, see TraceReplayArrivals.
+   * Every simulation created opens the trace again, from its first invocation. An arrival engine
+   * may not be chosen as well
+   *
+   * @throws IOException if the file isn't an invocation trace, see Traces.TraceConverter to create
+   *                     one from a CSV file
+   */
+  public FaaSSimulationBuilder withTraceReplay(File pathToInvocations) throws IOException {
+    InvocationTrace.open(pathToInvocations); // fail here rather than in createFaaSSimulation
+    this.invocationTrace = pathToInvocations;
+    return this;
+  }
+
+  private ArrivalProcess createArrivalProcess() {
+    if (invocationTrace == null) {
+      return (arrivalEngine == null ? ArrivalEngine.PER_FUNCTION : arrivalEngine).create(functions);
+    }
+    if (arrivalEngine != null) {
+      throw new IllegalStateException("Cannot use the " + arrivalEngine
+          + " arrival engine while replaying " + invocationTrace);
+    }
+    try {
+      return new TraceReplayArrivals(InvocationTrace.open(invocationTrace));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open " + invocationTrace, e);
+    }
+  }
+
+  public FaaSSimulationBuilder withSeed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withExponentialMethod(ExponentialMethod exponentialMethod) {
+    this.exponentialMethod = exponentialMethod;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withCommonRandomNumbers(boolean commonRandomNumbers) {
+    this.commonRandomNumbers = commonRandomNumbers;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withDispatchMode(DispatchMode dispatchMode) {
+    this.dispatchMode = dispatchMode;
+    return this;
+  }
+
+  public FaaSSimulationBuilder withMetrics(SimulationMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Records the response time of every completed request, see FaaSSimulation.getLatencyHistogram.
+   * Each function that completes a request also gets its own histogram of about 4 KB
+   */
+  public FaaSSimulationBuilder withLatencyHistograms(boolean recordLatencies) {
+    this.recordLatencies = recordLatencies;
+    return this;
+  }
+
+  /**
+   * @param batchLengthSeconds simulated time of every batch, long enough for consecutive batches to
+   *                           be roughly independent
+   */
+  public FaaSSimulationBuilder withBatchLength(double batchLengthSeconds) {
+    this.batchLength = batchLengthSeconds;
+    return this;
+  }
+
+  /**
+   * Ends the run once the relative half-width of the targeted intervals falls below the threshold,
+   * see FaaSSimulation.setPrecisionTarget
+   *
+   * @param relativeHalfWidth e.g. 0.05 to stop once the intervals are within 5% of their means
+   */
+  public FaaSSimulationBuilder withPrecisionTarget(PrecisionTarget target,
+      double relativeHalfWidth) {
+    this.precisionTarget = target;
+    this.relativeHalfWidth = relativeHalfWidth;
+    return this;
+  }
+
+  /**
+   * @param minBatches batches to complete before the precision target is checked, at least 2
+   */
+  public FaaSSimulationBuilder withMinimumBatches(int minBatches) {
+    this.minBatches = minBatches;
+    return this;
+  }
+
+  /**
+   * Records the reuse distance of every request, see ShardsProfiler.getMissRatioCurve
+   */
+  public FaaSSimulationBuilder withProfiler(ShardsProfiler profiler) {
+    this.profiler = profiler;
+    return this;
+  }
+
+  /**
+   * Restores the simulation from the snapshot, see FaaSSimulation.restore
+   */
+  public FaaSSimulationBuilder withSnapshot(SimulationSnapshot snapshot) {
+    this.snapshot = snapshot;
+    return this;
+  }
+}
@@ -0,0 +1,72 @@
+package Simulation.Observation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes observations as fixed size little endian records, a third of the size of the CSV lines
+ * and without any formatting:
+ * <ol>
+ * <li>header: magic "FOBS" (int), format version (int)</li>
+ * <li>one record per observation: time (double), then requests, cold starts, promotions,
+ * completions and rejections (longs)</li>
+ * </ol>
+ */
+public class BinaryObservationWriter extends ChannelWriter {
+
+  public static final int MAGIC = 0x464F4253; // "FOBS"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+  private static final int RECORD_BYTES = Double.BYTES + 5 * Long.BYTES;
+
+  public BinaryObservationWriter(File file) throws IOException {
+    super(file);
+    buffer.putInt(MAGIC).putInt(VERSION);
+    writeHeader();
+  }
+
+  @Override
+  public void record(double time, long requests, long coldStarts, long promotions,
+      long completions, long rejections) throws IOException {
+    ensureRemaining(RECORD_BYTES);
+    buffer.putDouble(time)
+        .putLong(requests)
+        .putLong(coldStarts)
+        .putLong(promotions)
+        .putLong(completions)
+        .putLong(rejections);
+  }
+
+  /**
+   * @return every observation of the file as {time, requests, cold starts, promotions,
+   * completions, rejections}
+   * @throws IOException if the file isn't a binary observation file of this version
+   */
+  public static List<double[]> read(File file) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    if (bytes.remaining() < HEADER_BYTES || bytes.getInt() != MAGIC
+        || bytes.getInt() != VERSION) {
+      throw new IOException(file + " is not a binary observation file");
+    }
+    if (bytes.remaining() % RECORD_BYTES != 0) {
+      throw new IOException(file + " ends with a partial record");
+    }
+    List<double[]> observations = new ArrayList<>(bytes.remaining() / RECORD_BYTES);
+    while (bytes.hasRemaining()) {
+      double[] observation = new double[6];
+      observation[0] = bytes.getDouble();
+      for (int i = 1; i < observation.length; i++) {
+        observation[i] = bytes.getLong();
+      }
+      observations.add(observation);
+    }
+    return observations;
+  }
+}
@@ -0,0 +1,69 @@
+package Simulation.Observation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed size buffer in front of a file channel, shared by the observation writers. The buffer is
+ * written out whenever it fills up, so memory use doesn't depend on how much is written.
+ */
+abstract class ChannelWriter implements ObservationSink {
+
+  static final int BUFFER_BYTES = 64 * 1024;
+
+  private final FileChannel channel;
+  protected final ByteBuffer buffer;
+  private long headerBytes = 0;
+
+  ChannelWriter(File file) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Writes the header, which survives any reset
+   */
+  protected void writeHeader() throws IOException {
+    flush();
+    headerBytes = channel.position();
+  }
+
+  /**
+   * Makes room for at least `bytes` more bytes in the buffer
+   */
+  protected void ensureRemaining(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  @Override
+  public void reset() throws IOException {
+    buffer.clear();
+    channel.truncate(headerBytes);
+    channel.position(headerBytes);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package Simulation.Observation;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes observations as CSV lines of the form
+ * ServerTime,TotalRequests,TotalColdStarts,TotalPromotions,TotalCompletions,TotalRejections
+ * <p>
+ * Each line is formatted into a reused StringBuilder and copied into the channel buffer as ASCII,
+ * so recording creates no garbage.
+ */
+public class CsvObservationWriter extends ChannelWriter {
+
+  public static final String HEADER =
+      "ServerTime,TotalRequests,TotalColdStarts,TotalPromotions,TotalCompletions,TotalRejections\n";
+
+  private final StringBuilder line = new StringBuilder(128);
+
+  public CsvObservationWriter(File file) throws IOException {
+    super(file);
+    line.append(HEADER);
+    writeLine();
+    writeHeader();
+  }
+
+  @Override
+  public void record(double time, long requests, long coldStarts, long promotions,
+      long completions, long rejections) throws IOException {
+    line.setLength(0);
+    line.append(time).append(',')
+        .append(requests).append(',')
+        .append(coldStarts).append(',')
+        .append(promotions).append(',')
+        .append(completions).append(',')
+        .append(rejections).append('\n');
+    writeLine();
+  }
+
+  private void writeLine() throws IOException {
+    ensureRemaining(line.length());
+    for (int i = 0; i < line.length(); i++) {
+      buffer.put((byte) line.charAt(i)); // digits, signs, '.', 'E' and ',' are all ASCII
+    }
+  }
+}
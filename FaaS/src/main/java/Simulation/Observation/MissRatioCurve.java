@@ -0,0 +1,132 @@
+package Simulation.Observation;
+
+/**
+ * Approximate cold start ratio of every memory capacity, from the reuse distances profiled by a
+ * ShardsProfiler.
+ * <p>
+ * The curve is the miss ratio of an LRU memory where every function can be evicted at any time.
+ * The server only evicts idle functions, and rejects a request rather than cold starting it when
+ * none is idle (A1), so the curve is only trusted where that rarely matters:
+ * <ul>
+ * <li>the busy functions, about sum rho / (1 + rho) over the functions, take up a small part of
+ * the memory. With less memory requests are rejected instead of cold started, and the real cold
+ * start ratio falls below the curve</li>
+ * <li>enough tracked functions fit in the capacity once scaled down by the sampling rate, below
+ * that the curve moves in steps of 1 / rate</li>
+ * </ul>
+ * isReliable tells whether a capacity meets both.
+ */
+public final class MissRatioCurve {
+
+  /* A capacity is reliable if the busy functions take at most this fraction of it */
+  public static final double MAX_BUSY_FRACTION = 0.1;
+  /* and if it holds at least this many tracked functions, unless every function is tracked */
+  public static final int MIN_SAMPLED_FUNCTIONS = 64;
+
+  /* What smallestCapacity returns when the capacity it finds isn't reliable */
+  public static final int UNRELIABLE = -2;
+
+  private final double samplingRate;
+  private final double busySlots;
+  private final double requests;
+  private final double[] misses; // misses[d]: requests with a sampled distance of d or more
+
+  MissRatioCurve(double[] distances, double coldMisses, double requests, double samplingRate,
+      double busySlots) {
+    this.samplingRate = samplingRate;
+    this.busySlots = busySlots;
+    this.requests = requests;
+    this.misses = new double[distances.length + 1];
+    misses[distances.length] = coldMisses;
+    for (int d = distances.length - 1; d >= 0; d--) {
+      misses[d] = misses[d + 1] + distances[d];
+    }
+  }
+
+  /**
+   * @return approximate cold start ratio of an LRU memory holding `capacity` functions
+   */
+  public double getMissRatio(int capacity) {
+    if (requests == 0) {
+      return Double.NaN;
+    }
+    // hits are the sampled distances below capacity * rate, interpolated between two distances
+    double scaled = capacity * samplingRate;
+    int below = (int) scaled;
+    double missed = below >= misses.length - 1
+        ? misses[misses.length - 1]
+        : misses[below] + (scaled - below) * (misses[below + 1] - misses[below]);
+    // more requests than expected may be sampled, see ShardsProfiler.getMissRatioCurve
+    return Math.min(1, missed / requests);
+  }
+
+  /**
+   * @return smallest capacity whose miss ratio is at most the target, -1 if the cold misses alone
+   * exceed it, or UNRELIABLE if that capacity is below getSmallestReliableCapacity, where the curve
+   * can't be trusted to approximate the cold start ratio
+   */
+  public int smallestCapacity(double targetMissRatio) {
+    int high = getLargestCapacity();
+    if (!(getMissRatio(high) <= targetMissRatio)) {
+      return -1;
+    }
+    int low = 0; // invariant: low misses the target, high meets it
+    while (high - low > 1) {
+      int middle = (low + high) >>> 1;
+      if (getMissRatio(middle) <= targetMissRatio) {
+        high = middle;
+      } else {
+        low = middle;
+      }
+    }
+    return isReliable(high) ? high : UNRELIABLE;
+  }
+
+  /**
+   * @return true if the curve is a fair approximation of the cold start ratio at this capacity
+   */
+  public boolean isReliable(int capacity) {
+    return busySlots <= MAX_BUSY_FRACTION * capacity
+        && capacity * samplingRate >= Math.min(capacity, MIN_SAMPLED_FUNCTIONS);
+  }
+
+  /**
+   * @return smallest reliable capacity, see isReliable
+   */
+  public int getSmallestReliableCapacity() {
+    return (int) Math.ceil(Math.max(busySlots / MAX_BUSY_FRACTION,
+        samplingRate < 1 ? MIN_SAMPLED_FUNCTIONS / samplingRate : 1));
+  }
+
+  /**
+   * @return capacity past which the curve stays flat, with only the cold misses left
+   */
+  public int getLargestCapacity() {
+    return (int) Math.ceil((misses.length - 1) / samplingRate);
+  }
+
+  /**
+   * @return estimated number of functions busy at any time, loading times left out
+   */
+  public double getBusySlots() {
+    return busySlots;
+  }
+
+  public double getSamplingRate() {
+    return samplingRate;
+  }
+
+  /**
+   * @return number of requests the curve is based on, estimated from the sampled ones
+   */
+  public double getRequests() {
+    return requests / samplingRate;
+  }
+
+  @Override
+  public String toString() {
+    return "Miss ratio curve of ~" + Math.round(getRequests()) + " requests, sampling rate "
+        + samplingRate + ", ~" + Math.round(busySlots) + " busy functions, reliable from M = "
+        + getSmallestReliableCapacity();
+  }
+}
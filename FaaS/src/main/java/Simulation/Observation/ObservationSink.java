@@ -0,0 +1,28 @@
+package Simulation.Observation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the periodic observations of a simulation's running totals. Observations are
+ * handed over one at a time as the simulation progresses, so a sink can write them out
+ * incrementally and never has to hold the whole time series.
+ */
+public interface ObservationSink extends Closeable {
+
+  /**
+   * Records the state of the simulation at `time`
+   */
+  void record(double time, long requests, long coldStarts, long promotions, long completions,
+      long rejections) throws IOException;
+
+  /**
+   * Discards every observation recorded so far, e.g. the ones made during the warm-up period
+   */
+  void reset() throws IOException;
+
+  /**
+   * Writes out any buffered observation
+   */
+  void flush() throws IOException;
+}
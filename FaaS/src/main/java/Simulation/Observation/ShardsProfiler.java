@@ -0,0 +1,243 @@
+package Simulation.Observation;
+
+import FunctionAsAService.Function;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Profiles the reuse distances of the requests of a single run, to approximate the cold start
+ * ratio of every memory capacity at once (a miss ratio curve), see MissRatioCurve.
+ * <p>
+ * The memory is seen as an LRU cache of functions: the reuse distance of a request is the number
+ * of other functions requested since the previous request for the same function, and an LRU
+ * memory of capacity M would miss exactly the requests with a distance of M or more. Requests
+ * arrive whatever the state of the server, so a run of any capacity profiles all of them.
+ * <p>
+ * Distances are computed with SHARDS (Waldspurger et al., FAST '15): only the functions whose
+ * hashed ID falls below a threshold are tracked, so the distances measured among them are a
+ * sample scaled down by the sampling rate. At most maxFunctions functions are tracked; when one
+ * more is requested, the one with the largest hash is dropped and the threshold lowered to it,
+ * which keeps the memory bounded however many functions the trace has.
+ */
+public final class ShardsProfiler {
+
+  public static final int DEFAULT_MAX_FUNCTIONS = 8192;
+
+  private static final long HASH_RANGE = 1L << 32;
+
+  private final int maxFunctions;
+  private long threshold; // a function is tracked while its hash is below it
+
+  /* Tracked functions, by function ID: their slot in the arrays below */
+  private final Map<Integer, Integer> slots = new HashMap<>();
+  private final PriorityQueue<Integer> byHash; // slots, largest hash first
+  private final long[] hashes;
+  private final int[] lastRequest; // position in the Fenwick tree of the last request
+  private final int[] functionIDs;
+  private final double[] busy; // probability the function is busy, rho / (1 + rho)
+  private int[] freeSlots;
+  private int free;
+  private double trackedBusy = 0;
+
+  /* Fenwick tree over request positions, marking the last request of every tracked function */
+  private int[] tree;
+  private int clock = 0;
+
+  /* Histogram of the sampled distances, in requests at the current sampling rate */
+  private double[] distances;
+  private double coldMisses = 0; // first requests seen for a tracked function
+  private long requests = 0; // sampled or not
+
+  public ShardsProfiler() {
+    this(1.0, DEFAULT_MAX_FUNCTIONS);
+  }
+
+  /**
+   * @param samplingRate initial fraction of the functions tracked, lowered as needed to track at
+   *                     most maxFunctions
+   * @param maxFunctions largest number of functions tracked at a time
+   */
+  public ShardsProfiler(double samplingRate, int maxFunctions) {
+    if (samplingRate <= 0 || samplingRate > 1) {
+      throw new IllegalArgumentException("Sampling rate must be in (0, 1], got " + samplingRate);
+    }
+    if (maxFunctions < 1) {
+      throw new IllegalArgumentException("Must track at least one function");
+    }
+    this.maxFunctions = maxFunctions;
+    this.threshold = (long) Math.ceil(samplingRate * HASH_RANGE);
+    this.hashes = new long[maxFunctions];
+    this.lastRequest = new int[maxFunctions];
+    this.functionIDs = new int[maxFunctions];
+    this.busy = new double[maxFunctions];
+    this.byHash = new PriorityQueue<>(maxFunctions,
+        (a, b) -> Long.compare(hashes[b], hashes[a]));
+    this.freeSlots = new int[maxFunctions];
+    for (int slot = 0; slot < maxFunctions; slot++) {
+      freeSlots[slot] = maxFunctions - 1 - slot;
+    }
+    this.free = maxFunctions;
+    this.tree = new int[4 * maxFunctions + 1];
+    this.distances = new double[maxFunctions];
+  }
+
+  /**
+   * @return fraction of the functions currently tracked
+   */
+  public double getSamplingRate() {
+    return (double) threshold / HASH_RANGE;
+  }
+
+  /**
+   * Records a request for the function
+   */
+  public void recordRequest(Function function) {
+    requests++;
+    int id = function.getFunctionID();
+    long hash = hash(id);
+    if (hash >= threshold) {
+      return;
+    }
+    if (clock == tree.length - 1) {
+      compact();
+    }
+
+    Integer slot = slots.get(id);
+    if (slot != null) {
+      int last = lastRequest[slot];
+      // tracked functions requested since, each marked once at its last request
+      int distance = prefixSum(clock) - prefixSum(last);
+      add(last, -1);
+      distances[distance] += 1;
+    } else {
+      if (free == 0) {
+        if (hash > hashes[byHash.peek()]) {
+          lowerThreshold(hash); // the function would be dropped right away
+          return;
+        }
+        lowerThreshold(hashes[byHash.peek()]);
+      }
+      slot = freeSlots[--free];
+      slots.put(id, slot);
+      hashes[slot] = hash;
+      functionIDs[slot] = id;
+      double utilisation = function.getArrivalRate() / function.getServiceRate();
+      busy[slot] = utilisation / (1 + utilisation);
+      trackedBusy += busy[slot];
+      byHash.add(slot);
+      coldMisses += 1;
+    }
+
+    clock++;
+    lastRequest[slot] = clock;
+    add(clock, 1);
+  }
+
+  /**
+   * Forgets the requests recorded so far, e.g. at the end of the warm-up period, but keeps
+   * tracking the functions so later requests still see their reuse distances
+   */
+  public void reset() {
+    Arrays.fill(distances, 0);
+    coldMisses = 0;
+    requests = 0;
+  }
+
+  /**
+   * Requests for a few functions dominate real traces, so whether they are sampled or not swings
+   * the number of sampled requests far from its expectation. As in SHARDS-adj, the difference is
+   * put down to hits at the shortest distance: the curve is a fraction of all the requests, scaled
+   * by the sampling rate, rather than of the sampled ones.
+   *
+   * @return miss ratio curve of the requests recorded since the last reset
+   */
+  public MissRatioCurve getMissRatioCurve() {
+    double rate = getSamplingRate();
+    return new MissRatioCurve(distances.clone(), coldMisses, requests * rate, rate,
+        trackedBusy / rate);
+  }
+
+  /**
+   * Drops every tracked function with a hash at or above the new threshold, and rescales what was
+   * recorded at the previous rate to the new one
+   */
+  private void lowerThreshold(long newThreshold) {
+    double scale = (double) newThreshold / threshold;
+    threshold = newThreshold;
+    while (!byHash.isEmpty() && hashes[byHash.peek()] >= threshold) {
+      int slot = byHash.poll();
+      slots.remove(functionIDs[slot]);
+      add(lastRequest[slot], -1);
+      trackedBusy -= busy[slot];
+      freeSlots[free++] = slot;
+    }
+
+    // a sampled distance d at the old rate is a distance d * scale at the new one
+    double[] rescaled = new double[distances.length];
+    for (int d = 0; d < distances.length; d++) {
+      if (distances[d] == 0) {
+        continue;
+      }
+      double target = d * scale;
+      int below = (int) target;
+      double fraction = target - below;
+      rescaled[below] += distances[d] * scale * (1 - fraction);
+      if (fraction > 0) {
+        rescaled[below + 1] += distances[d] * scale * fraction;
+      }
+    }
+    distances = rescaled;
+    coldMisses *= scale;
+  }
+
+  /**
+   * Renumbers the last requests of the tracked functions from 1, in order, once the tree is full
+   */
+  private void compact() {
+    int tracked = maxFunctions - free;
+    Integer[] order = new Integer[tracked];
+    int i = 0;
+    for (int slot : slots.values()) {
+      order[i++] = slot;
+    }
+    Arrays.sort(order, (a, b) -> Integer.compare(lastRequest[a], lastRequest[b]));
+    Arrays.fill(tree, 0);
+    clock = 0;
+    for (int slot : order) {
+      clock++;
+      lastRequest[slot] = clock;
+      add(clock, 1);
+    }
+  }
+
+  private void add(int position, int delta) {
+    for (int i = position; i < tree.length; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+
+  private int prefixSum(int position) {
+    int sum = 0;
+    for (int i = position; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  /**
+   * @return uniformly spread 32-bit hash of a function ID, so that the tracked functions are a
+   * random sample of IDs whatever their order
+   */
+  static long hash(int id) {
+    // the finaliser of MurmurHash3
+    int h = id;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h & 0xffffffffL;
+  }
+}
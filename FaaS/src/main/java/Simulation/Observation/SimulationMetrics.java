@@ -0,0 +1,239 @@
+package Simulation.Observation;
+
+import FunctionAsAService.Server.FaaSServer;
+import Simulation.Event.Completion;
+import Simulation.Event.Promotion;
+import Simulation.Event.Request;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live metrics of a running event loop, meant to be read from another thread (a progress
+ * printer, a JMX bean, a debugger) while a long run is in progress.
+ * <p>
+ * The event loop only touches plain fields: a counter per event kind and the diary high-water
+ * mark. Every SAMPLE_INTERVAL events, and whenever the loop stops, they are published together
+ * with the clocks and the partition sizes of the server being watched, so readers see values that
+ * are at most SAMPLE_INTERVAL events old. Publishing can also commit a SimulationSampleEvent to
+ * Java Flight Recorder, where it is recorded only while a recording has it enabled.
+ * <p>
+ * A simulation without metrics skips all of this behind a single null check.
+ */
+public final class SimulationMetrics {
+
+  public static final int SAMPLE_INTERVAL = 1 << 12;
+
+  private static final int KINDS = 128;
+
+  private final boolean flightRecorderEvents;
+  private FaaSServer server;
+
+  /* Owned by the event loop */
+  private final long[] events = new long[KINDS];
+  private long totalEvents = 0;
+  private int diaryHighWater = 0;
+  private int untilSample = SAMPLE_INTERVAL;
+  private boolean started = false;
+  private long startNanos;
+  private double startTime;
+  private long sampleEvents; // totalEvents at the previous sample
+  private long sampleNanos;
+
+  /* Published for readers */
+  private final AtomicLongArray publishedEvents = new AtomicLongArray(KINDS);
+  private volatile long publishedTotal;
+  private volatile int publishedHighWater;
+  private volatile double publishedTime;
+  private volatile double eventsPerSecond;
+  private volatile double recentEventsPerSecond;
+  private volatile double simulatedPerWallSecond;
+  private volatile int activeSize;
+  private volatile int idleSize;
+  private volatile int loadingSize;
+
+  public SimulationMetrics() {
+    this(false);
+  }
+
+  /**
+   * @param flightRecorderEvents true to commit a SimulationSampleEvent on every sample
+   */
+  public SimulationMetrics(boolean flightRecorderEvents) {
+    this.flightRecorderEvents = flightRecorderEvents;
+  }
+
+  /**
+   * Samples the partition sizes of the server along with the event counters
+   */
+  public void watch(FaaSServer server) {
+    this.server = server;
+  }
+
+  /**
+   * Called by the event loop when it (re)starts
+   */
+  public void start(double time) {
+    if (!started) {
+      started = true;
+      startTime = time;
+      startNanos = System.nanoTime();
+      sampleNanos = startNanos;
+    }
+  }
+
+  /**
+   * Called by the event loop for every event, before it is taken off the diary
+   *
+   * @param diarySize number of pending events, including this one
+   */
+  public void countEvent(byte kind, int diarySize, double time) {
+    events[kind]++;
+    totalEvents++;
+    if (diarySize > diaryHighWater) {
+      diaryHighWater = diarySize;
+    }
+    if (--untilSample == 0) {
+      sample(time);
+    }
+  }
+
+  /**
+   * Publishes the current values, called by the event loop every SAMPLE_INTERVAL events and when
+   * it stops
+   */
+  public void sample(double time) {
+    untilSample = SAMPLE_INTERVAL;
+    long now = System.nanoTime();
+
+    for (int kind = 0; kind < KINDS; kind++) {
+      if (events[kind] != 0) {
+        publishedEvents.lazySet(kind, events[kind]);
+      }
+    }
+    publishedTotal = totalEvents;
+    publishedHighWater = diaryHighWater;
+    publishedTime = time;
+
+    double elapsed = (now - startNanos) / 1e9;
+    if (elapsed > 0) {
+      eventsPerSecond = totalEvents / elapsed;
+      simulatedPerWallSecond = (time - startTime) / elapsed;
+    }
+    double recent = (now - sampleNanos) / 1e9;
+    if (recent > 0) {
+      recentEventsPerSecond = (totalEvents - sampleEvents) / recent;
+    }
+    sampleEvents = totalEvents;
+    sampleNanos = now;
+
+    if (server != null) {
+      activeSize = server.getActiveSize();
+      idleSize = server.getIdleSize();
+      loadingSize = server.getLoadingSize();
+    }
+
+    if (flightRecorderEvents) {
+      commitFlightRecorderEvent();
+    }
+  }
+
+  private void commitFlightRecorderEvent() {
+    SimulationSampleEvent event = new SimulationSampleEvent();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.simulationTime = publishedTime;
+    event.events = totalEvents;
+    event.requests = events[Request.KIND];
+    event.promotions = events[Promotion.KIND];
+    event.completions = events[Completion.KIND];
+    event.diaryHighWater = diaryHighWater;
+    event.eventsPerSecond = recentEventsPerSecond;
+    event.simulatedPerWallSecond = simulatedPerWallSecond;
+    event.activeSize = activeSize;
+    event.idleSize = idleSize;
+    event.loadingSize = loadingSize;
+    event.commit();
+  }
+
+  /**
+   * @return events of the given kind invoked so far, see Event.getKind
+   */
+  public long getEvents(byte kind) {
+    return publishedEvents.get(kind);
+  }
+
+  public long getRequests() {
+    return getEvents(Request.KIND);
+  }
+
+  public long getPromotions() {
+    return getEvents(Promotion.KIND);
+  }
+
+  public long getCompletions() {
+    return getEvents(Completion.KIND);
+  }
+
+  /**
+   * @return events of every kind invoked so far, control events included
+   */
+  public long getTotalEvents() {
+    return publishedTotal;
+  }
+
+  /**
+   * @return the largest number of events the diary has held
+   */
+  public int getDiaryHighWater() {
+    return publishedHighWater;
+  }
+
+  /**
+   * @return simulated time of the latest sample
+   */
+  public double getSimulationTime() {
+    return publishedTime;
+  }
+
+  /**
+   * @return events per wall-clock second since the run started
+   */
+  public double getEventsPerSecond() {
+    return eventsPerSecond;
+  }
+
+  /**
+   * @return events per wall-clock second between the two latest samples
+   */
+  public double getRecentEventsPerSecond() {
+    return recentEventsPerSecond;
+  }
+
+  /**
+   * @return simulated seconds per wall-clock second since the run started
+   */
+  public double getSimulatedPerWallSecond() {
+    return simulatedPerWallSecond;
+  }
+
+  public int getActiveSize() {
+    return activeSize;
+  }
+
+  public int getIdleSize() {
+    return idleSize;
+  }
+
+  public int getLoadingSize() {
+    return loadingSize;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("t=%.0f events=%d (R:%d,P:%d,C:%d) diary<=%d %.3g events/s "
+            + "%.3g sim s/s memory(A:%d,I:%d,L:%d)", getSimulationTime(), getTotalEvents(),
+        getRequests(), getPromotions(), getCompletions(), getDiaryHighWater(),
+        getRecentEventsPerSecond(), getSimulatedPerWallSecond(), getActiveSize(), getIdleSize(),
+        getLoadingSize());
+  }
+}
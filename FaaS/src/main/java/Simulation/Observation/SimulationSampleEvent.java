@@ -0,0 +1,53 @@
+package Simulation.Observation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event committed by SimulationMetrics on every sample, so that a run can be
+ * followed in JDK Mission Control next to GC and JIT activity
+ */
+@Name("FaaS.SimulationSample")
+@Label("Simulation Sample")
+@Category("FaaS")
+@Description("Progress of a simulation's event loop")
+@StackTrace(false)
+public class SimulationSampleEvent extends Event {
+
+  @Label("Simulation Time")
+  public double simulationTime;
+
+  @Label("Events")
+  public long events;
+
+  @Label("Requests")
+  public long requests;
+
+  @Label("Promotions")
+  public long promotions;
+
+  @Label("Completions")
+  public long completions;
+
+  @Label("Diary High-Water Mark")
+  public int diaryHighWater;
+
+  @Label("Events per Second")
+  public double eventsPerSecond;
+
+  @Label("Simulated Seconds per Second")
+  public double simulatedPerWallSecond;
+
+  @Label("Active Functions")
+  public int activeSize;
+
+  @Label("Idle Functions")
+  public int idleSize;
+
+  @Label("Loading Functions")
+  public int loadingSize;
+}
@@ -0,0 +1,11 @@
+package Simulation;
+
+/**
+ * Which confidence intervals have to be precise enough for a run to stop early, see
+ * FaaSSimulationBuilder.withPrecisionTarget
+ */
+public enum PrecisionTarget {
+  COLD_RATIO,
+  LOSS_RATE,
+  BOTH
+}
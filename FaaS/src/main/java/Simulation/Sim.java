@@ -1,25 +1,54 @@
 package Simulation;
 
+import Simulation.Diary.FutureEventList;
+import Simulation.Diary.QuaternaryHeap;
 import Simulation.Event.Event;
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import Simulation.Event.Halt;
+import Simulation.Event.Pause;
+import Simulation.Observation.SimulationMetrics;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntPredicate;
 
 /**
  * My interpretation for a simulation class that can start, record events, and stop when required.
  * It also deals with bookkeeping events by scheduling them into a diary.
+ * <p>
+ * The diary is a FutureEventList which only remembers when an event happens, what kind of event it
+ * is and which subject it concerns. Event objects are rebuilt through createEvent right before they
+ * are invoked. With event recycling on, invoked events are handed back to a per-kind pool and
+ * re-targeted through Event.reuse, so the event loop doesn't allocate in steady state.
+ * <p>
+ * Anything that happens at a known time, such as the end of the horizon (Halt), is scheduled as a
+ * control event in the same diary rather than checked for on every event. The event loop itself is
+ * then just: take the next event, move the clock, invoke it.
  */
 public abstract class Sim {
 
-  // Comparator for inserting elements into the queue based on time they were scheduled.
-  private static final Comparator<Event> EVENT_COMPARATOR = Comparator.comparingDouble(
-      Event::getInvokeTime);
-  private final PriorityQueue<Event> diary;
+  private final FutureEventList diary;
+  private final EventPool pool = new EventPool();
+  private final boolean recycleEvents;
 
   // Protected attributes visible to child classes
   protected double time = 0.0; // seconds
 
+  private boolean running = false; // false once a Pause or Halt is invoked
+  private boolean halted = false;
+
+  private SimulationMetrics metrics = null; // null when disabled
+
   public Sim() {
-    diary = new PriorityQueue<>(EVENT_COMPARATOR);
+    this(new QuaternaryHeap(), true);
+  }
+
+  /**
+   * @param diary         empty event list the simulation schedules its events into
+   * @param recycleEvents true if invoked events should be pooled and reused
+   */
+  public Sim(FutureEventList diary, boolean recycleEvents) {
+    this.diary = diary;
+    this.recycleEvents = recycleEvents;
   }
 
   /**
@@ -30,28 +59,145 @@ public abstract class Sim {
   }
 
   /**
-   * @param event Event to schedule inserted into a time sorted priority queue
+   * Schedules an event without materialising it, the event object is only created (or taken from
+   * the pool) when it is invoked
+   *
+   * @param invokeTime time the event should be invoked at
+   * @param subject    subject of the event, see Event.getSubject
+   * @param kind       kind of the event, see Event.getKind
    */
-  public void schedule(Event event) {
-    diary.add(event);
+  public void schedule(double invokeTime, int subject, byte kind) {
+    diary.add(invokeTime, subject, kind);
   }
 
   /**
-   * Function for executing the simulation while the event queue is not empty and a stopping
-   * condition isn't true. On each event, try to record the measure as defined by method
-   * tryRecordMeasure which should be overwritten if a user wishes to save the state of the system
-   * at some time interval.
+   * Schedules the end of the simulation
+   */
+  public void scheduleHalt(double haltTime) {
+    diary.add(haltTime, 0, Halt.KIND);
+  }
+
+  /**
+   * Function for executing the simulation until the event queue is empty or a control event stops
+   * it: a Halt for good, a Pause until go is called again.
    */
   public void go() {
-    while (!diary.isEmpty() && !this.stop()) {
-      Event topEvent = diary.poll();
-      assert topEvent != null;
-      time = topEvent.getInvokeTime();
-      tryResetMeasure();
-      tryRecordMeasure();
-      if (!this.stop()) {
-        topEvent.invoke();
+    running = !halted;
+    if (metrics != null) {
+      metrics.start(time);
+    }
+    while (running && !diary.isEmpty()) {
+      byte kind = diary.peekKind();
+      int subject = diary.peekSubject();
+      time = diary.peekTime();
+      if (metrics != null) {
+        metrics.countEvent(kind, diary.size(), time);
       }
+      diary.remove();
+      dispatch(kind, subject);
+    }
+    if (metrics != null) {
+      metrics.sample(time);
+    }
+  }
+
+  /**
+   * Like go, but pauses once every event due up to `until` has been invoked, see
+   * deferToPendingEvents. Calling it again (or go) resumes the simulation from where it paused.
+   */
+  public void goUntil(double until) {
+    if (until < time) {
+      return;
+    }
+    diary.add(until, 0, Pause.KIND);
+    go();
+  }
+
+  /**
+   * Lets a control event that stops the loop (Pause or Halt) act only once every other event due
+   * at its time has been invoked, including events scheduled at that time after it. Until then it
+   * steps back to the end of the diary's queue for the current time.
+   *
+   * @return true if the control event was put back into the diary and should not act yet
+   */
+  public boolean deferToPendingEvents(byte kind) {
+    if (diary.isEmpty() || diary.peekTime() > time) {
+      return false;
+    }
+    byte next = diary.peekKind();
+    if (next == Pause.KIND || next == Halt.KIND) {
+      return false;
+    }
+    diary.add(time, 0, kind);
+    return true;
+  }
+
+  /**
+   * Stops the event loop after the current event, go resumes it
+   */
+  public void pause() {
+    running = false;
+  }
+
+  /**
+   * Stops the event loop after the current event, for good
+   */
+  public void halt() {
+    running = false;
+    halted = true;
+  }
+
+  /**
+   * Makes the event loop report to the given metrics, null turns them off
+   */
+  public void setMetrics(SimulationMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  public SimulationMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return true once the simulation has been halted
+   */
+  public boolean isHalted() {
+    return halted;
+  }
+
+  /**
+   * Invokes an event that was just taken off the diary, the clock already being at its time.
+   * Subclasses may override it to handle some kinds without materialising an event, and hand the
+   * others back to this implementation.
+   */
+  protected void dispatch(byte kind, int subject) {
+    invoke(kind, subject);
+  }
+
+  private void invoke(byte kind, int subject) {
+    Event event = recycleEvents ? pool.acquire(kind) : null;
+    if (event == null) {
+      event = newEvent(kind, subject);
+    } else {
+      event.reuse(time, subject);
+    }
+    event.invoke();
+    if (recycleEvents) {
+      pool.release(event);
+    }
+  }
+
+  /**
+   * Creates an event, the control events of Sim itself are only created here
+   */
+  private Event newEvent(byte kind, int subject) {
+    switch (kind) {
+      case Halt.KIND:
+        return new Halt(time, this);
+      case Pause.KIND:
+        return new Pause(time, this);
+      default:
+        return createEvent(time, kind, subject);
     }
   }
 
@@ -63,12 +209,59 @@ public abstract class Sim {
   }
 
   /**
-   * Stopping condition for simulation
+   * Writes the pending events of the given kinds in the order they are due, ties in the order they
+   * were scheduled. The diary is emptied and refilled in that same order, so it hands out its
+   * events exactly as it would have.
    */
-  public abstract boolean stop();
+  protected void writePendingEvents(DataOutput out, IntPredicate kinds) throws IOException {
+    int size = diary.size();
+    double[] times = new double[size];
+    int[] subjects = new int[size];
+    byte[] kindsDue = new byte[size];
+    int written = 0;
+    for (int i = 0; i < size; i++) {
+      times[i] = diary.peekTime();
+      subjects[i] = diary.peekSubject();
+      kindsDue[i] = diary.peekKind();
+      diary.remove();
+      if (kinds.test(kindsDue[i])) {
+        written++;
+      }
+    }
+    out.writeInt(written);
+    for (int i = 0; i < size; i++) {
+      diary.add(times[i], subjects[i], kindsDue[i]);
+      if (kinds.test(kindsDue[i])) {
+        out.writeDouble(times[i]);
+        out.writeInt(subjects[i]);
+        out.writeByte(kindsDue[i]);
+      }
+    }
+  }
 
-  public abstract void tryResetMeasure();
+  /**
+   * Schedules the events written by writePendingEvents, after any already in the diary
+   */
+  protected void readPendingEvents(DataInput in) throws IOException {
+    for (int i = in.readInt(); i > 0; i--) {
+      diary.add(in.readDouble(), in.readInt(), in.readByte());
+    }
+  }
 
-  public void tryRecordMeasure() {
+  /**
+   * @return number of events currently waiting in the diary
+   */
+  public int getDiarySize() {
+    return diary.size();
   }
+
+  /**
+   * Rebuilds an event that was scheduled into the diary. Kinds Halt.KIND and Pause.KIND are
+   * reserved for the control events of Sim.
+   *
+   * @param invokeTime time the event was scheduled for
+   * @param kind       kind code returned by Event.getKind
+   * @param subject    subject returned by Event.getSubject
+   */
+  protected abstract Event createEvent(double invokeTime, byte kind, int subject);
 }
@@ -0,0 +1,87 @@
+package Simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * State of a FaaSSimulation at some point of its run, see FaaSSimulation.snapshot: the pending
+ * events, the partitions and idle order of the server, the measures and the state of every random
+ * number stream, in a binary form of a few bytes per function.
+ * <p>
+ * A snapshot is immutable, so any number of simulations can be restored from it, in-process with
+ * FaaSSimulationBuilder.withSnapshot or in another process after writing it to a file.
+ */
+public final class SimulationSnapshot {
+
+  private static final int MAGIC = 0x46614153; // "FaaS"
+  private static final int VERSION = 4;
+
+  private final double time;
+  private final byte[] state;
+
+  SimulationSnapshot(double time, byte[] state) {
+    this.time = time;
+    this.state = state;
+  }
+
+  /**
+   * @return simulation time the snapshot was taken at
+   */
+  public double getTime() {
+    return time;
+  }
+
+  /**
+   * @return size of the state in bytes, before compression
+   */
+  public int size() {
+    return state.length;
+  }
+
+  DataInputStream open() {
+    return new DataInputStream(new ByteArrayInputStream(state));
+  }
+
+  /**
+   * Writes the snapshot to a gzip-compressed file
+   */
+  public void write(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeDouble(time);
+      out.writeInt(state.length);
+      out.write(state);
+    }
+  }
+
+  /**
+   * Reads a snapshot written by write
+   */
+  public static SimulationSnapshot read(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+        new BufferedInputStream(new FileInputStream(file))))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a simulation snapshot");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException(file + " is a snapshot of version " + version + ", not " + VERSION);
+      }
+      double time = in.readDouble();
+      byte[] state = new byte[in.readInt()];
+      in.readFully(state);
+      return new SimulationSnapshot(time, state);
+    }
+  }
+}
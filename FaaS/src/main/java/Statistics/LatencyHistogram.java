@@ -0,0 +1,189 @@
+package Statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Log-bucketed histogram of durations in the style of HdrHistogram. Durations are recorded in
+ * microseconds. Below 2^precisionBits microseconds every value has its own bucket, above that each
+ * power of two is split into 2^(precisionBits - 1) buckets, so any recorded value is known to
+ * within a relative error of 2^-(precisionBits - 1). Durations beyond MAX_MICROSECONDS land in the
+ * last bucket.
+ * <p>
+ * Every bucket is allocated up front and a bucket index is a few shifts, so recording never
+ * allocates.
+ */
+public final class LatencyHistogram {
+
+  public static final long MAX_MICROSECONDS = 1L << 36; // about 19 hours
+
+  private static final double MICROSECONDS = 1e6;
+
+  private final int precisionBits;
+  private final long subBuckets; // 2^precisionBits
+  private final long[] counts;
+
+  private long count = 0;
+  private double sum = 0;
+  private double max = 0;
+
+  /**
+   * @param precisionBits between 2 and 16, e.g. 8 for values within 1/128 of what was recorded
+   */
+  public LatencyHistogram(int precisionBits) {
+    if (precisionBits < 2 || precisionBits > 16) {
+      throw new IllegalArgumentException("Precision must be between 2 and 16 bits");
+    }
+    this.precisionBits = precisionBits;
+    this.subBuckets = 1L << precisionBits;
+    this.counts = new long[indexOf(MAX_MICROSECONDS) + 1];
+  }
+
+  private int indexOf(long value) {
+    if (value < subBuckets) {
+      return (int) value;
+    }
+    // value lies in [2^exponent, 2^(exponent + 1)), split into subBuckets / 2 buckets
+    int shift = (63 - Long.numberOfLeadingZeros(value)) - (precisionBits - 1);
+    return (int) (subBuckets + (shift - 1) * (subBuckets >> 1) + (value >>> shift)
+        - (subBuckets >> 1));
+  }
+
+  /**
+   * @return the largest value, in microseconds, that falls into the bucket
+   */
+  private long highestValueOf(int index) {
+    if (index < subBuckets) {
+      return index;
+    }
+    long half = subBuckets >> 1;
+    int shift = (int) ((index - subBuckets) / half) + 1;
+    long lowest = ((index - subBuckets) % half + half) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * @param seconds duration to record, negative durations are recorded as 0
+   */
+  public void record(double seconds) {
+    long value = (long) (seconds * MICROSECONDS);
+    counts[indexOf(Math.min(Math.max(value, 0), MAX_MICROSECONDS))]++;
+    count++;
+    sum += seconds;
+    if (seconds > max) {
+      max = seconds;
+    }
+  }
+
+  /**
+   * Adds every value recorded by `other`, which must have the same precision
+   */
+  public void add(LatencyHistogram other) {
+    if (other.precisionBits != precisionBits) {
+      throw new IllegalArgumentException("Histograms have different precisions");
+    }
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    sum += other.sum;
+    max = Math.max(max, other.max);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    max = 0;
+  }
+
+  /**
+   * Writes the recorded durations, only the buckets that are not empty
+   */
+  public void writeState(DataOutput out) throws IOException {
+    out.writeByte(precisionBits);
+    out.writeLong(count);
+    out.writeDouble(sum);
+    out.writeDouble(max);
+    int used = 0;
+    for (long bucket : counts) {
+      if (bucket != 0) {
+        used++;
+      }
+    }
+    out.writeInt(used);
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        out.writeInt(i);
+        out.writeLong(counts[i]);
+      }
+    }
+  }
+
+  /**
+   * Replaces the recorded durations with those written by writeState of a histogram with the same
+   * precision
+   */
+  public void readState(DataInput in) throws IOException {
+    int bits = in.readByte();
+    if (bits != precisionBits) {
+      throw new IllegalArgumentException("Histograms have different precisions");
+    }
+    reset();
+    count = in.readLong();
+    sum = in.readDouble();
+    max = in.readDouble();
+    for (int used = in.readInt(); used > 0; used--) {
+      int index = in.readInt();
+      counts[index] = in.readLong();
+    }
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return exact mean of the recorded durations in seconds, NaN if there are none
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : sum / count;
+  }
+
+  /**
+   * @return exact largest recorded duration in seconds
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * @param quantile in [0, 1], e.g. 0.99 for the 99th percentile
+   * @return the upper end of the bucket holding the quantile in seconds, so at least the fraction
+   * `quantile` of the durations is known to be at most that long. NaN if nothing was recorded
+   */
+  public double getValueAtQuantile(double quantile) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        // the bucket may be wider than the values actually recorded into it
+        return Math.min(highestValueOf(i) / MICROSECONDS, max);
+      }
+    }
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("p50: %.6f, p99: %.6f, p99.9: %.6f, max: %.6f (%d samples)",
+        getValueAtQuantile(0.5), getValueAtQuantile(0.99), getValueAtQuantile(0.999), max,
+        count);
+  }
+}
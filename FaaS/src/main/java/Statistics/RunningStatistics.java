@@ -0,0 +1,103 @@
+package Statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mean and variance of a stream of samples, updated one sample at a time with Welford's method,
+ * which stays accurate where the naive sum of squares would cancel out. Confidence intervals are
+ * available at any point without keeping the samples.
+ */
+public final class RunningStatistics {
+
+  private long count = 0;
+  private double mean = 0;
+  private double squares = 0; // sum of squared deviations from the current mean
+
+  public void add(double sample) {
+    count++;
+    double delta = sample - mean;
+    mean += delta / count;
+    squares += delta * (sample - mean);
+  }
+
+  public void reset() {
+    count = 0;
+    mean = 0;
+    squares = 0;
+  }
+
+  public void writeState(DataOutput out) throws IOException {
+    out.writeLong(count);
+    out.writeDouble(mean);
+    out.writeDouble(squares);
+  }
+
+  /**
+   * Replaces the samples seen so far with those written by writeState
+   */
+  public void readState(DataInput in) throws IOException {
+    count = in.readLong();
+    mean = in.readDouble();
+    squares = in.readDouble();
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return mean of the samples, NaN if there are none
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * @return unbiased sample variance, NaN with fewer than two samples
+   */
+  public double getVariance() {
+    return count < 2 ? Double.NaN : squares / (count - 1);
+  }
+
+  public double getStandardError() {
+    return Math.sqrt(getVariance() / count);
+  }
+
+  /**
+   * Confidence interval of the mean, assuming independent, identically distributed samples, with
+   * Student's t for count - 1 degrees of freedom
+   *
+   * @param confidence e.g. 0.90 for a 90% confidence interval
+   * @return lower bound at 0, mean at 1, and upper bound at 2. Both bounds are NaN with fewer than
+   * two samples
+   */
+  public double[] confidenceInterval(double confidence) {
+    if (count < 2) {
+      return new double[]{Double.NaN, getMean(), Double.NaN};
+    }
+    double halfWidth = halfWidth(confidence);
+    return new double[]{mean - halfWidth, mean, mean + halfWidth};
+  }
+
+  /**
+   * @return half-width of the confidence interval, NaN with fewer than two samples
+   */
+  public double halfWidth(double confidence) {
+    if (count < 2) {
+      return Double.NaN;
+    }
+    return StudentT.criticalValue(confidence, count - 1) * getStandardError();
+  }
+
+  /**
+   * @return half-width of the confidence interval relative to the mean, e.g. 0.05 for a mean known
+   * to within 5%. 0 if every sample is the same, even 0, otherwise infinite if the mean is 0. NaN
+   * with fewer than two samples
+   */
+  public double relativeHalfWidth(double confidence) {
+    double halfWidth = halfWidth(confidence);
+    return halfWidth == 0 ? 0 : halfWidth / Math.abs(mean);
+  }
+}
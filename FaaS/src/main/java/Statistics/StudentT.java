@@ -0,0 +1,172 @@
+package Statistics;
+
+/**
+ * Student's t distribution, for confidence intervals over a small number of samples.
+ */
+public final class StudentT {
+
+  private static final double EPSILON = 1e-15;
+  private static final int MAX_ITERATIONS = 300;
+
+  private static final double[] LANCZOS = {
+      0.99999999999980993, 676.5203681218851, -1259.1392167224028, 771.32342877765313,
+      -176.61502916214059, 12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6,
+      1.5056327351493116e-7};
+
+  private StudentT() {
+  }
+
+  /**
+   * @return P(T <= t) for T following a t distribution with the given degrees of freedom
+   */
+  public static double cdf(double t, double degreesOfFreedom) {
+    if (Double.isInfinite(t)) {
+      return t > 0 ? 1 : 0;
+    }
+    double x = degreesOfFreedom / (degreesOfFreedom + t * t);
+    double tail = 0.5 * regularizedIncompleteBeta(x, degreesOfFreedom / 2, 0.5);
+    return t > 0 ? 1 - tail : tail;
+  }
+
+  /**
+   * @return the value t such that P(T <= t) = p
+   */
+  public static double quantile(double p, double degreesOfFreedom) {
+    if (!(p > 0 && p < 1)) {
+      throw new IllegalArgumentException("Probability must be in (0, 1), got " + p);
+    }
+    if (!(degreesOfFreedom > 0)) {
+      throw new IllegalArgumentException("Degrees of freedom must be positive");
+    }
+    if (p < 0.5) {
+      return -quantile(1 - p, degreesOfFreedom);
+    }
+    // the cdf is monotonic, so bracket the quantile then bisect
+    double low = 0;
+    double high = 1;
+    while (cdf(high, degreesOfFreedom) < p) {
+      low = high;
+      high *= 2;
+    }
+    for (int i = 0; i < MAX_ITERATIONS && high - low > EPSILON * Math.max(1, high); i++) {
+      double middle = 0.5 * (low + high);
+      if (cdf(middle, degreesOfFreedom) < p) {
+        low = middle;
+      } else {
+        high = middle;
+      }
+    }
+    return 0.5 * (low + high);
+  }
+
+  /**
+   * @param confidence e.g. 0.90 for a 90% confidence interval
+   * @return the half-width multiplier of a two sided confidence interval
+   */
+  public static double criticalValue(double confidence, double degreesOfFreedom) {
+    return quantile(1 - (1 - confidence) / 2, degreesOfFreedom);
+  }
+
+  /**
+   * Confidence interval of the mean of independent, identically distributed samples, e.g. one
+   * sample per replication or per batch
+   *
+   * @param count number of samples to use, from the start of the array
+   * @return lower bound at 0, mean at 1, and upper bound at 2
+   */
+  public static double[] meanConfidenceInterval(double[] samples, int count, double confidence) {
+    if (count < 2) {
+      throw new IllegalArgumentException("At least 2 samples are needed for an interval");
+    }
+    double mean = 0;
+    for (int i = 0; i < count; i++) {
+      mean += samples[i];
+    }
+    mean /= count;
+
+    double squares = 0;
+    for (int i = 0; i < count; i++) {
+      squares += (samples[i] - mean) * (samples[i] - mean);
+    }
+    double standardError = Math.sqrt(squares / (count - 1) / count);
+    double halfWidth = criticalValue(confidence, count - 1) * standardError;
+
+    return new double[]{mean - halfWidth, mean, mean + halfWidth};
+  }
+
+  /**
+   * I_x(a, b) evaluated with the continued fraction from Numerical Recipes (betacf), using the
+   * symmetry relation where the fraction converges slowly
+   */
+  static double regularizedIncompleteBeta(double x, double a, double b) {
+    if (x <= 0) {
+      return 0;
+    }
+    if (x >= 1) {
+      return 1;
+    }
+    double logFront = logGamma(a + b) - logGamma(a) - logGamma(b)
+        + a * Math.log(x) + b * Math.log(1 - x);
+    if (x < (a + 1) / (a + b + 2)) {
+      return Math.exp(logFront) * continuedFraction(x, a, b) / a;
+    }
+    return 1 - Math.exp(logFront) * continuedFraction(1 - x, b, a) / b;
+  }
+
+  /**
+   * Modified Lentz evaluation of the incomplete beta continued fraction
+   */
+  private static double continuedFraction(double x, double a, double b) {
+    double tiny = 1e-300;
+    double c = 1;
+    double d = 1 - (a + b) * x / (a + 1);
+    if (Math.abs(d) < tiny) {
+      d = tiny;
+    }
+    d = 1 / d;
+    double result = d;
+    for (int m = 1; m <= MAX_ITERATIONS; m++) {
+      int m2 = 2 * m;
+      // even step
+      double numerator = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+      d = 1 + numerator * d;
+      d = Math.abs(d) < tiny ? 1 / tiny : 1 / d;
+      c = 1 + numerator / c;
+      if (Math.abs(c) < tiny) {
+        c = tiny;
+      }
+      result *= d * c;
+      // odd step
+      numerator = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+      d = 1 + numerator * d;
+      d = Math.abs(d) < tiny ? 1 / tiny : 1 / d;
+      c = 1 + numerator / c;
+      if (Math.abs(c) < tiny) {
+        c = tiny;
+      }
+      double delta = d * c;
+      result *= delta;
+      if (Math.abs(delta - 1) < EPSILON) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Lanczos approximation (g = 7, n = 9) of ln(Gamma(x)) for x > 0
+   */
+  static double logGamma(double x) {
+    if (x < 0.5) {
+      // reflection formula
+      return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+    }
+    x -= 1;
+    double sum = LANCZOS[0];
+    for (int i = 1; i < LANCZOS.length; i++) {
+      sum += LANCZOS[i] / (x + i);
+    }
+    double t = x + 7.5;
+    return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+  }
+}
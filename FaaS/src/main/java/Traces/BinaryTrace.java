@@ -0,0 +1,115 @@
+package Traces;
+
+import FunctionAsAService.Function;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact columnar file format for function traces, read through a memory mapping.
+ * <p>
+ * All values are little endian. A 16 byte header is followed by one column per attribute, each
+ * holding one value per function in the same order:
+ * <ol>
+ * <li>header: magic "FAAS" (int), format version (int), number of functions n (int), reserved
+ * (int)</li>
+ * <li>mean service time in milliseconds: n doubles</li>
+ * <li>function IDs: n ints</li>
+ * <li>invocations in 30 days: n ints</li>
+ * </ol>
+ * The columns are copied out of the mapping in bulk, so loading involves no parsing and no
+ * per-function garbage besides the Function objects themselves.
+ */
+public final class BinaryTrace {
+
+  public static final int MAGIC = 0x46414153; // "FAAS"
+  public static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 16;
+  private static final int BYTES_PER_FUNCTION = Double.BYTES + 2 * Integer.BYTES;
+
+  private BinaryTrace() {
+  }
+
+  /**
+   * @return the functions of the trace, in file order, as a fixed size list backed by an array
+   * @throws IOException if the file isn't a binary trace of this version
+   */
+  public static List<Function> read(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_BYTES) {
+        throw new IOException(file + " is too short to be a binary trace");
+      }
+      if (fileSize > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large to be mapped at once");
+      }
+      MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, fileSize);
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (mapped.getInt() != MAGIC) {
+        throw new IOException(file + " is not a binary trace");
+      }
+      int version = mapped.getInt();
+      if (version != VERSION) {
+        throw new IOException(file + " has unsupported binary trace version " + version);
+      }
+      int count = mapped.getInt();
+      mapped.getInt(); // reserved
+      if (count < 0 || fileSize != HEADER_BYTES + (long) count * BYTES_PER_FUNCTION) {
+        throw new IOException(file + " is truncated or corrupt, header says " + count
+            + " functions in " + fileSize + " bytes");
+      }
+
+      double[] serviceTimes = new double[count];
+      int[] ids = new int[count];
+      int[] invocations = new int[count];
+      mapped.asDoubleBuffer().get(serviceTimes);
+      mapped.position(mapped.position() + count * Double.BYTES);
+      mapped.asIntBuffer().get(ids);
+      mapped.position(mapped.position() + count * Integer.BYTES);
+      mapped.asIntBuffer().get(invocations);
+
+      Function[] functions = new Function[count];
+      for (int i = 0; i < count; i++) {
+        functions[i] = new Function(ids[i], serviceTimes[i], invocations[i]);
+      }
+      return Arrays.asList(functions);
+    }
+  }
+
+  /**
+   * Writes the functions to a binary trace, replacing the file if it exists
+   */
+  public static void write(List<Function> functions, File file) throws IOException {
+    int count = functions.size();
+    ByteBuffer buffer = ByteBuffer
+        .allocate(Math.toIntExact(HEADER_BYTES + (long) count * BYTES_PER_FUNCTION))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+    for (Function f : functions) {
+      buffer.putDouble(f.getAvgServiceTimeMilliseconds());
+    }
+    for (Function f : functions) {
+      buffer.putInt(f.getFunctionID());
+    }
+    for (Function f : functions) {
+      buffer.putInt(f.getInvocations30Days());
+    }
+    buffer.flip();
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+}
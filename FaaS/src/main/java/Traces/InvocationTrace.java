@@ -0,0 +1,269 @@
+package Traces;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File format for traces of individual invocations, sorted by time, read sequentially through a
+ * sliding memory mapping so that traces of any size replay without being loaded.
+ * <p>
+ * All values are little endian. A 24 byte header is followed by one record per invocation:
+ * <ol>
+ * <li>header: magic "FAAI" (int), format version (int), flags (int, bit 0 set if the records
+ * have durations), reserved (int), number of invocations n (long)</li>
+ * <li>n records of: arrival time in seconds since the start of the trace (double), function ID
+ * (int), and if the trace has them, duration in seconds (double)</li>
+ * </ol>
+ * Only a window of WINDOW_BYTES is mapped at a time, and the next one is mapped once the records
+ * of the current one are used up.
+ */
+public final class InvocationTrace {
+
+  public static final int MAGIC = 0x46414149; // "FAAI"
+  public static final int VERSION = 1;
+  public static final int WINDOW_BYTES = 64 << 20;
+
+  private static final int HEADER_BYTES = 24;
+  private static final int COUNT_OFFSET = 16;
+  private static final int DURATIONS = 1;
+
+  private final File file;
+  private final boolean durations;
+  private final int recordBytes;
+  private final long count;
+  private final int windowRecords;
+
+  /* The mapped window, holding records firstInWindow to firstInWindow + windowRecords */
+  private MappedByteBuffer window = null;
+  private long firstInWindow = 0;
+  private long next = 0; // index of the record next() reads
+
+  /* The record last read by next() */
+  private double time = Double.NEGATIVE_INFINITY;
+  private int functionID;
+  private double duration = Double.NaN;
+
+  private InvocationTrace(File file, boolean durations, long count, int windowBytes) {
+    this.file = file;
+    this.durations = durations;
+    this.recordBytes = Double.BYTES + Integer.BYTES + (durations ? Double.BYTES : 0);
+    this.count = count;
+    this.windowRecords = Math.max(1, windowBytes / recordBytes);
+  }
+
+  /**
+   * Opens the trace at its first record
+   *
+   * @throws IOException if the file isn't an invocation trace of this version
+   */
+  public static InvocationTrace open(File file) throws IOException {
+    return open(file, WINDOW_BYTES);
+  }
+
+  static InvocationTrace open(File file, int windowBytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_BYTES) {
+        throw new IOException(file + " is too short to be an invocation trace");
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // read the whole header
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException(file + " is not an invocation trace");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(file + " has unsupported invocation trace version " + version);
+      }
+      boolean durations = (header.getInt() & DURATIONS) != 0;
+      header.getInt(); // reserved
+      long count = header.getLong();
+      InvocationTrace trace = new InvocationTrace(file, durations, count, windowBytes);
+      if (count < 0 || fileSize != HEADER_BYTES + count * trace.recordBytes) {
+        throw new IOException(file + " is truncated or corrupt, header says " + count
+            + " invocations in " + fileSize + " bytes");
+      }
+      return trace;
+    }
+  }
+
+  public long getInvocationCount() {
+    return count;
+  }
+
+  public boolean hasDurations() {
+    return durations;
+  }
+
+  /**
+   * @return index of the record the next call to next() reads
+   */
+  public long getPosition() {
+    return next;
+  }
+
+  /**
+   * Moves to a record, so that next() reads it
+   */
+  public void seek(long index) {
+    if (index < 0 || index > count) {
+      throw new IllegalArgumentException("No invocation " + index + " in a trace of " + count);
+    }
+    next = index;
+    time = Double.NEGATIVE_INFINITY; // the records before aren't checked for order
+    if (index < firstInWindow || index >= firstInWindow + windowRecords) {
+      window = null;
+    }
+  }
+
+  public boolean hasNext() {
+    return next < count;
+  }
+
+  /**
+   * Reads the next record, see getTime, getFunctionID and getDuration
+   *
+   * @throws IOException if the window can't be mapped or the records aren't sorted by time
+   */
+  public void next() throws IOException {
+    if (!hasNext()) {
+      throw new IllegalStateException("No invocation left in " + file);
+    }
+    if (window == null || next >= firstInWindow + windowRecords) {
+      mapWindow(next);
+    }
+    window.position((int) (next - firstInWindow) * recordBytes);
+    double previous = time;
+    time = window.getDouble();
+    functionID = window.getInt();
+    if (durations) {
+      duration = window.getDouble();
+    }
+    if (time < previous) {
+      throw new IOException(file + " is not sorted by time at invocation " + next);
+    }
+    next++;
+  }
+
+  /**
+   * @return arrival time of the record last read, in seconds since the start of the trace
+   */
+  public double getTime() {
+    return time;
+  }
+
+  public int getFunctionID() {
+    return functionID;
+  }
+
+  /**
+   * @return duration of the record last read in seconds, or NaN if the trace has no durations
+   */
+  public double getDuration() {
+    return duration;
+  }
+
+  private void mapWindow(long first) throws IOException {
+    long records = Math.min(windowRecords, count - first);
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // the mapping stays valid once the channel is closed
+      window = channel.map(MapMode.READ_ONLY, HEADER_BYTES + first * recordBytes,
+          records * recordBytes);
+    }
+    window.order(ByteOrder.LITTLE_ENDIAN);
+    firstInWindow = first;
+  }
+
+  /**
+   * Starts writing a trace, replacing the file if it exists. Records must be appended in order of
+   * time
+   */
+  public static Writer write(File file, boolean durations) throws IOException {
+    return new Writer(file, durations);
+  }
+
+  /**
+   * Appends records to an invocation trace through a fixed size buffer. The number of invocations
+   * is only written into the header on close
+   */
+  public static final class Writer implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final boolean durations;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private long count = 0;
+    private double lastTime = Double.NEGATIVE_INFINITY;
+
+    private Writer(File file, boolean durations) throws IOException {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      this.durations = durations;
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(durations ? DURATIONS : 0).putInt(0)
+          .putLong(0);
+    }
+
+    /**
+     * Appends an invocation to a trace without durations
+     */
+    public void append(double time, int functionID) throws IOException {
+      if (durations) {
+        throw new IllegalStateException("The trace has durations");
+      }
+      append(time, functionID, Double.NaN);
+    }
+
+    /**
+     * Appends an invocation, with its duration in seconds if the trace has durations
+     */
+    public void append(double time, int functionID, double duration) throws IOException {
+      if (!(time >= lastTime)) {
+        throw new IllegalArgumentException(
+            "Invocation at " + time + " appended after one at " + lastTime);
+      }
+      if (durations && !(duration >= 0 && duration < Double.POSITIVE_INFINITY)) {
+        throw new IllegalArgumentException("Invocation at " + time + " lasts " + duration);
+      }
+      if (buffer.remaining() < 2 * Double.BYTES + Integer.BYTES) {
+        flush();
+      }
+      buffer.putDouble(time).putInt(functionID);
+      if (durations) {
+        buffer.putDouble(duration);
+      }
+      lastTime = time;
+      count++;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+        ByteBuffer header = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(count).flip();
+        channel.write(header, COUNT_OFFSET);
+      } finally {
+        channel.close();
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package Traces;
+
+import static Simulation.FaaSSimulationBuilder.parseCSV;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Converts a CSV trace of the form FunctionID_f,AvgServiceTimeMilliseconds,Invocations30Days into
+ * a BinaryTrace, e.g. `TraceConverter trace-final.csv trace-final.bin`, or a CSV trace of
+ * invocations into an InvocationTrace, e.g. `TraceConverter --invocations invocations.csv
+ * invocations.bin`
+ */
+public class TraceConverter {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 3 && args[0].equals("--invocations")) {
+      convertInvocations(new File(args[1]), new File(args[2]));
+      return;
+    }
+    if (args.length != 2) {
+      System.err.println("Usage: TraceConverter [--invocations] <input.csv> <output.bin>");
+      System.exit(1);
+    }
+    convert(new File(args[0]), new File(args[1]));
+  }
+
+  public static void convert(File csv, File binary) throws IOException {
+    BinaryTrace.write(parseCSV(csv), binary);
+  }
+
+  /**
+   * Converts a CSV trace of the form TimestampSeconds,FunctionID_f[,DurationMilliseconds], sorted
+   * by time, line by line. The trace has durations if its heading has a third column
+   *
+   * @throws IOException if a duration is negative or not finite
+   */
+  public static void convertInvocations(File csv, File binary) throws IOException {
+    try (BufferedReader br = new BufferedReader(new FileReader(csv))) {
+      String heading = br.readLine();
+      boolean durations = heading != null && heading.split(",").length > 2;
+      try (InvocationTrace.Writer writer = InvocationTrace.write(binary, durations)) {
+        String line;
+        int lineNumber = 1;
+        while ((line = br.readLine()) != null) {
+          lineNumber++;
+          String[] split = line.split(",");
+          double time = Double.parseDouble(split[0]);
+          int functionID = Integer.parseInt(split[1]);
+          if (durations) {
+            double duration = Double.parseDouble(split[2]) / 1000;
+            if (!(duration >= 0 && duration < Double.POSITIVE_INFINITY)) {
+              throw new IOException(csv + " line " + lineNumber + " has duration " + split[2]);
+            }
+            writer.append(time, functionID, duration);
+          } else {
+            writer.append(time, functionID);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package Analytical;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class MarkovChainModelTest {
+
+  private static List<Function> functions(int count) {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      // between 0.5 and 2 requests a second, served in 0.2 to 0.8 seconds
+      functions.add(new Function(id, 200 * (1 + id % 4), 1_296_000 * (1 + id % 4)));
+    }
+    return functions;
+  }
+
+  @Test
+  public void singleFunctionMatchesTheClosedForm() {
+    // one request a second served in half a second: active a third of the time
+    Function function = new Function(1, 500, 2_592_000);
+    PerformanceEstimate estimate =
+        new MarkovChainModel(Collections.singletonList(function), 1).solve();
+
+    assertEquals(0, estimate.getColdRatio(), 0);
+    assertEquals(1.0 / 3, estimate.getLossRate(), 1e-9);
+  }
+
+  @Test
+  public void everyEvictionOrderIsAState() {
+    // 3 functions, M = 2: two of them loaded, each idle, active or loading, idle ones in any order
+    MarkovChainModel model = new MarkovChainModel(functions(3), 2);
+    // per pair of loaded functions: 3 * 3 status pairs, plus the swapped order when both are idle
+    assertEquals(3 * (3 * 3 + 1), model.getStateCount());
+  }
+
+  @Test
+  public void simulationAgreesWithTheExactSolution() {
+    List<Function> functions = functions(4);
+    PerformanceEstimate exact = new MarkovChainModel(functions, 2).solve();
+
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFreshFunctions(functions)
+        .withMemoryCapacity(2)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(50_000)
+        .withWarmUpPeriod(1_000)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    double[] coldRatio = sim.getColdRatioConfidenceInterval(0.999);
+    double[] loss = sim.getLossConfidenceInterval(0.999);
+    assertTrue(exact + " outside " + FaaSSimulation.confidenceIntervalToString(coldRatio),
+        coldRatio[0] <= exact.getColdRatio() && exact.getColdRatio() <= coldRatio[2]);
+    assertTrue(exact + " outside " + FaaSSimulation.confidenceIntervalToString(loss),
+        loss[0] <= exact.getLossRate() && exact.getLossRate() <= loss[2]);
+  }
+}
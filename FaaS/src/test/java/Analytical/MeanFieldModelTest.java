@@ -0,0 +1,66 @@
+package Analytical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import FunctionAsAService.Function;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class MeanFieldModelTest {
+
+  private static List<Function> functions(int count) {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      // between 0.5 and 2 requests a second, served in 0.2 to 0.8 seconds
+      functions.add(new Function(id, 200 * (1 + id % 4), 1_296_000 * (1 + id % 4)));
+    }
+    return functions;
+  }
+
+  @Test
+  public void approximatesTheExactSolution() {
+    List<Function> functions = functions(6);
+    MeanFieldModel model = new MeanFieldModel(functions);
+    for (int capacity = 1; capacity < functions.size(); capacity++) {
+      PerformanceEstimate exact = new MarkovChainModel(functions, capacity).solve();
+      PerformanceEstimate approximate = model.estimate(capacity);
+      assertEquals(exact.getColdRatio(), approximate.getColdRatio(), 0.05 * exact.getColdRatio());
+      assertEquals(exact.getLossRate(), approximate.getLossRate(), 0.01 * exact.getLossRate());
+    }
+  }
+
+  @Test
+  public void nothingIsEvictedOnceEveryFunctionFits() {
+    List<Function> functions = functions(6);
+    PerformanceEstimate estimate = new MeanFieldModel(functions).estimate(6);
+
+    // every function alternates between idle and active: lost while active
+    double lossRate = 0;
+    for (Function f : functions) {
+      double utilisation = f.getArrivalRate() / f.getServiceRate();
+      lossRate += f.getArrivalRate() * utilisation / (1 + utilisation);
+    }
+    assertEquals(0, estimate.getColdRatio(), 0);
+    assertEquals(lossRate, estimate.getLossRate(), 1e-9);
+  }
+
+  @Test
+  public void estimateAllInterpolatesTheFixedPoints() {
+    List<Function> functions = functions(500);
+    MeanFieldModel model = new MeanFieldModel(functions);
+    List<PerformanceEstimate> all = model.estimateAll();
+
+    assertEquals(functions.size(), all.size());
+    assertFalse(all.get(0).hasFunctionEstimates());
+    for (int capacity : new int[]{1, 10, 100, 250, 499, 500}) {
+      PerformanceEstimate interpolated = all.get(capacity - 1);
+      PerformanceEstimate solved = model.estimate(capacity);
+      assertEquals(capacity, interpolated.getCapacity());
+      assertEquals(solved.getColdRatio(), interpolated.getColdRatio(),
+          1e-3 * solved.getColdRatio() + 1e-12);
+      assertEquals(solved.getLossRate(), interpolated.getLossRate(), 1e-3 * solved.getLossRate());
+    }
+  }
+}
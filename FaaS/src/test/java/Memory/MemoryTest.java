@@ -38,22 +38,22 @@ public class MemoryTest {
   @Test
   public void isActiveCanIdentifyFunctionsThatAreInactive() throws MemoryException {
     memory.enqueueActive(DUMMY_FUNCTION1);
-    assertTrue(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
-    assertFalse(memory.isActive(DUMMY_FUNCTION2.getFunctionID()));
+    assertTrue(memory.isActive(DUMMY_FUNCTION1.getIndex()));
+    assertFalse(memory.isActive(DUMMY_FUNCTION2.getIndex()));
   }
 
   @Test
   public void isIdleCanIdentifyFunctionsThatAreIdle() throws MemoryException {
     memory.enqueueIdle(DUMMY_FUNCTION1);
-    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
-    assertFalse(memory.isIdle(DUMMY_FUNCTION2.getFunctionID()));
+    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
+    assertFalse(memory.isIdle(DUMMY_FUNCTION2.getIndex()));
   }
 
   @Test
   public void isLoadingCanIdentifyFunctionsThatAreLoading() throws MemoryException {
     memory.enqueueLoading(DUMMY_FUNCTION1);
-    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getFunctionID()));
-    assertFalse(memory.isLoading(DUMMY_FUNCTION2.getFunctionID()));
+    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getIndex()));
+    assertFalse(memory.isLoading(DUMMY_FUNCTION2.getIndex()));
   }
 
   @Test
@@ -71,7 +71,7 @@ public class MemoryTest {
   @Test
   public void enqueueingSomethingAsIdleDoesNotMakeItActive() throws MemoryException {
     memory.enqueueIdle(DUMMY_FUNCTION1);
-    assertFalse(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertFalse(memory.isActive(DUMMY_FUNCTION1.getIndex()));
   }
 
   @Test
@@ -105,12 +105,12 @@ public class MemoryTest {
   public void promotingALOADINGFunctionPromotesToACTIVE()
       throws MemoryException {
     memory.enqueueLoading(DUMMY_FUNCTION1);
-    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getFunctionID()));
-    assertFalse(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getIndex()));
+    assertFalse(memory.isActive(DUMMY_FUNCTION1.getIndex()));
     assertEquals(1, memory.size());
     memory.promote(DUMMY_FUNCTION1);
-    assertFalse(memory.isLoading(DUMMY_FUNCTION1.getFunctionID()));
-    assertTrue(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertFalse(memory.isLoading(DUMMY_FUNCTION1.getIndex()));
+    assertTrue(memory.isActive(DUMMY_FUNCTION1.getIndex()));
     assertEquals(1, memory.size());
   }
 
@@ -118,37 +118,37 @@ public class MemoryTest {
   public void promotingAnIDLEFunctionPromotesToACTIVE()
       throws MemoryException {
     memory.enqueueIdle(DUMMY_FUNCTION1);
-    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
-    assertFalse(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
+    assertFalse(memory.isActive(DUMMY_FUNCTION1.getIndex()));
     assertEquals(1, memory.size());
     memory.promote(DUMMY_FUNCTION1);
-    assertFalse(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
-    assertTrue(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertFalse(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
+    assertTrue(memory.isActive(DUMMY_FUNCTION1.getIndex()));
     assertEquals(1, memory.size());
   }
 
   @Test
   public void demotingFunctionMovesActiveFunctionsToIdleMemorySpace() {
     memory.enqueueActive(DUMMY_FUNCTION1);
-    assertTrue(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
+    assertTrue(memory.isActive(DUMMY_FUNCTION1.getIndex()));
     memory.demote(DUMMY_FUNCTION1);
-    assertFalse(memory.isActive(DUMMY_FUNCTION1.getFunctionID()));
-    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
+    assertFalse(memory.isActive(DUMMY_FUNCTION1.getIndex()));
+    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
   }
 
   @Test
   public void demotingFunctionRemovesIdleFunctionsFromMemory() {
     memory.enqueueIdle(DUMMY_FUNCTION1);
-    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
+    assertTrue(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
     memory.demote(DUMMY_FUNCTION1);
-    assertFalse(memory.isIdle(DUMMY_FUNCTION1.getFunctionID()));
-    assertTrue(memory.isUnreserved(DUMMY_FUNCTION1.getFunctionID()));
+    assertFalse(memory.isIdle(DUMMY_FUNCTION1.getIndex()));
+    assertTrue(memory.isUnreserved(DUMMY_FUNCTION1.getIndex()));
   }
 
   @Test(expected = MemoryException.class)
   public void demotingLoadingFunctionThrowsError() {
     memory.enqueueLoading(DUMMY_FUNCTION1);
-    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getFunctionID()));
+    assertTrue(memory.isLoading(DUMMY_FUNCTION1.getIndex()));
     memory.demote(DUMMY_FUNCTION1);
   }
 
@@ -187,10 +187,25 @@ public class MemoryTest {
     }
     // FunctionID = 0 is the oldest
     assertTrue(largerMemory.canEvict());
-    assertEquals(0, largerMemory.evict().getFunctionID());
+    assertEquals(0, largerMemory.evict().getIndex());
     // FunctionID = 1 is the oldest
     assertTrue(largerMemory.canEvict());
-    assertEquals(1, largerMemory.evict().getFunctionID());
+    assertEquals(1, largerMemory.evict().getIndex());
+  }
+
+  @Test
+  public void uncheckedMemoryTracksTheSamePartitions() {
+    FaaSServer unchecked = new FaaSServer(MAXIMUM_CAPACITY, false);
+    unchecked.enqueueIdle(DUMMY_FUNCTION1);
+    unchecked.enqueueLoading(DUMMY_FUNCTION2);
+    unchecked.promote(DUMMY_FUNCTION1);
+    unchecked.promote(DUMMY_FUNCTION2);
+    unchecked.demote(DUMMY_FUNCTION2);
+    assertTrue(unchecked.isActive(DUMMY_FUNCTION1.getIndex()));
+    assertTrue(unchecked.isIdle(DUMMY_FUNCTION2.getIndex()));
+    assertEquals(DUMMY_FUNCTION2, unchecked.evict());
+    assertTrue(unchecked.isUnreserved(DUMMY_FUNCTION2.getIndex()));
+    assertEquals(1, unchecked.size());
   }
 
   @Test
@@ -204,4 +219,57 @@ public class MemoryTest {
     assertEquals(DUMMY_FUNCTION3, memory.evict());
   }
 
+  @Test
+  public void occupancyIsWeightedByTime() {
+    double[] now = {0};
+    memory.setClock(() -> now[0]);
+
+    memory.enqueueIdle(DUMMY_FUNCTION1);
+    now[0] = 1;
+    memory.enqueueLoading(DUMMY_FUNCTION2);
+    now[0] = 4;
+    memory.promote(DUMMY_FUNCTION2);
+    memory.promote(DUMMY_FUNCTION1);
+    now[0] = 10;
+
+    // function 1 idle over [0, 4), function 2 loading over [1, 4) then both active until 10
+    assertEquals(0.4, memory.getAverageIdleSize(), 1e-12);
+    assertEquals(0.3, memory.getAverageLoadingSize(), 1e-12);
+    assertEquals(1.2, memory.getAverageActiveSize(), 1e-12);
+    assertEquals(0.6, memory.getFullyBusyFraction(), 1e-12);
+  }
+
+  @Test
+  public void evictionsRecordHowLongTheFunctionWasIdle() {
+    double[] now = {0};
+    memory.setClock(() -> now[0]);
+    assertTrue(Double.isNaN(memory.getAverageIdleTimeBeforeEviction()));
+
+    memory.enqueueIdle(DUMMY_FUNCTION1);
+    memory.enqueueActive(DUMMY_FUNCTION2);
+    now[0] = 3;
+    memory.evict();
+    memory.enqueueLoading(DUMMY_FUNCTION3);
+    now[0] = 5;
+    memory.demote(DUMMY_FUNCTION2);
+    now[0] = 10;
+    memory.evict();
+
+    assertEquals(2, memory.getEvictions());
+    assertEquals((3 + 5) / 2.0, memory.getAverageIdleTimeBeforeEviction(), 1e-12);
+  }
+
+  @Test
+  public void resettingOccupancyForgetsThePast() {
+    double[] now = {0};
+    memory.setClock(() -> now[0]);
+    memory.enqueueIdle(DUMMY_FUNCTION1);
+    now[0] = 5;
+    memory.resetOccupancy();
+    memory.promote(DUMMY_FUNCTION1);
+    now[0] = 10;
+
+    assertEquals(1, memory.getAverageActiveSize(), 1e-12);
+    assertEquals(0, memory.getAverageIdleSize(), 1e-12);
+  }
 }
@@ -0,0 +1,60 @@
+package Samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class AliasTableTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void singleOutcomeIsAlwaysSampled() {
+    AliasTable table = new AliasTable(new double[]{3.0});
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, table.sample(random.nextDouble()));
+    }
+  }
+
+  @Test
+  public void zeroWeightOutcomesAreNeverSampled() {
+    AliasTable table = new AliasTable(new double[]{0, 1, 0, 2, 0});
+    for (int i = 0; i < 10_000; i++) {
+      int sample = table.sample(random.nextDouble());
+      assertTrue(sample == 1 || sample == 3);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void allZeroWeightsAreRejected() {
+    new AliasTable(new double[]{0, 0});
+  }
+
+  @Test
+  public void sampleFrequenciesFollowTheWeights() {
+    // skewed over several orders of magnitude, like the arrival rates in trace-final.csv
+    double[] weights = new double[50];
+    double total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = Math.pow(10, -2 + 4 * random.nextDouble());
+      total += weights[i];
+    }
+    AliasTable table = new AliasTable(weights);
+
+    int samples = 2_000_000;
+    long[] counts = new long[weights.length];
+    for (int i = 0; i < samples; i++) {
+      counts[table.sample(random.nextDouble())]++;
+    }
+
+    // Pearson's chi-squared with 49 degrees of freedom: mean 49, standard deviation ~10
+    double chiSquared = 0;
+    for (int i = 0; i < weights.length; i++) {
+      double expected = samples * weights[i] / total;
+      chiSquared += Math.pow(counts[i] - expected, 2) / expected;
+    }
+    assertTrue("chi squared " + chiSquared, chiSquared < 49 + 5 * 10);
+  }
+}
@@ -0,0 +1,120 @@
+package Samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import Samplers.Sampler.Stream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class SamplerTest {
+
+  @Test
+  public void sameSeedDrawsTheSameVariates() {
+    Sampler a = new Sampler(7);
+    Sampler b = new Sampler(7);
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(a.Exponential(2), b.Exponential(2), 0);
+    }
+  }
+
+  @Test
+  public void substreamsDoNotDependOnTheOrderTheyAreCreatedIn() {
+    Sampler forwards = new Sampler(7);
+    Sampler backwards = new Sampler(7);
+    double[] drawn = new double[100];
+    forwards.createSubstreams(drawn.length);
+    backwards.createSubstreams(drawn.length);
+    for (int id = 0; id < drawn.length; id++) {
+      forwards.Uniform(); // drawing from the parent must not shift the substreams either
+      drawn[id] = forwards.Uniform(Stream.SERVICE, id);
+    }
+    for (int id = drawn.length - 1; id >= 0; id--) {
+      assertEquals(drawn[id], backwards.Uniform(Stream.SERVICE, id), 0);
+    }
+  }
+
+  @Test
+  public void globalSubstreamsAreCachedPerType() {
+    Sampler sampler = new Sampler(7);
+    assertSame(sampler.substream(Stream.ARRIVAL), sampler.substream(Stream.ARRIVAL));
+  }
+
+  @Test
+  public void subjectsDrawWhatTheirOwnSamplerWould() {
+    // a subject draws one variate at a time, the same ones as a Sampler of its seed in batches
+    for (ExponentialMethod method : ExponentialMethod.values()) {
+      Sampler sampler = new Sampler(7, method);
+      sampler.createSubstreams(5);
+      Sampler own = new Sampler(sampler.substreamSeed(Stream.SERVICE, 3), method);
+      for (int i = 0; i < 100; i++) {
+        assertEquals(own.Exponential(2), sampler.Exponential(Stream.SERVICE, 3, 2), 0);
+      }
+    }
+  }
+
+  @Test
+  public void substreamsAreDistinct() {
+    Sampler sampler = new Sampler(7);
+    sampler.createSubstreams(5);
+    Sampler otherSeed = new Sampler(8);
+    otherSeed.createSubstreams(5);
+    double arrival = sampler.Uniform(Stream.ARRIVAL, 3);
+    assertNotEquals(arrival, sampler.Uniform(Stream.SERVICE, 3), 0);
+    assertNotEquals(arrival, sampler.Uniform(Stream.ARRIVAL, 4), 0);
+    assertNotEquals(arrival, sampler.substream(Stream.ARRIVAL).Uniform(), 0);
+    assertNotEquals(arrival, otherSeed.Uniform(Stream.ARRIVAL, 3), 0);
+  }
+
+  @Test
+  public void substreamsAreUncorrelated() {
+    Sampler sampler = new Sampler(7);
+    sampler.createSubstreams(3);
+    int n = 100_000;
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      double x = sampler.Uniform(Stream.ARRIVAL, 1);
+      double y = sampler.Uniform(Stream.ARRIVAL, 2);
+      sum += (x - 0.5) * (y - 0.5);
+    }
+    // the covariance of independent U(0,1) is 0 with standard deviation 1/12 per sample
+    assertEquals(0, sum / n, 5 / 12.0 / Math.sqrt(n));
+  }
+
+  @Test
+  public void splitMix64DrawsWhatSplittableRandomDraws() {
+    SplitMix64 ours = new SplitMix64(7);
+    SplittableRandom theirs = new SplittableRandom(7);
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(theirs.nextLong(), ours.nextLong());
+      assertEquals(theirs.nextDouble(), ours.nextDouble(), 0);
+    }
+  }
+
+  @Test
+  public void restoredSamplersCarryOnWhereTheOriginalWas() throws IOException {
+    for (ExponentialMethod method : ExponentialMethod.values()) {
+      Sampler original = new Sampler(7, method);
+      original.createSubstreams(3);
+      for (int i = 0; i < 5; i++) {
+        original.Exponential(1); // halfway through a batch of the ziggurat
+        original.Exponential(Stream.SERVICE, 2, 1);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      original.writeState(new DataOutputStream(bytes));
+
+      Sampler restored = new Sampler(7, method);
+      restored.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      for (int i = 0; i < 100; i++) {
+        assertEquals(original.Exponential(1), restored.Exponential(1), 0);
+        assertEquals(original.Uniform(Stream.SERVICE, 2), restored.Uniform(Stream.SERVICE, 2), 0);
+      }
+    }
+  }
+}
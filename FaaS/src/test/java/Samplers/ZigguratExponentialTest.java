@@ -0,0 +1,73 @@
+package Samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class ZigguratExponentialTest {
+
+  private static final int N = 200_000;
+
+  private static double[] unitSamples(long seed) {
+    SplitMix64 rand = new SplitMix64(seed);
+    double[] samples = new double[N];
+    for (int i = 0; i < N; i++) {
+      samples[i] = ZigguratExponential.next(rand);
+    }
+    return samples;
+  }
+
+  @Test
+  public void passesKolmogorovSmirnovAgainstTheExponential() {
+    double[] samples = unitSamples(1);
+    Arrays.sort(samples);
+    double d = 0;
+    for (int i = 0; i < N; i++) {
+      double cdf = 1 - Math.exp(-samples[i]);
+      d = Math.max(d, Math.max(cdf - (double) i / N, (double) (i + 1) / N - cdf));
+    }
+    // critical value of the KS statistic at the 0.1% significance level
+    assertTrue("D = " + d, d < 1.95 / Math.sqrt(N));
+  }
+
+  @Test
+  public void matchesTheMomentsOfTheExponential() {
+    double[] samples = unitSamples(2);
+    double sum = 0;
+    double squares = 0;
+    for (double sample : samples) {
+      assertTrue(sample >= 0);
+      sum += sample;
+      squares += sample * sample;
+    }
+    double mean = sum / N;
+    double variance = squares / N - mean * mean;
+    // the standard error of the mean is 1 / sqrt(N), that of the variance ~ sqrt(8 / N)
+    assertEquals(1, mean, 5 / Math.sqrt(N));
+    assertEquals(1, variance, 5 * Math.sqrt(8.0 / N));
+  }
+
+  @Test
+  public void samplesTheTail() {
+    // P(X > 5) = e^-5, the tail layer beyond R ~ 7.7 is only reached by ~1 in 2200 samples
+    double[] samples = unitSamples(3);
+    long beyondFive = Arrays.stream(samples).filter(sample -> sample > 5).count();
+    double expected = N * Math.exp(-5);
+    assertEquals(expected, beyondFive, 5 * Math.sqrt(expected));
+    assertTrue(Arrays.stream(samples).anyMatch(sample -> sample > 7.69711747013104972));
+  }
+
+  @Test
+  public void samplerScalesByTheRate() {
+    for (ExponentialMethod method : ExponentialMethod.values()) {
+      Sampler sampler = new Sampler(4, method);
+      double sum = 0;
+      for (int i = 0; i < N; i++) {
+        sum += sampler.Exponential(4);
+      }
+      assertEquals(method.toString(), 0.25, sum / N, 5 * 0.25 / Math.sqrt(N));
+    }
+  }
+}
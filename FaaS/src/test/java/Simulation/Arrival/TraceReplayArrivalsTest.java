@@ -0,0 +1,122 @@
+package Simulation.Arrival;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import Simulation.FaaSSimulationBuilder;
+import Traces.InvocationTrace;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceReplayArrivalsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final List<Function> trace = syntheticFunctions(40);
+
+  private FaaSSimulationBuilder replay(File invocations, int capacity, double simulationTime)
+      throws IOException {
+    return createFaaSSimBuilder()
+        .withFreshFunctions(trace)
+        .withMemoryCapacity(capacity)
+        .withSimulationTimeDuration(simulationTime)
+        .withLatencyHistograms(true)
+        .withTraceReplay(invocations);
+  }
+
+  @Test
+  public void servesEveryInvocationForItsDuration() throws IOException {
+    // every function is invoked once a second, for a quarter of a second
+    File invocations = folder.newFile("invocations.bin");
+    try (InvocationTrace.Writer writer = InvocationTrace.write(invocations, true)) {
+      for (int second = 0; second < 100; second++) {
+        for (Function f : trace) {
+          writer.append(second + f.getFunctionID() / 100.0, f.getFunctionID(), 0.25);
+        }
+      }
+    }
+
+    FaaSSimulation sim = replay(invocations, trace.size(), 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    sim.runSim();
+    assertEquals(100 * trace.size(), sim.getTotalRequests());
+    assertEquals(0, sim.getTotalColdStarts());
+    assertEquals(0, sim.getTotalRejections());
+    assertEquals(100, sim.getFunctions().get(0).getRequests());
+    assertEquals(0.25, sim.getLatencyHistogram().getMean(), 0.25 * 0.01);
+  }
+
+  @Test
+  public void resumesTheReplayFromASnapshot() throws IOException {
+    // Poisson arrivals at the rate of every function, a handful of them per function
+    File invocations = folder.newFile("invocations.bin");
+    SplittableRandom random = new SplittableRandom(5);
+    double total = trace.stream().mapToDouble(Function::getArrivalRate).sum();
+    try (InvocationTrace.Writer writer = InvocationTrace.write(invocations, true)) {
+      double time = 0;
+      for (int i = 0; i < 5_000; i++) {
+        time -= Math.log(1 - random.nextDouble()) / total;
+        Function f = trace.get(random.nextInt(trace.size()));
+        writer.append(time, f.getFunctionID(), -Math.log(1 - random.nextDouble()) / 2);
+      }
+    }
+
+    FaaSSimulation uninterrupted = replay(invocations, 20, 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    uninterrupted.runSim();
+
+    FaaSSimulation interrupted = replay(invocations, 20, 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    interrupted.runUntil(200); // about half way through the trace
+    FaaSSimulation resumed = replay(invocations, 20, 1_000)
+        .withSnapshot(interrupted.snapshot())
+        .createFaaSSimulation();
+    resumed.runSim();
+
+    assertEquals(uninterrupted.getTotalRequests(), resumed.getTotalRequests());
+    assertEquals(uninterrupted.getTotalColdStarts(), resumed.getTotalColdStarts());
+    assertEquals(uninterrupted.getTotalRejections(), resumed.getTotalRejections());
+    assertArrayEquals(uninterrupted.getColdRatioConfidenceInterval(),
+        resumed.getColdRatioConfidenceInterval(), 0);
+    assertEquals(uninterrupted.getLatencyHistogram().getMean(),
+        resumed.getLatencyHistogram().getMean(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void onlyReplaysSimulatedFunctions() throws IOException {
+    File invocations = folder.newFile("invocations.bin");
+    try (InvocationTrace.Writer writer = InvocationTrace.write(invocations, false)) {
+      writer.append(1, 41);
+    }
+    replay(invocations, 20, 10).withFullIdleMemory().createFaaSSimulation().runSim();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void onlyReplaysFunctionsWithValidIDs() throws IOException {
+    File invocations = folder.newFile("invocations.bin");
+    try (InvocationTrace.Writer writer = InvocationTrace.write(invocations, false)) {
+      writer.append(1, -1);
+    }
+    replay(invocations, 20, 10).withFullIdleMemory().createFaaSSimulation().runSim();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void replayingTakesThePlaceOfTheArrivalEngine() throws IOException {
+    File invocations = folder.newFile("invocations.bin");
+    try (InvocationTrace.Writer writer = InvocationTrace.write(invocations, false)) {
+      writer.append(1, 1);
+    }
+    replay(invocations, 20, 10).withArrivalEngine(ArrivalEngine.SUPERPOSED)
+        .createFaaSSimulation();
+  }
+}
@@ -0,0 +1,106 @@
+package Simulation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import Simulation.Observation.ObservationSink;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ControlEventTest {
+
+  private static FaaSSimulationBuilder builder() {
+    return createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(50))
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .withWarmUpPeriod(100);
+  }
+
+  /**
+   * Keeps every observation in memory
+   */
+  private static class RecordingSink implements ObservationSink {
+
+    private final List<double[]> observations = new ArrayList<>();
+    private int resets = 0;
+
+    @Override
+    public void record(double time, long requests, long coldStarts, long promotions,
+        long completions, long rejections) {
+      observations.add(new double[]{time, requests});
+    }
+
+    @Override
+    public void reset() {
+      observations.clear();
+      resets++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Test
+  public void observationsLandOnIntervalBoundaries() {
+    RecordingSink sink = new RecordingSink();
+    FaaSSimulation sim = builder()
+        .withObservationInterval(30)
+        .withObservationSink(sink)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    // the first boundary after the warm-up period is 120, the last one before the horizon 990
+    assertEquals(1, sink.resets);
+    assertEquals(30, sink.observations.size());
+    for (int i = 0; i < sink.observations.size(); i++) {
+      assertEquals(120 + 30 * i, sink.observations.get(i)[0], 0);
+    }
+  }
+
+  @Test
+  public void haltsAtTheHorizon() {
+    FaaSSimulation sim = builder().createFaaSSimulation();
+    sim.runSim();
+
+    assertTrue(sim.isHalted());
+    assertTrue(sim.getSimulationTime() == 1_000);
+    assertTrue(sim.getDiarySize() > 0); // the requests after the horizon were never invoked
+  }
+
+  @Test
+  public void pausingDoesNotChangeTheRun() {
+    FaaSSimulation straight = builder().createFaaSSimulation();
+    straight.runSim();
+
+    FaaSSimulation paused = builder().createFaaSSimulation();
+    for (int until = 50; until <= 1_200; until += 50) {
+      paused.runUntil(until);
+      assertTrue(paused.getSimulationTime() <= until);
+    }
+
+    assertEquals(straight.getTotalRequests(), paused.getTotalRequests());
+    assertEquals(straight.getTotalColdStarts(), paused.getTotalColdStarts());
+    assertEquals(straight.getTotalRejections(), paused.getTotalRejections());
+    assertEquals(straight.getSimulationTime(), paused.getSimulationTime(), 0);
+  }
+
+  @Test
+  public void warmUpEndResetsTheMeasures() {
+    FaaSSimulation sim = builder().createFaaSSimulation();
+    sim.runUntil(99);
+    long beforeWarmUpEnd = sim.getTotalRequests();
+    sim.runUntil(100);
+    assertTrue(beforeWarmUpEnd > 0);
+    assertEquals(0, sim.getTotalRequests());
+  }
+}
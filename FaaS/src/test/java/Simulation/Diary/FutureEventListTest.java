@@ -0,0 +1,172 @@
+package Simulation.Diary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Selftest for the future event list engines: for a fixed seed, every engine must hand back exactly
+ * the same events in exactly the same order.
+ */
+public class FutureEventListTest {
+
+  private static final long SEED = 1234567890;
+
+  @Test
+  public void emptyListHasNoEvents() {
+    for (FutureEventListType type : FutureEventListType.values()) {
+      FutureEventList diary = type.create();
+      assertTrue(diary.isEmpty());
+      assertEquals(0, diary.size());
+    }
+  }
+
+  @Test
+  public void emptyListHasNothingToPeekOrRemove() {
+    for (FutureEventListType type : FutureEventListType.values()) {
+      FutureEventList diary = type.create();
+      diary.add(1.0, 1, (byte) 0);
+      diary.remove(); // drained rather than never filled
+      assertThrowsNoSuchElement(type, diary::peekTime);
+      assertThrowsNoSuchElement(type, diary::peekSubject);
+      assertThrowsNoSuchElement(type, diary::peekKind);
+      assertThrowsNoSuchElement(type, diary::remove);
+    }
+  }
+
+  private static void assertThrowsNoSuchElement(FutureEventListType type, Runnable call) {
+    try {
+      call.run();
+      fail(type.name() + " should throw on an empty list");
+    } catch (NoSuchElementException expected) {
+      // the documented contract of FutureEventList
+    }
+  }
+
+  @Test
+  public void eventsAreReturnedInTimeOrder() {
+    for (FutureEventListType type : FutureEventListType.values()) {
+      FutureEventList diary = type.create();
+      diary.add(3.0, 3, (byte) 0);
+      diary.add(1.0, 1, (byte) 0);
+      diary.add(2.0, 2, (byte) 0);
+      for (int expected = 1; expected <= 3; expected++) {
+        assertEquals(type.name(), expected, diary.peekSubject());
+        diary.remove();
+      }
+      assertTrue(diary.isEmpty());
+    }
+  }
+
+  @Test
+  public void simultaneousEventsAreReturnedInScheduleOrder() {
+    for (FutureEventListType type : FutureEventListType.values()) {
+      FutureEventList diary = type.create();
+      for (int subject = 0; subject < 200; subject++) {
+        diary.add(5.0, subject, (byte) 0);
+      }
+      for (int expected = 0; expected < 200; expected++) {
+        assertEquals(type.name(), expected, diary.peekSubject());
+        diary.remove();
+      }
+    }
+  }
+
+  @Test
+  public void holdModelWithExponentialIncrementsMatchesAcrossEngines() {
+    // mimics a FaaS diary: one pending event per function plus short-lived follow-up events
+    assertEnginesAgree(10_000, 500_000, false);
+  }
+
+  @Test
+  public void holdModelWithDiscretisedTimesMatchesAcrossEngines() {
+    // integer times produce plenty of ties, which must be broken identically
+    assertEnginesAgree(2_000, 200_000, true);
+  }
+
+  @Test
+  public void growingAndShrinkingListMatchesAcrossEngines() {
+    List<double[]> reference = null;
+    for (FutureEventListType type : FutureEventListType.values()) {
+      Random random = new Random(SEED);
+      FutureEventList diary = type.create();
+      List<double[]> order = new ArrayList<>();
+      double now = 0;
+      for (int step = 0; step < 200_000; step++) {
+        // drift between growing and draining phases so the engines resize
+        boolean grow = (step / 20_000) % 2 == 0;
+        if (diary.isEmpty() || random.nextDouble() < (grow ? 0.7 : 0.3)) {
+          diary.add(now + random.nextDouble() * 100, step, (byte) (step % 3));
+        } else {
+          order.add(poll(diary));
+          now = order.get(order.size() - 1)[0];
+        }
+      }
+      while (!diary.isEmpty()) {
+        order.add(poll(diary));
+      }
+      reference = assertSameOrder(type, reference, order);
+    }
+  }
+
+  private static void assertEnginesAgree(int functions, int events, boolean discretise) {
+    List<double[]> reference = null;
+    for (FutureEventListType type : FutureEventListType.values()) {
+      Random random = new Random(SEED);
+      double[] rates = new double[functions];
+      FutureEventList diary = type.create();
+      for (int f = 0; f < functions; f++) {
+        // heavily skewed rates like trace-final.csv
+        rates[f] = Math.pow(10, -4 + 6 * random.nextDouble());
+        diary.add(0, f, (byte) 0);
+      }
+
+      List<double[]> order = new ArrayList<>(events);
+      for (int i = 0; i < events; i++) {
+        double[] event = poll(diary);
+        order.add(event);
+        int subject = (int) event[1];
+        double increment = -Math.log(random.nextDouble()) / rates[subject];
+        if (discretise) {
+          increment = Math.ceil(increment);
+        }
+        diary.add(event[0] + increment, subject, (byte) 0);
+        if (random.nextDouble() < 0.2) {
+          diary.add(event[0] + Math.ceil(-Math.log(random.nextDouble()) * 2), subject, (byte) 1);
+        }
+      }
+      reference = assertSameOrder(type, reference, order);
+    }
+  }
+
+  private static double[] poll(FutureEventList diary) {
+    double[] event = {diary.peekTime(), diary.peekSubject(), diary.peekKind()};
+    diary.remove();
+    return event;
+  }
+
+  private static List<double[]> assertSameOrder(FutureEventListType type,
+      List<double[]> reference, List<double[]> order) {
+    for (int i = 1; i < order.size(); i++) {
+      assertTrue(type.name() + " is out of order at " + i, order.get(i - 1)[0] <= order.get(i)[0]);
+    }
+    if (reference == null) {
+      return order;
+    }
+    assertEquals(type.name(), reference.size(), order.size());
+    for (int i = 0; i < order.size(); i++) {
+      double[] expected = reference.get(i);
+      double[] actual = order.get(i);
+      assertEquals(type.name() + " time at " + i, expected[0], actual[0], 0);
+      assertEquals(type.name() + " subject at " + i, expected[1], actual[1], 0);
+      assertEquals(type.name() + " kind at " + i, expected[2], actual[2], 0);
+    }
+    return reference;
+  }
+}
@@ -0,0 +1,64 @@
+package Simulation.Diary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class QuaternaryHeapTest {
+
+  @Test
+  public void eventsLeaveInTimeOrder() {
+    Random random = new Random(42);
+    double[] times = new double[10_000];
+    QuaternaryHeap heap = new QuaternaryHeap(4); // grows many times over
+    for (int i = 0; i < times.length; i++) {
+      times[i] = random.nextDouble() * 1_000;
+      heap.add(times[i], i, (byte) (i % 3));
+    }
+    Arrays.sort(times);
+
+    assertEquals(times.length, heap.size());
+    for (double expected : times) {
+      assertEquals(expected, heap.peekTime(), 0);
+      heap.remove();
+    }
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  public void simultaneousEventsLeaveInTheOrderTheyWereAdded() {
+    QuaternaryHeap heap = new QuaternaryHeap();
+    // interleave two instants so ties are broken deep in the heap, not just at the root
+    for (int subject = 0; subject < 500; subject++) {
+      heap.add(subject % 2 == 0 ? 2.0 : 1.0, subject, (byte) 0);
+    }
+    for (int expected = 1; expected < 500; expected += 2) {
+      assertEquals(1.0, heap.peekTime(), 0);
+      assertEquals(expected, heap.peekSubject());
+      heap.remove();
+    }
+    for (int expected = 0; expected < 500; expected += 2) {
+      assertEquals(expected, heap.peekSubject());
+      heap.remove();
+    }
+  }
+
+  @Test
+  public void eventsAddedWhileDrainingKeepTheirOrder() {
+    QuaternaryHeap heap = new QuaternaryHeap();
+    heap.add(1.0, 1, (byte) 7);
+    heap.add(3.0, 3, (byte) 0);
+    assertEquals(7, heap.peekKind());
+    heap.remove();
+    heap.add(3.0, 4, (byte) 0); // same time as a pending event, added after it
+    heap.add(2.0, 2, (byte) 0);
+    for (int expected = 2; expected <= 4; expected++) {
+      assertEquals(expected, heap.peekSubject());
+      heap.remove();
+    }
+    assertTrue(heap.isEmpty());
+  }
+}
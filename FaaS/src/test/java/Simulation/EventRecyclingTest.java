@@ -0,0 +1,168 @@
+package Simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+
+import FunctionAsAService.Function;
+import Simulation.Diary.FutureEventListType;
+import Simulation.Event.Event;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class EventRecyclingTest {
+
+  private static final int SUBJECTS = 1_000;
+  private static final double HORIZON = 5_000;
+  // a histogram of FUNCTION_LATENCY_PRECISION_BITS has 529 buckets
+  private static final long FUNCTION_HISTOGRAM_BYTES = 529 * 8 + 64;
+
+  /**
+   * @return bytes allocated by this thread while running the simulation
+   */
+  private static long allocatedBytes(Runnable simulation) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long before = threads.getCurrentThreadAllocatedBytes();
+    simulation.run();
+    return threads.getCurrentThreadAllocatedBytes() - before;
+  }
+
+  @Test
+  public void recyclingEventsReusesTheSameObjects() {
+    TickSimulation sim = new TickSimulation(FutureEventListType.HEAP, true, 100);
+    sim.go();
+    assertEquals(1, sim.created);
+    assertTrue(sim.invoked > SUBJECTS);
+  }
+
+  @Test
+  public void withoutRecyclingEveryEventIsCreated() {
+    TickSimulation sim = new TickSimulation(FutureEventListType.HEAP, false, 100);
+    sim.go();
+    assertEquals(sim.invoked, sim.created);
+  }
+
+  @Test
+  public void eventLoopDoesNotAllocateInSteadyState() {
+    for (FutureEventListType type : FutureEventListType.values()) {
+      // warm up so the event loop is compiled before measuring
+      for (int i = 0; i < 3; i++) {
+        new TickSimulation(type, true, HORIZON).go();
+      }
+
+      // growing the diary may allocate, so compare a run against one twice as long
+      TickSimulation shortSim = new TickSimulation(type, true, HORIZON);
+      long shortRun = allocatedBytes(shortSim::go);
+      TickSimulation longSim = new TickSimulation(type, true, 2 * HORIZON);
+      long longRun = allocatedBytes(longSim::go);
+
+      assertTrue(longSim.invoked - shortSim.invoked > 500_000);
+      long allocated = longRun - shortRun;
+      assertTrue(type + " allocated " + allocated + " bytes", allocated < 1024);
+    }
+  }
+
+  @Test
+  public void faaSSimulationDoesNotAllocateInSteadyState() {
+    for (boolean recordLatencies : new boolean[]{false, true}) {
+      for (int i = 0; i < 3; i++) {
+        faaSSimulation(100, recordLatencies).runSim();
+      }
+
+      FaaSSimulation shortSim = faaSSimulation(100, recordLatencies);
+      long shortRun = allocatedBytes(shortSim::runSim);
+      FaaSSimulation longSim = faaSSimulation(200, recordLatencies);
+      long longRun = allocatedBytes(longSim::runSim);
+
+      assertTrue(longSim.getTotalRequests() - shortSim.getTotalRequests() > 200_000);
+      long allocated = longRun - shortRun;
+      // a function's latency histogram is allocated when it completes its first request
+      long firstCompletions = recordLatencies ? servedFunctions(longSim) - servedFunctions(shortSim)
+          : 0;
+      assertTrue("allocated " + allocated + " bytes",
+          allocated < 1024 + firstCompletions * FUNCTION_HISTOGRAM_BYTES);
+    }
+  }
+
+  private static long servedFunctions(FaaSSimulation sim) {
+    return sim.getFunctions().stream().filter(f -> f.getCompletions() > 0).count();
+  }
+
+  private static FaaSSimulation faaSSimulation(double simulationTime, boolean recordLatencies) {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 500; id++) {
+      // between 1 and 10 requests a second, served in 0.1 to 1 seconds
+      functions.add(new Function(id, 100 * (1 + id % 10), 2_592_000 * (1 + id % 10)));
+    }
+    return createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(100)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(simulationTime)
+        .withLatencyHistograms(recordLatencies)
+        .createFaaSSimulation();
+  }
+
+  /**
+   * Hold model: every subject always has exactly one pending tick which reschedules itself.
+   */
+  private static class TickSimulation extends Sim {
+
+    private long created = 0;
+    private long invoked = 0;
+
+    TickSimulation(FutureEventListType type, boolean recycleEvents, double horizon) {
+      super(type.create(), recycleEvents);
+      scheduleHalt(horizon);
+      for (int subject = 0; subject < SUBJECTS; subject++) {
+        schedule(subject % 7, subject, Tick.KIND);
+      }
+    }
+
+    @Override
+    protected Event createEvent(double invokeTime, byte kind, int subject) {
+      created++;
+      return new Tick(invokeTime, subject, this);
+    }
+  }
+
+  private static class Tick extends Event {
+
+    static final byte KIND = 0;
+
+    private int subject;
+    private final TickSimulation simulation;
+
+    Tick(double invokeTime, int subject, TickSimulation simulation) {
+      super(invokeTime);
+      this.subject = subject;
+      this.simulation = simulation;
+    }
+
+    @Override
+    public void invoke() {
+      simulation.invoked++;
+      simulation.schedule(getInvokeTime() + 1 + subject % 13, subject, KIND);
+    }
+
+    @Override
+    public byte getKind() {
+      return KIND;
+    }
+
+    @Override
+    public int getSubject() {
+      return subject;
+    }
+
+    @Override
+    public void reuse(double invokeTime, int subject) {
+      super.reuse(invokeTime, subject);
+      this.subject = subject;
+    }
+  }
+}
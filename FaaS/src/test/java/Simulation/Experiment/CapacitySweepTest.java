@@ -0,0 +1,128 @@
+package Simulation.Experiment;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Simulation.Experiment.CapacityEstimate.Verdict;
+import Simulation.FaaSSimulation;
+import java.util.List;
+import org.junit.Test;
+
+public class CapacitySweepTest {
+
+  private static final double TARGET = 0.15;
+  private static final int LOW = 20; // past the peak of the cold start ratio
+  private static final int HIGH = 40;
+
+  private static final List<Function> trace = syntheticFunctions(40);
+
+  private static CapacitySweep sweep(int parallelism) {
+    return new CapacitySweep(trace, parallelism)
+        .withWarmUpPeriod(200)
+        .withBatchLength(200)
+        .withBatches(5, 10)
+        .withSeed(3);
+  }
+
+  @Test
+  public void findsTheSameCapacityAsAnExhaustiveScan() {
+    // smallest capacity whose mean cold start ratio over every batch meets the target
+    CapacitySweep exhaustive = sweep(1);
+    int expected = HIGH;
+    while (exhaustive.estimate(expected - 1).getColdRatioConfidenceInterval()[1] <= TARGET) {
+      expected--;
+    }
+
+    assertEquals(expected, sweep(1).smallestCapacity(TARGET, LOW, HIGH));
+    assertEquals(expected, sweep(4).smallestCapacity(TARGET, LOW, HIGH));
+  }
+
+  @Test
+  public void screeningWithTheMeanFieldModelFindsTheSameCapacity() {
+    assertEquals(sweep(4).smallestCapacity(TARGET, LOW, HIGH),
+        sweep(4).smallestCapacity(TARGET, 0.2));
+  }
+
+  @Test
+  public void screeningLooksPastTheBandWhenTheModelIsOff() {
+    // the model predicts 0.152 at M = 31, which the simulation puts at 0.154, so a band without
+    // margin holds M = 31 only and the answer lies just past it
+    double target = 0.153;
+    CapacitySweep screened = sweep(4);
+    int found = screened.smallestCapacity(target, 0);
+    assertEquals(sweep(4).smallestCapacity(target, LOW, HIGH), found);
+    assertEquals(32, found);
+
+    // the edges of the band, M = 30 and 31, were simulated before anything else
+    boolean edgeMissed = false;
+    for (CapacityEstimate edge : screened.getEstimates().subList(0, 2)) {
+      edgeMissed |= edge.getCapacity() == 31 && !edge.meetsTarget(target);
+    }
+    assertTrue(edgeMissed);
+  }
+
+  @Test
+  public void candidatesStopEarly() {
+    // below its peak the cold start ratio grows with the capacity, so with the target at the ratio
+    // of M = 5, the candidates 3 and 5 of [1, 7) are known: 3 soon meets the target, which leaves
+    // 5 straddling it but irrelevant
+    double target = sweep(1).estimate(5).getColdRatioConfidenceInterval()[1];
+    CapacitySweep sweep = sweep(2);
+    sweep.smallestCapacity(target, 1, 7);
+
+    int batches = 0;
+    boolean cancelled = false;
+    for (CapacityEstimate estimate : sweep.getEstimates()) {
+      batches += estimate.getBatches();
+      cancelled |= estimate.getVerdict() == Verdict.CANCELLED;
+    }
+    assertTrue(cancelled);
+    assertTrue(batches < 10 * sweep.getEstimates().size());
+
+    CapacityEstimate straddling = sweep.getEstimates().get(1);
+    assertEquals(5, straddling.getCapacity());
+    assertEquals(Verdict.CANCELLED, straddling.getVerdict());
+    assertEquals(5, straddling.getBatches());
+  }
+
+  @Test
+  public void commonRandomNumbersSharpenTheDifferenceBetweenCapacities() {
+    int seeds = 8;
+    double[] withCrn = new double[seeds];
+    double[] withoutCrn = new double[seeds];
+    for (int seed = 0; seed < seeds; seed++) {
+      withCrn[seed] = coldStartRatio(31, seed, true) - coldStartRatio(32, seed, true);
+      withoutCrn[seed] = coldStartRatio(31, seed, false) - coldStartRatio(32, seed, false);
+    }
+    assertTrue(variance(withCrn) < variance(withoutCrn));
+  }
+
+  private static double coldStartRatio(int capacity, long seed, boolean commonRandomNumbers) {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFreshFunctions(trace)
+        .withMemoryCapacity(capacity)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .withWarmUpPeriod(200)
+        .withSeed(seed)
+        .withCommonRandomNumbers(commonRandomNumbers)
+        .createFaaSSimulation();
+    sim.runSim();
+    return sim.getBiasedColdStartRatio();
+  }
+
+  private static double variance(double[] samples) {
+    double mean = 0;
+    for (double sample : samples) {
+      mean += sample / samples.length;
+    }
+    double squares = 0;
+    for (double sample : samples) {
+      squares += (sample - mean) * (sample - mean);
+    }
+    return squares / (samples.length - 1);
+  }
+}
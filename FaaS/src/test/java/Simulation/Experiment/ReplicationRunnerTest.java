@@ -0,0 +1,69 @@
+package Simulation.Experiment;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.util.List;
+import java.util.function.LongFunction;
+import org.junit.Test;
+
+public class ReplicationRunnerTest {
+
+  private static final List<Function> trace = syntheticFunctions(100);
+
+  private static final LongFunction<FaaSSimulation> factory = seed -> createFaaSSimBuilder()
+      .withFreshFunctions(trace)
+      .withMemoryCapacity(10)
+      .withFullIdleMemory()
+      .withSimulationTimeDuration(1_000)
+      .withWarmUpPeriod(100)
+      .withSeed(seed)
+      .createFaaSSimulation();
+
+  @Test
+  public void resultsDoNotDependOnParallelism() {
+    ReplicationReport sequential = new ReplicationRunner(1).run(6, 42, factory);
+    ReplicationReport parallel = new ReplicationRunner(4).run(6, 42, factory);
+
+    assertArrayEquals(sequential.getColdStartRatios(), parallel.getColdStartRatios(), 0);
+    assertArrayEquals(sequential.getLossRates(), parallel.getLossRates(), 0);
+  }
+
+  @Test
+  public void replicationsAreIndependent() {
+    ReplicationReport report = new ReplicationRunner(2).run(4, 42, factory);
+    double[] ratios = report.getColdStartRatios();
+
+    assertNotEquals(report.getSeed(0), report.getSeed(1));
+    assertNotEquals(ratios[0], ratios[1], 0);
+    // sharing the trace must leave it untouched
+    assertEquals(0, trace.get(0).getRequests());
+  }
+
+  @Test
+  public void lossRatesOnlyCoverTheMeasuredPeriod() {
+    // 90% of the run is warm-up, over the whole run the loss rate would be a tenth of what it is
+    LongFunction<FaaSSimulation> longWarmUp = seed -> createFaaSSimBuilder()
+        .withFreshFunctions(trace)
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .withWarmUpPeriod(900)
+        .withSeed(seed)
+        .createFaaSSimulation();
+    ReplicationReport report = new ReplicationRunner(2).run(2, 42, longWarmUp);
+    for (int r = 0; r < 2; r++) {
+      FaaSSimulation sim = longWarmUp.apply(report.getSeed(r));
+      sim.runSim();
+      double batchMean = sim.getLossRateBatches().getMean();
+      assertTrue(batchMean > 0);
+      assertEquals(batchMean, report.getLossRates()[r], 1e-9 * batchMean);
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package Simulation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Samplers.Sampler;
+import Samplers.Sampler.Stream;
+import Simulation.Arrival.ArrivalEngine;
+import Statistics.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class FaaSSimulationTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void functionIDsAreNotNegative() {
+    new Function(-1, 50, 1_000);
+  }
+
+  @Test
+  public void sparseFunctionIDsAreIndexedDensely() {
+    // e.g. hashed IDs, the tables are sized by the number of functions and not by the largest ID
+    List<Function> sparse = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      sparse.add(new Function(Integer.MAX_VALUE - 7 * i, 50 * (1 + i % 7), 259_200 * (1 + i % 5)));
+    }
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(sparse)
+        .withMemoryCapacity(5)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(2_000)
+        .withLatencyHistograms(true)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    Function last = sparse.get(19);
+    assertEquals(19, last.getIndex());
+    assertSame(last, sim.getFunction(last.getFunctionID()));
+    assertNull(sim.getFunction(1));
+    assertTrue(last.getRequests() > 0);
+    assertEquals(last.getCompletions(),
+        sim.getLatencyHistogram(last.getFunctionID()).getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void functionIDsAreUnique() {
+    List<Function> duplicated = syntheticFunctions(10);
+    duplicated.add(new Function(3, 50, 1_000));
+    createFaaSSimBuilder()
+        .withFunctions(duplicated)
+        .withMemoryCapacity(5)
+        .withSimulationTimeDuration(10)
+        .createFaaSSimulation();
+  }
+
+  @Test
+  public void requestsRejectedWhileLoadingKeepTheLoadingRequestsServiceTime() {
+    List<Function> functions = syntheticFunctions(2);
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(1)
+        .withFullIdleMemory() // function 1 is idle, function 2 is out of memory
+        .withSimulationTimeDuration(10)
+        .withCommonRandomNumbers(true)
+        .createFaaSSimulation();
+    Function loading = functions.get(1);
+    sim.handleRequest(loading); // evicts function 1 and loads function 2
+    sim.handleRequest(loading); // rejected, but draws its own variates
+    assertEquals(1, sim.getTotalRejections());
+
+    // the first request of function 2 is the one served
+    Sampler sampler = new Sampler(Sampler.DEFAULT_SEED);
+    sampler.createSubstreams(functions.size() + 1);
+    double firstServiceTime = sampler.Exponential(Stream.SERVICE, loading.getFunctionID(),
+        loading.getServiceRate());
+    assertEquals(firstServiceTime, sim.nextServiceTime(loading), 0);
+  }
+
+  @Test
+  public void runningTotalsMatchTheSumOverFunctions() {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(200))
+        .withMemoryCapacity(20)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(2_000)
+        .withWarmUpPeriod(500)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    long requests = 0;
+    long coldStarts = 0;
+    long promotions = 0;
+    long completions = 0;
+    long rejections = 0;
+    for (Function f : sim.getFunctions()) {
+      requests += f.getRequests();
+      coldStarts += f.getColdStarts();
+      promotions += f.getPromotions();
+      completions += f.getCompletions();
+      rejections += f.getRejections();
+    }
+
+    assertTrue(requests > 0);
+    assertEquals(requests, sim.getTotalRequests());
+    assertEquals(coldStarts, sim.getTotalColdStarts());
+    assertEquals(promotions, sim.getTotalPromotions());
+    assertEquals(completions, sim.getTotalCompletions());
+    assertEquals(rejections, sim.getTotalRejections());
+  }
+
+  @Test
+  public void superposedArrivalsMatchEachFunctionsArrivalRate() {
+    double simulationTime = 20_000;
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(100))
+        .withMemoryCapacity(20)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(simulationTime)
+        .withArrivalEngine(ArrivalEngine.SUPERPOSED)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    // Pearson's chi-squared with 99 degrees of freedom: mean 99, standard deviation ~14
+    double chiSquared = 0;
+    for (Function f : sim.getFunctions()) {
+      double expected = f.getArrivalRate() * simulationTime;
+      chiSquared += Math.pow(f.getRequests() - expected, 2) / expected;
+    }
+    assertTrue("chi squared " + chiSquared, chiSquared < 99 + 5 * 14);
+  }
+
+  @Test
+  public void functionsDrawTheirArrivalsFromTheirOwnStreams() {
+    // with per-function substreams, the arrivals of a function do not depend on anything the rest
+    // of the system does, e.g. how much memory the server has
+    FaaSSimulation small = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(50))
+        .withMemoryCapacity(5)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .createFaaSSimulation();
+    FaaSSimulation large = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(50))
+        .withMemoryCapacity(40)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .createFaaSSimulation();
+    small.runSim();
+    large.runSim();
+
+    assertTrue(small.getTotalRejections() > large.getTotalRejections());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(small.getFunctions().get(i).getRequests(),
+          large.getFunctions().get(i).getRequests());
+    }
+  }
+
+  @Test
+  public void bothDispatchModesRunTheSameSimulation() {
+    FaaSSimulation[] sims = new FaaSSimulation[DispatchMode.values().length];
+    for (DispatchMode mode : DispatchMode.values()) {
+      sims[mode.ordinal()] = createFaaSSimBuilder()
+          .withFunctions(syntheticFunctions(100))
+          .withMemoryCapacity(15)
+          .withFullIdleMemory()
+          .withSimulationTimeDuration(2_000)
+          .withWarmUpPeriod(500)
+          .withDispatchMode(mode)
+          .createFaaSSimulation();
+      sims[mode.ordinal()].runSim();
+    }
+
+    FaaSSimulation polymorphic = sims[DispatchMode.POLYMORPHIC.ordinal()];
+    FaaSSimulation devirtualized = sims[DispatchMode.SWITCH.ordinal()];
+    assertTrue(polymorphic.getTotalRequests() > 0);
+    assertEquals(polymorphic.getTotalRequests(), devirtualized.getTotalRequests());
+    assertEquals(polymorphic.getTotalColdStarts(), devirtualized.getTotalColdStarts());
+    assertEquals(polymorphic.getTotalPromotions(), devirtualized.getTotalPromotions());
+    assertEquals(polymorphic.getTotalCompletions(), devirtualized.getTotalCompletions());
+    assertEquals(polymorphic.getTotalRejections(), devirtualized.getTotalRejections());
+  }
+
+  @Test
+  public void latenciesOfWarmRequestsAreTheirServiceTimes() {
+    // a single function that never leaves memory, so no request suffers a cold start
+    List<Function> functions = new ArrayList<>();
+    functions.add(new Function(1, 100, 2_592_000)); // one request a second, served in 100ms
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(1)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(20_000)
+        .withLatencyHistograms(true)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    LatencyHistogram latency = sim.getLatencyHistogram();
+    assertEquals(sim.getTotalCompletions(), latency.getCount());
+    assertEquals(latency.getCount(), sim.getLatencyHistogram(1).getCount());
+    assertEquals(0, sim.getTotalColdStarts());
+
+    // exponential service times with a mean of 0.1s
+    assertEquals(0.1, latency.getMean(), 0.005);
+    assertEquals(0.1 * Math.log(2), latency.getValueAtQuantile(0.5), 0.005);
+    assertEquals(0.1 * Math.log(100), latency.getValueAtQuantile(0.99), 0.05);
+  }
+
+  @Test
+  public void functionsWithoutCompletionsHaveEmptyLatencyHistograms() {
+    List<Function> functions = new ArrayList<>();
+    functions.add(new Function(1, 100, 2_592_000));
+    // every function is requested at the start, this one is still serving at the end
+    functions.add(new Function(2, 100_000_000, 1));
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(2)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(100)
+        .withLatencyHistograms(true)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    assertEquals(0, sim.getFunction(2).getCompletions());
+    assertEquals(0, sim.getLatencyHistogram(2).getCount());
+    assertEquals(sim.getTotalCompletions(), sim.getLatencyHistogram(1).getCount());
+  }
+
+  @Test
+  public void coldStartsAddToTheLatency() {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(100))
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(5_000)
+        .withLatencyHistograms(true)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    // mean service times are at most 350ms, cold starts take 2s on average
+    assertTrue(sim.getTotalColdStarts() > 0);
+    assertTrue(sim.getLatencyHistogram().getValueAtQuantile(0.999) > 1);
+  }
+
+  @Test
+  public void confidenceIntervalsComeFromBatchesOfTheMeasuredPeriod() {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(200))
+        .withMemoryCapacity(20)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(5_500)
+        .withWarmUpPeriod(500)
+        .withBatchLength(100)
+        .createFaaSSimulation();
+
+    // intervals are available while the simulation runs
+    sim.runUntil(1_500);
+    assertEquals(10, sim.getColdRatioBatches().getCount());
+    double[] early = sim.getColdRatioConfidenceInterval();
+    assertTrue(early[0] < early[1] && early[1] < early[2]);
+
+    // the last batch ends with the run
+    sim.runSim();
+    assertEquals(50, sim.getColdRatioBatches().getCount());
+    assertEquals(50, sim.getLossRateBatches().getCount());
+    double[] coldRatio = sim.getColdRatioConfidenceInterval();
+    assertTrue(coldRatio[2] - coldRatio[0] < early[2] - early[0]);
+    assertEquals(sim.getBiasedColdStartRatio(), coldRatio[1], 0.01);
+
+    // batches of equal length, so the mean loss rate is the overall one
+    double[] lossRate = sim.getLossConfidenceInterval();
+    assertEquals(sim.getTotalRejections() / 5_000.0, lossRate[1], 1e-9);
+    assertTrue(lossRate[0] < lossRate[1] && lossRate[1] < lossRate[2]);
+  }
+
+  @Test
+  public void runsStopOnceTheTargetPrecisionIsReached() {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(200))
+        .withMemoryCapacity(20)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000_000)
+        .withWarmUpPeriod(500)
+        .withBatchLength(100)
+        .withPrecisionTarget(PrecisionTarget.BOTH, 0.02)
+        .withMinimumBatches(10)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    assertTrue(sim.isPrecisionReached());
+    assertTrue(sim.isHalted());
+    assertTrue("stopped at " + sim.getTime(), sim.getTime() < 100_000);
+    long batches = sim.getColdRatioBatches().getCount();
+    assertTrue(batches >= 10);
+    assertEquals(500 + 100 * batches, sim.getTime(), 1e-6);
+    double confidence = FaaSSimulation.DEFAULT_CONFIDENCE;
+    assertTrue(sim.getColdRatioBatches().relativeHalfWidth(confidence) <= 0.02);
+    assertTrue(sim.getLossRateBatches().relativeHalfWidth(confidence) <= 0.02);
+  }
+
+  @Test
+  public void metricsThatStayAtZeroAreExactlySettled() {
+    // every function fits in memory and serves for 10us at most once every 10s, so after the
+    // warm-up no request is ever cold started or rejected
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 40; id++) {
+      functions.add(new Function(id, 0.01, 259_200));
+    }
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(40)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(100_000)
+        .withWarmUpPeriod(100)
+        .withBatchLength(100)
+        .withPrecisionTarget(PrecisionTarget.BOTH, 0.05)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    assertEquals(0, sim.getTotalColdStarts());
+    assertEquals(0, sim.getTotalRejections());
+    assertTrue(sim.isPrecisionReached());
+    assertEquals(100 + 100 * FaaSSimulation.DEFAULT_MIN_BATCHES, sim.getTime(), 1e-6);
+  }
+
+  @Test
+  public void theHorizonCapsRunsThatNeverReachTheTargetPrecision() {
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(syntheticFunctions(200))
+        .withMemoryCapacity(20)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(2_000)
+        .withBatchLength(100)
+        .withPrecisionTarget(PrecisionTarget.COLD_RATIO, 1e-6)
+        .createFaaSSimulation();
+    sim.runSim();
+
+    assertTrue(sim.isHalted());
+    assertFalse(sim.isPrecisionReached());
+    assertEquals(2_000, sim.getTime(), 0);
+    assertEquals(20, sim.getColdRatioBatches().getCount());
+  }
+}
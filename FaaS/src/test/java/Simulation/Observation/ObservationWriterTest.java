@@ -0,0 +1,151 @@
+package Simulation.Observation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObservationWriterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void csvWriterWritesTheHeaderAndOneLinePerObservation() throws IOException {
+    File file = folder.newFile("observations.csv");
+    try (CsvObservationWriter writer = new CsvObservationWriter(file)) {
+      writer.record(1.5, 10, 2, 1, 7, 3);
+      writer.record(3.25, 20, 4, 2, 15, 6);
+    }
+    assertEquals(CsvObservationWriter.HEADER + "1.5,10,2,1,7,3\n" + "3.25,20,4,2,15,6\n",
+        Files.readString(file.toPath()));
+  }
+
+  @Test
+  public void resetKeepsOnlyTheHeader() throws IOException {
+    File file = folder.newFile("observations.csv");
+    try (CsvObservationWriter writer = new CsvObservationWriter(file)) {
+      // enough observations to flush the buffer a few times before the reset
+      for (int i = 0; i < 10_000; i++) {
+        writer.record(i, i, i, i, i, i);
+      }
+      writer.reset();
+      writer.record(0.5, 1, 0, 0, 0, 1);
+    }
+    assertEquals(CsvObservationWriter.HEADER + "0.5,1,0,0,0,1\n", Files.readString(file.toPath()));
+  }
+
+  @Test
+  public void binaryWriterRoundTrips() throws IOException {
+    File file = folder.newFile("observations.bin");
+    int count = 5_000; // more than one buffer
+    try (BinaryObservationWriter writer = new BinaryObservationWriter(file)) {
+      writer.record(-1, 0, 0, 0, 0, 0);
+      writer.reset();
+      for (int i = 0; i < count; i++) {
+        writer.record(i * 0.5, i, 2L * i, 3L * i, 4L * i, 5L * i);
+      }
+    }
+    List<double[]> observations = BinaryObservationWriter.read(file);
+    assertEquals(count, observations.size());
+    for (int i = 0; i < count; i++) {
+      double[] observation = observations.get(i);
+      assertEquals(i * 0.5, observation[0], 0);
+      for (int column = 1; column < observation.length; column++) {
+        assertEquals((double) column * i, observation[column], 0);
+      }
+    }
+  }
+
+  @Test
+  public void observationsAreWrittenWhileTheSimulationRuns() throws IOException {
+    File file = folder.newFile("observations.bin");
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 50; id++) {
+      functions.add(new Function(id, 100, 259_200 * (1 + id % 5)));
+    }
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(10_000)
+        .withWarmUpPeriod(1_000)
+        .withObservationInterval(1)
+        .withBinaryObservationLogFile(file)
+        .createFaaSSimulation();
+
+    sim.runUntil(5_000);
+    sim.closeObservations();
+    List<double[]> halfway = BinaryObservationWriter.read(file);
+    // at most one observation a second, and none from the warm-up period
+    assertTrue(halfway.size() > 3_000 && halfway.size() <= 4_000);
+    double previous = 1_000;
+    for (double[] observation : halfway) {
+      assertTrue(observation[0] > previous);
+      previous = observation[0];
+    }
+    double[] last = halfway.get(halfway.size() - 1);
+    assertTrue(last[1] <= sim.getTotalRequests());
+  }
+
+  private static FaaSSimulation observedSimulation(ObservationSink sink) {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 50; id++) {
+      functions.add(new Function(id, 100, 259_200 * (1 + id % 5)));
+    }
+    return createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(1_000)
+        .withObservationInterval(10)
+        .withObservationSink(sink)
+        .createFaaSSimulation();
+  }
+
+  @Test
+  public void observationsAreFlushedWhileTheSimulationRuns() throws IOException {
+    File file = folder.newFile("observations.csv");
+    FaaSSimulation sim = observedSimulation(new CsvObservationWriter(file));
+    sim.runUntil(10 * FaaSSimulation.OBSERVATIONS_PER_FLUSH);
+    // on disk before the sink is closed or its buffer fills up
+    assertEquals(1 + FaaSSimulation.OBSERVATIONS_PER_FLUSH,
+        Files.readAllLines(file.toPath()).size());
+    sim.closeObservations();
+  }
+
+  @Test
+  public void observationsBeforeAFailureAreWrittenOut() throws IOException {
+    File file = folder.newFile("observations.csv");
+    CsvObservationWriter failing = new CsvObservationWriter(file) {
+      private int records = 0;
+
+      @Override
+      public void record(double time, long requests, long coldStarts, long promotions,
+          long completions, long rejections) throws IOException {
+        if (++records > 5) {
+          throw new IllegalStateException("the run fails at the sixth observation");
+        }
+        super.record(time, requests, coldStarts, promotions, completions, rejections);
+      }
+    };
+    try {
+      observedSimulation(failing).runSim();
+      fail("The run should have failed");
+    } catch (IllegalStateException expected) {
+      // the sink is closed on the way out
+    }
+    assertEquals(1 + 5, Files.readAllLines(file.toPath()).size());
+  }
+}
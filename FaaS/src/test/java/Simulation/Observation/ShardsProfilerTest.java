@@ -0,0 +1,109 @@
+package Simulation.Observation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ShardsProfilerTest {
+
+  private static List<Function> functions(int count) {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= count; id++) {
+      functions.add(new Function(id, 100, 259_200));
+    }
+    return functions;
+  }
+
+  private static void requestInCycles(ShardsProfiler profiler, List<Function> functions,
+      int cycles) {
+    for (int cycle = 0; cycle < cycles; cycle++) {
+      for (Function f : functions) {
+        profiler.recordRequest(f);
+      }
+    }
+  }
+
+  @Test
+  public void exactDistancesWithoutSampling() {
+    // every function is requested again after the two others: hits from a capacity of 3 on
+    ShardsProfiler profiler = new ShardsProfiler();
+    requestInCycles(profiler, functions(3), 2);
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+
+    assertEquals(6, curve.getRequests(), 0);
+    assertEquals(1, curve.getMissRatio(1), 0);
+    assertEquals(1, curve.getMissRatio(2), 0);
+    assertEquals(0.5, curve.getMissRatio(3), 0); // only the first requests miss
+    assertEquals(3, curve.smallestCapacity(0.5));
+  }
+
+  @Test
+  public void capacitiesTooSmallForTheBusyFunctionsAreUnreliable() {
+    // each function is busy half of the time, so the 3 of them take 1.5 slots and the LRU curve
+    // is only trusted from 15 slots on
+    List<Function> busy = new ArrayList<>();
+    for (int id = 1; id <= 3; id++) {
+      busy.add(new Function(id, 10_000, 259_200));
+    }
+    ShardsProfiler profiler = new ShardsProfiler();
+    requestInCycles(profiler, busy, 2);
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+
+    assertEquals(15, curve.getSmallestReliableCapacity());
+    assertEquals(0.5, curve.getMissRatio(3), 0);
+    assertEquals(MissRatioCurve.UNRELIABLE, curve.smallestCapacity(0.5));
+  }
+
+  @Test
+  public void distancesSurviveRenumberingTheRequests() {
+    // 4 tracked functions renumber their requests every 16 requests
+    ShardsProfiler profiler = new ShardsProfiler(1, 4);
+    requestInCycles(profiler, functions(3), 1_000);
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+
+    assertEquals(1, curve.getMissRatio(2), 0);
+    assertEquals(3.0 / 3_000, curve.getMissRatio(3), 1e-12);
+  }
+
+  @Test
+  public void trackingFewerFunctionsScalesTheDistances() {
+    ShardsProfiler profiler = new ShardsProfiler(1, 64);
+    requestInCycles(profiler, functions(1_000), 20);
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+
+    assertTrue(profiler.getSamplingRate() < 0.1);
+    assertEquals(20_000, curve.getRequests(), 1e-6);
+    // a cycle over 1000 functions misses below a capacity of 1000, and hits from there on
+    assertTrue(curve.getMissRatio(800) > 0.9);
+    assertTrue(curve.getMissRatio(1_200) < 0.1);
+    assertFalse(curve.isReliable(100));
+  }
+
+  @Test
+  public void profilesTheRequestsAfterTheWarmUp() {
+    ShardsProfiler profiler = new ShardsProfiler();
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctions(functions(200))
+        .withMemoryCapacity(50)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(2_000)
+        .withWarmUpPeriod(500)
+        .withProfiler(profiler)
+        .createFaaSSimulation();
+    sim.runSim();
+    MissRatioCurve curve = profiler.getMissRatioCurve();
+
+    assertEquals(sim.getTotalRequests(), curve.getRequests(), 1e-6);
+    // with functions this rarely busy, the LRU curve is close to the real cold start ratio
+    assertTrue(curve.isReliable(50));
+    assertEquals(sim.getBiasedColdStartRatio(), curve.getMissRatio(50),
+        0.05 * sim.getBiasedColdStartRatio());
+  }
+}
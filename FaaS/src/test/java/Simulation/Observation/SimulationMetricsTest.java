@@ -0,0 +1,96 @@
+package Simulation.Observation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import FunctionAsAService.Function;
+import Simulation.Event.BatchEnd;
+import Simulation.Event.Halt;
+import Simulation.FaaSSimulation;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SimulationMetricsTest {
+
+  private static final int CAPACITY = 20;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static FaaSSimulation simulation(SimulationMetrics metrics) {
+    List<Function> functions = syntheticFunctions(200);
+    return createFaaSSimBuilder()
+        .withFunctions(functions)
+        .withMemoryCapacity(CAPACITY)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(2_000)
+        .withMetrics(metrics)
+        .createFaaSSimulation();
+  }
+
+  @Test
+  public void metricsMatchTheSimulationOnceItStops() {
+    SimulationMetrics metrics = new SimulationMetrics();
+    FaaSSimulation sim = simulation(metrics);
+    sim.runSim();
+
+    assertEquals(sim.getTotalRequests(), metrics.getRequests());
+    assertEquals(sim.getTotalPromotions(), metrics.getPromotions());
+    assertEquals(sim.getTotalCompletions(), metrics.getCompletions());
+    // the requests, promotions and completions plus the control events
+    assertEquals(FaaSSimulation.DEFAULT_BATCHES, metrics.getEvents(BatchEnd.KIND));
+    // the Halt steps back once behind the last BatchEnd, due at the horizon too
+    assertEquals(2, metrics.getEvents(Halt.KIND));
+    assertEquals(metrics.getRequests() + metrics.getPromotions() + metrics.getCompletions()
+            + metrics.getEvents(BatchEnd.KIND) + metrics.getEvents(Halt.KIND),
+        metrics.getTotalEvents());
+    assertEquals(2_000, metrics.getSimulationTime(), 0);
+
+    // one pending request per function at least
+    assertTrue(metrics.getDiaryHighWater() >= 200);
+    assertEquals(CAPACITY,
+        metrics.getActiveSize() + metrics.getIdleSize() + metrics.getLoadingSize());
+    assertTrue(metrics.getEventsPerSecond() > 0);
+    assertTrue(metrics.getSimulatedPerWallSecond() > 0);
+  }
+
+  @Test
+  public void metricsArePublishedWhileTheSimulationRuns() {
+    SimulationMetrics metrics = new SimulationMetrics();
+    FaaSSimulation sim = simulation(metrics);
+    sim.runUntil(1_000);
+
+    assertFalse(sim.isHalted());
+    assertEquals(1_000, metrics.getSimulationTime(), 0);
+    assertEquals(sim.getTotalRequests(), metrics.getRequests());
+  }
+
+  @Test
+  public void samplesAreRecordedByFlightRecorder() throws IOException {
+    File dump = folder.newFile("samples.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("FaaS.SimulationSample");
+      recording.start();
+      simulation(new SimulationMetrics(true)).runSim();
+      recording.stop();
+      recording.dump(dump.toPath());
+    }
+
+    List<RecordedEvent> samples = RecordingFile.readAllEvents(dump.toPath());
+    assertTrue(samples.size() > 1);
+    RecordedEvent last = samples.get(samples.size() - 1);
+    assertEquals(2_000, last.getDouble("simulationTime"), 0);
+    assertEquals(CAPACITY, last.getInt("activeSize") + last.getInt("idleSize")
+        + last.getInt("loadingSize"));
+  }
+}
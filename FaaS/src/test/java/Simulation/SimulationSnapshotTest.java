@@ -0,0 +1,120 @@
+package Simulation;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.TestTraces.syntheticFunctions;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import FunctionAsAService.Function;
+import Simulation.Arrival.ArrivalEngine;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+
+public class SimulationSnapshotTest {
+
+  private static final double WARM_UP = 500;
+
+  private static final List<Function> trace = syntheticFunctions(200);
+
+  private static FaaSSimulationBuilder builder(ArrivalEngine engine, double simulationTime) {
+    return createFaaSSimBuilder()
+        .withFreshFunctions(trace)
+        .withMemoryCapacity(20)
+        .withSimulationTimeDuration(simulationTime)
+        .withWarmUpPeriod(WARM_UP)
+        .withArrivalEngine(engine)
+        .withCommonRandomNumbers(true)
+        .withLatencyHistograms(true)
+        .withSeed(11);
+  }
+
+  private static void assertSameRun(FaaSSimulation expected, FaaSSimulation actual) {
+    assertEquals(expected.getTime(), actual.getTime(), 0);
+    assertEquals(expected.getTotalRequests(), actual.getTotalRequests());
+    assertEquals(expected.getTotalColdStarts(), actual.getTotalColdStarts());
+    assertEquals(expected.getTotalPromotions(), actual.getTotalPromotions());
+    assertEquals(expected.getTotalCompletions(), actual.getTotalCompletions());
+    assertEquals(expected.getTotalRejections(), actual.getTotalRejections());
+    for (int i = 0; i < trace.size(); i++) {
+      Function e = expected.getFunctions().get(i);
+      Function a = actual.getFunctions().get(i);
+      assertEquals(e.getRequests(), a.getRequests());
+      assertEquals(e.getColdStarts(), a.getColdStarts());
+    }
+    assertArrayEquals(expected.getColdRatioConfidenceInterval(),
+        actual.getColdRatioConfidenceInterval(), 0);
+    assertArrayEquals(expected.getLossConfidenceInterval(), actual.getLossConfidenceInterval(), 0);
+    assertEquals(expected.getLatencyHistogram().getMean(), actual.getLatencyHistogram().getMean(),
+        0);
+    assertEquals(expected.getServer().getAverageIdleSize(),
+        actual.getServer().getAverageIdleSize(), 0);
+  }
+
+  @Test
+  public void resumingFromASnapshotFileReproducesTheUninterruptedRun() throws IOException {
+    for (ArrivalEngine engine : ArrivalEngine.values()) {
+      FaaSSimulation uninterrupted = builder(engine, 2_000).withFullIdleMemory()
+          .createFaaSSimulation();
+      uninterrupted.runSim();
+
+      // interrupted halfway through the batches
+      FaaSSimulation interrupted = builder(engine, 2_000).withFullIdleMemory()
+          .createFaaSSimulation();
+      interrupted.runUntil(1_234.5);
+      File file = File.createTempFile("snapshot", ".bin");
+      file.deleteOnExit();
+      interrupted.snapshot().write(file);
+
+      FaaSSimulation resumed = builder(engine, 2_000)
+          .withSnapshot(SimulationSnapshot.read(file))
+          .createFaaSSimulation();
+      resumed.runSim();
+      assertSameRun(uninterrupted, resumed);
+    }
+  }
+
+  @Test
+  public void forksOfOneWarmUpMatchTheirOwnRuns() {
+    FaaSSimulation warmUp = builder(ArrivalEngine.PER_FUNCTION, 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    warmUp.runUntil(WARM_UP);
+    SimulationSnapshot snapshot = warmUp.snapshot();
+
+    for (double simulationTime : new double[]{1_000, 3_000, 2_000}) {
+      FaaSSimulation fork = builder(ArrivalEngine.PER_FUNCTION, simulationTime)
+          .withSnapshot(snapshot)
+          .createFaaSSimulation();
+      fork.runSim();
+
+      FaaSSimulation run = builder(ArrivalEngine.PER_FUNCTION, simulationTime)
+          .withFullIdleMemory()
+          .createFaaSSimulation();
+      run.runSim();
+      assertSameRun(run, fork);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void snapshotsOnlyRestoreTheSameCapacity() {
+    FaaSSimulation sim = builder(ArrivalEngine.PER_FUNCTION, 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    sim.runUntil(100);
+    builder(ArrivalEngine.PER_FUNCTION, 1_000)
+        .withMemoryCapacity(21)
+        .withSnapshot(sim.snapshot())
+        .createFaaSSimulation();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void snapshotsOnlyRestoreTheSameSeed() {
+    FaaSSimulation sim = builder(ArrivalEngine.PER_FUNCTION, 1_000).withFullIdleMemory()
+        .createFaaSSimulation();
+    sim.runUntil(100);
+    builder(ArrivalEngine.PER_FUNCTION, 1_000)
+        .withSeed(12)
+        .withSnapshot(sim.snapshot())
+        .createFaaSSimulation();
+  }
+}
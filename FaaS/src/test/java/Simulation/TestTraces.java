@@ -0,0 +1,26 @@
+package Simulation;
+
+import FunctionAsAService.Function;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic workloads shared by the tests
+ */
+public final class TestTraces {
+
+  private TestTraces() {
+  }
+
+  /**
+   * @return functions with IDs 1 to count, whose mean service times cycle through 50 to 350ms and
+   * arrival rates through 0.1 to 0.5 requests a second, so even a few of them mix both
+   */
+  public static List<Function> syntheticFunctions(int count) {
+    List<Function> functions = new ArrayList<>(count);
+    for (int id = 1; id <= count; id++) {
+      functions.add(new Function(id, 50 * (1 + id % 7), 259_200 * (1 + id % 5)));
+    }
+    return functions;
+  }
+}
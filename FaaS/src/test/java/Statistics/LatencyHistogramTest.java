@@ -0,0 +1,77 @@
+package Statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram(8);
+    for (int micros = 1; micros <= 100; micros++) {
+      histogram.record(micros / 1e6);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(50e-6, histogram.getValueAtQuantile(0.5), 1e-12);
+    assertEquals(100e-6, histogram.getValueAtQuantile(1), 1e-12);
+  }
+
+  @Test
+  public void quantilesAreWithinThePrecision() {
+    for (int bits : new int[]{5, 8}) {
+      LatencyHistogram histogram = new LatencyHistogram(bits);
+      double[] values = new double[100_000];
+      SplittableRandom random = new SplittableRandom(7);
+      for (int i = 0; i < values.length; i++) {
+        // spread over several orders of magnitude, from 1ms to 100s
+        values[i] = Math.pow(10, -3 + 5 * random.nextDouble());
+        histogram.record(values[i]);
+      }
+      Arrays.sort(values);
+
+      double precision = Math.pow(2, -(bits - 1));
+      for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+        double exact = values[(int) Math.ceil(q * values.length) - 1];
+        double estimate = histogram.getValueAtQuantile(q);
+        assertTrue(bits + " bits, quantile " + q + ": " + estimate + " vs " + exact,
+            estimate >= exact && estimate <= exact * (1 + precision));
+      }
+    }
+  }
+
+  @Test
+  public void addingMergesTheCounts() {
+    LatencyHistogram a = new LatencyHistogram(5);
+    LatencyHistogram b = new LatencyHistogram(5);
+    a.record(0.5);
+    b.record(2.0);
+    b.record(3.0);
+    a.add(b);
+    assertEquals(3, a.getCount());
+    assertEquals(3.0, a.getMax(), 0);
+    assertEquals(5.5 / 3, a.getMean(), 1e-12);
+  }
+
+  @Test
+  public void durationsBeyondTheRangeLandInTheLastBucket() {
+    LatencyHistogram histogram = new LatencyHistogram(5);
+    histogram.record(1e9);
+    histogram.record(-1);
+    assertEquals(2, histogram.getCount());
+    assertEquals(0, histogram.getValueAtQuantile(0.5), 0);
+    assertEquals(1e9, histogram.getMax(), 0);
+  }
+
+  @Test
+  public void resetForgetsEverything() {
+    LatencyHistogram histogram = new LatencyHistogram(5);
+    histogram.record(1);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertTrue(Double.isNaN(histogram.getValueAtQuantile(0.5)));
+  }
+}
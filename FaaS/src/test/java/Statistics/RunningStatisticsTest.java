@@ -0,0 +1,56 @@
+package Statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class RunningStatisticsTest {
+
+  @Test
+  public void matchesTheTwoPassInterval() {
+    double[] samples = new double[50];
+    SplittableRandom random = new SplittableRandom(3);
+    RunningStatistics statistics = new RunningStatistics();
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = random.nextDouble();
+      statistics.add(samples[i]);
+    }
+
+    assertEquals(samples.length, statistics.getCount());
+    assertArrayEquals(StudentT.meanConfidenceInterval(samples, samples.length, 0.90),
+        statistics.confidenceInterval(0.90), 1e-12);
+  }
+
+  @Test
+  public void staysAccurateFarFromZero() {
+    // the naive sum of squares loses every significant digit here
+    RunningStatistics statistics = new RunningStatistics();
+    for (double sample : new double[]{1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16}) {
+      statistics.add(sample);
+    }
+    assertEquals(1e9 + 10, statistics.getMean(), 0);
+    assertEquals(30, statistics.getVariance(), 1e-6);
+  }
+
+  @Test
+  public void identicalSamplesAreExactlySettled() {
+    RunningStatistics statistics = new RunningStatistics();
+    for (int i = 0; i < 5; i++) {
+      statistics.add(0); // e.g. a loss rate with no rejections
+    }
+    assertEquals(0, statistics.relativeHalfWidth(0.90), 0);
+  }
+
+  @Test
+  public void intervalNeedsTwoSamples() {
+    RunningStatistics statistics = new RunningStatistics();
+    statistics.add(0.5);
+    double[] interval = statistics.confidenceInterval(0.90);
+    assertTrue(Double.isNaN(interval[0]));
+    assertEquals(0.5, interval[1], 0);
+    assertTrue(Double.isNaN(interval[2]));
+  }
+}
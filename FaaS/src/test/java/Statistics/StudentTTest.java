@@ -0,0 +1,56 @@
+package Statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class StudentTTest {
+
+  @Test
+  public void quantilesMatchStudentsTable() {
+    assertEquals(6.313752, StudentT.quantile(0.95, 1), 1e-5);
+    assertEquals(12.706205, StudentT.quantile(0.975, 1), 1e-5);
+    assertEquals(2.919986, StudentT.quantile(0.95, 2), 1e-5);
+    assertEquals(1.812461, StudentT.quantile(0.95, 10), 1e-5);
+    assertEquals(2.042272, StudentT.quantile(0.975, 30), 1e-5);
+    assertEquals(2.756386, StudentT.quantile(0.995, 29), 1e-5);
+  }
+
+  @Test
+  public void quantilesApproachTheNormalDistribution() {
+    assertEquals(1.644854, StudentT.quantile(0.95, 1e7), 1e-5);
+    assertEquals(1.959964, StudentT.quantile(0.975, 1e7), 1e-5);
+  }
+
+  @Test
+  public void quantilesAreSymmetric() {
+    assertEquals(-StudentT.quantile(0.9, 7), StudentT.quantile(0.1, 7), 1e-12);
+    assertEquals(0, StudentT.quantile(0.5, 7), 1e-12);
+  }
+
+  @Test
+  public void cdfInvertsTheQuantile() {
+    for (double df : new double[]{1, 3, 12, 250}) {
+      for (double p : new double[]{0.01, 0.3, 0.75, 0.999}) {
+        assertEquals(p, StudentT.cdf(StudentT.quantile(p, df), df), 1e-10);
+      }
+    }
+  }
+
+  @Test
+  public void criticalValueIsTheTwoSidedQuantile() {
+    assertEquals(StudentT.quantile(0.95, 9), StudentT.criticalValue(0.90, 9), 1e-12);
+  }
+
+  @Test
+  public void meanIntervalIsCentredOnTheSampleMean() {
+    double[] samples = {1, 2, 3, 4, 5, 100};
+    double[] interval = StudentT.meanConfidenceInterval(samples, 5, 0.90);
+
+    // sample standard deviation sqrt(2.5), t(0.95, 4) = 2.131847
+    double halfWidth = 2.131847 * Math.sqrt(2.5) / Math.sqrt(5);
+    assertEquals(3, interval[1], 1e-12);
+    assertEquals(3 - halfWidth, interval[0], 1e-5);
+    assertEquals(3 + halfWidth, interval[2], 1e-5);
+  }
+}
@@ -0,0 +1,104 @@
+package Traces;
+
+import static Simulation.FaaSSimulationBuilder.createFaaSSimBuilder;
+import static Simulation.FaaSSimulationBuilder.parseCSV;
+import static org.junit.Assert.assertEquals;
+
+import FunctionAsAService.Function;
+import Simulation.FaaSSimulation;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryTraceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static void assertSameFunctions(List<Function> expected, List<Function> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Function e = expected.get(i);
+      Function a = actual.get(i);
+      assertEquals(e.getFunctionID(), a.getFunctionID());
+      assertEquals(e.getAvgServiceTimeMilliseconds(), a.getAvgServiceTimeMilliseconds(), 0);
+      assertEquals(e.getServiceRate(), a.getServiceRate(), 0);
+      assertEquals(e.getInvocations30Days(), a.getInvocations30Days());
+      assertEquals(e.getArrivalRate(), a.getArrivalRate(), 0);
+    }
+  }
+
+  @Test
+  public void roundTripsEveryColumn() throws IOException {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 1_001; id++) {
+      functions.add(new Function(id * 7, 0.5 + id * 1.25, id * 1_000));
+    }
+    File binary = folder.newFile("trace.bin");
+    BinaryTrace.write(functions, binary);
+
+    assertSameFunctions(functions, BinaryTrace.read(binary));
+  }
+
+  @Test
+  public void convertsTheCsvTrace() throws IOException {
+    File csv = folder.newFile("trace.csv");
+    Files.writeString(csv.toPath(), "FunctionID_f,AvgServiceTimeMilliseconds,Invocations30Days\n"
+        + "3138,1633,127469051\n"
+        + "10858,19,24022255\n"
+        + "5,1,1\n");
+    File binary = folder.newFile("trace.bin");
+    TraceConverter.convert(csv, binary);
+
+    assertSameFunctions(parseCSV(csv), BinaryTrace.read(binary));
+  }
+
+  @Test
+  public void emptyTrace() throws IOException {
+    File binary = folder.newFile("empty.bin");
+    BinaryTrace.write(new ArrayList<>(), binary);
+    assertEquals(0, BinaryTrace.read(binary).size());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsFilesThatAreNotBinaryTraces() throws IOException {
+    File csv = folder.newFile("trace.csv");
+    Files.writeString(csv.toPath(), "FunctionID_f,AvgServiceTimeMilliseconds,Invocations30Days\n");
+    BinaryTrace.read(csv);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsTruncatedTraces() throws IOException {
+    List<Function> functions = List.of(new Function(1, 10, 100), new Function(2, 20, 200));
+    File binary = folder.newFile("trace.bin");
+    BinaryTrace.write(functions, binary);
+    byte[] bytes = Files.readAllBytes(binary.toPath());
+    Files.write(binary.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+    BinaryTrace.read(binary);
+  }
+
+  @Test
+  public void simulatesFromABinaryTrace() throws IOException {
+    List<Function> functions = new ArrayList<>();
+    for (int id = 1; id <= 50; id++) {
+      functions.add(new Function(id, 100, 259_200));
+    }
+    File binary = folder.newFile("trace.bin");
+    BinaryTrace.write(functions, binary);
+
+    FaaSSimulation sim = createFaaSSimBuilder()
+        .withFunctionsFromBinaryTrace(binary)
+        .withMemoryCapacity(10)
+        .withFullIdleMemory()
+        .withSimulationTimeDuration(100)
+        .createFaaSSimulation();
+    sim.runSim();
+    assertEquals(50, sim.getFunctions().size());
+  }
+}
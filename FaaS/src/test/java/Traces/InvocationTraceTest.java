@@ -0,0 +1,107 @@
+package Traces;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InvocationTraceTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File writeTrace(int count) throws IOException {
+    File file = folder.newFile("invocations.bin");
+    try (InvocationTrace.Writer writer = InvocationTrace.write(file, true)) {
+      for (int i = 0; i < count; i++) {
+        writer.append(i * 0.5, 1 + i % 13, i / 1000.0);
+      }
+    }
+    return file;
+  }
+
+  @Test
+  public void readsEveryRecordAcrossWindows() throws IOException {
+    // windows of 5 records, the last one partly filled
+    InvocationTrace trace = InvocationTrace.open(writeTrace(1_003), 100);
+    assertEquals(1_003, trace.getInvocationCount());
+    assertTrue(trace.hasDurations());
+    for (int i = 0; i < 1_003; i++) {
+      assertTrue(trace.hasNext());
+      trace.next();
+      assertEquals(i * 0.5, trace.getTime(), 0);
+      assertEquals(1 + i % 13, trace.getFunctionID());
+      assertEquals(i / 1000.0, trace.getDuration(), 0);
+    }
+    assertFalse(trace.hasNext());
+
+    trace.seek(7);
+    trace.next();
+    assertEquals(3.5, trace.getTime(), 0);
+    assertEquals(8, trace.getPosition());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void onlyAppendsInOrderOfTime() throws IOException {
+    try (InvocationTrace.Writer writer = InvocationTrace.write(folder.newFile("unsorted.bin"),
+        false)) {
+      writer.append(2, 1);
+      writer.append(1, 2);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void onlyAppendsFiniteDurations() throws IOException {
+    try (InvocationTrace.Writer writer = InvocationTrace.write(folder.newFile("endless.bin"),
+        true)) {
+      writer.append(1, 1, 0.5);
+      writer.append(2, 1, Double.POSITIVE_INFINITY);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsNegativeDurationsInTheCsvTrace() throws IOException {
+    File csv = folder.newFile("invocations.csv");
+    Files.writeString(csv.toPath(), "TimestampSeconds,FunctionID_f,DurationMilliseconds\n"
+        + "0.5,3138,1633\n"
+        + "0.5,5,-1\n");
+    TraceConverter.convertInvocations(csv, folder.newFile("invocations.bin"));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsATruncatedTrace() throws IOException {
+    File file = writeTrace(10);
+    try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+      truncated.setLength(truncated.length() - 1);
+    }
+    InvocationTrace.open(file);
+  }
+
+  @Test
+  public void convertsTheCsvTrace() throws IOException {
+    File csv = folder.newFile("invocations.csv");
+    Files.writeString(csv.toPath(), "TimestampSeconds,FunctionID_f,DurationMilliseconds\n"
+        + "0.5,3138,1633\n"
+        + "0.5,5,1\n"
+        + "86399.25,10858,19\n");
+    File binary = folder.newFile("invocations.bin");
+    TraceConverter.convertInvocations(csv, binary);
+
+    InvocationTrace trace = InvocationTrace.open(binary);
+    assertEquals(3, trace.getInvocationCount());
+    trace.next();
+    assertEquals(3138, trace.getFunctionID());
+    assertEquals(1.633, trace.getDuration(), 1e-12);
+    trace.next();
+    trace.next();
+    assertEquals(86399.25, trace.getTime(), 0);
+    assertEquals(10858, trace.getFunctionID());
+  }
+}